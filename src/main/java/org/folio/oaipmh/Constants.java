@@ -25,8 +25,21 @@ public final class Constants {
   public static final String REPOSITORY_TIME_GRANULARITY = "repository.timeGranularity";
   public static final String REPOSITORY_DELETED_RECORDS = "repository.deletedRecords";
   public static final String REPOSITORY_STORAGE = "repository.storage";
+  public static final String REPOSITORY_STREAMING_RESPONSE = "repository.streamingResponse";
+  public static final String REPOSITORY_DC_MAPPER = "repository.dcMapper";
+  public static final String REPOSITORY_SOURCE_BATCH_SIZE = "repository.sourceBatchSize";
+  public static final String REPOSITORY_MAX_CONCURRENT_FETCHES = "repository.maxConcurrentFetches";
+  public static final String REPOSITORY_MAX_TENANT_CONCURRENT_FETCHES = "repository.maxTenantConcurrentFetches";
+  public static final String REPOSITORY_CURSOR_PAGINATION = "repository.cursorPagination";
+  public static final String REPOSITORY_PREFETCH = "repository.prefetch";
+  public static final String REPOSITORY_HARVEST_SESSIONS = "repository.harvestSessions";
+  public static final String REPOSITORY_TOTAL_RECORDS = "repository.totalRecords";
+  public static final String REPOSITORY_STREAMING_STORAGE = "repository.streamingStorage";
+  public static final String REPOSITORY_DIRECT_GET_RECORD = "repository.directGetRecord";
   public static final String REPOSITORY_PROTOCOL_VERSION_2_0 = "2.0";
 
+  public static final String RESUMPTION_TOKEN_SECRET = "resumptionToken.secret";
+
   public static final String SOURCE_RECORD_STORAGE = "SRS";
   public static final String INVENTORY_STORAGE = "INVENTORY";
 
@@ -0,0 +1,87 @@
+package org.folio.oaipmh;
+
+import javax.xml.bind.JAXBException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of preconfigured JAXB objects (i.e. {@link javax.xml.bind.Marshaller} and {@link javax.xml.bind.Unmarshaller})
+ * which are expensive to create but are not thread-safe. An object is taken exclusively by one thread and has to be returned
+ * back once the operation completed successfully. If there is no idle object, the new one is created. If the pool already
+ * holds maximum number of idle objects, the returned one is just dropped.
+ *
+ * @param <T> type of the pooled object
+ */
+public class JaxbObjectPool<T> {
+
+  /**
+   * Creates and configures new object for the pool.
+   */
+  @FunctionalInterface
+  interface Factory<T> {
+    T create() throws JAXBException;
+  }
+
+  private final Factory<T> factory;
+  private final int maxIdle;
+  private final Queue<T> idleObjects = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final AtomicLong createdCount = new AtomicLong();
+  private final AtomicLong reusedCount = new AtomicLong();
+
+  JaxbObjectPool(Factory<T> factory, int maxIdle) {
+    this.factory = factory;
+    this.maxIdle = maxIdle;
+  }
+
+  /**
+   * Takes idle object from the pool or creates new one if there is no any
+   * @return object which is used exclusively by the caller until it is returned by {@link #release(Object)}
+   * @throws JAXBException if new object cannot be created
+   */
+  T borrow() throws JAXBException {
+    T object = idleObjects.poll();
+    if (object != null) {
+      idleCount.decrementAndGet();
+      reusedCount.incrementAndGet();
+      return object;
+    }
+    createdCount.incrementAndGet();
+    return factory.create();
+  }
+
+  /**
+   * Returns the object back to the pool. Should be called only if the object was used successfully so its state is consistent.
+   * @param object the object taken by {@link #borrow()}
+   */
+  void release(T object) {
+    if (idleCount.incrementAndGet() <= maxIdle) {
+      idleObjects.offer(object);
+    } else {
+      idleCount.decrementAndGet();
+    }
+  }
+
+  /**
+   * @return number of objects created by the pool
+   */
+  public long getCreatedCount() {
+    return createdCount.get();
+  }
+
+  /**
+   * @return number of times an idle object was reused instead of creating new one
+   */
+  public long getReusedCount() {
+    return reusedCount.get();
+  }
+
+  /**
+   * @return current number of idle objects in the pool
+   */
+  public int getIdleCount() {
+    return idleCount.get();
+  }
+}
@@ -1,5 +1,7 @@
 package org.folio.oaipmh;
 
+import io.vertx.core.json.JsonObject;
+import org.folio.oaipmh.mappers.DublinCoreMapper;
 import org.folio.oaipmh.mappers.Mapper;
 import org.folio.oaipmh.mappers.MarcXmlMapper;
 import org.folio.oaipmh.mappers.XSLTMapper;
@@ -22,11 +24,13 @@ public enum MetadataPrefix {
   /** Refer to <a href="https://www.openarchives.org/OAI/openarchivesprotocol.html#dublincore">Dublin Core</a> section of OAI-PMH specification */
   DC("oai_dc",
     new XSLTMapper("xslt/MARC21slim2OAIDC.xsl"),
+    new DublinCoreMapper(),
     "http://www.openarchives.org/OAI/2.0/oai_dc.xsd",
     "http://www.openarchives.org/OAI/2.0/oai_dc/");
 
   private String name;
   private Mapper mapper;
+  private Mapper nativeMapper;
   private String schema;
   private String metadataNamespace;
 
@@ -41,8 +45,13 @@ public enum MetadataPrefix {
   }
 
   MetadataPrefix(String name, Mapper mapper, String schema, String metadataNamespace) {
+    this(name, mapper, null, schema, metadataNamespace);
+  }
+
+  MetadataPrefix(String name, Mapper mapper, Mapper nativeMapper, String schema, String metadataNamespace) {
     this.name = name;
     this.mapper = mapper;
+    this.nativeMapper = nativeMapper;
     this.schema = schema;
     this.metadataNamespace = metadataNamespace;
   }
@@ -59,6 +68,40 @@ public enum MetadataPrefix {
     return mapper.convert(source);
   }
 
+  /**
+   * Converts the source with the mapper implemented in Java code if the format has such and it is requested, otherwise
+   * the default mapper is used.
+   *
+   * @param source String representation of MarcJson source.
+   * @param useNativeMapper {@code true} if the mapper implemented in Java code is preferred
+   * @return byte[] that represents result XML document.
+   */
+  public byte[] convert(String source, boolean useNativeMapper) {
+    return getMapper(useNativeMapper).convert(source);
+  }
+
+  /**
+   * Converts already parsed source the same way as {@link #convert(String, boolean)} does
+   *
+   * @param source MarcJson source.
+   * @param useNativeMapper {@code true} if the mapper implemented in Java code is preferred
+   * @return byte[] that represents result XML document.
+   */
+  public byte[] convert(JsonObject source, boolean useNativeMapper) {
+    return getMapper(useNativeMapper).convert(source);
+  }
+
+  /**
+   * @return the default mapper of the format
+   */
+  public Mapper getMapper() {
+    return mapper;
+  }
+
+  private Mapper getMapper(boolean useNativeMapper) {
+    return useNativeMapper && nativeMapper != null ? nativeMapper : mapper;
+  }
+
   public String getName() {
     return name;
   }
@@ -1,7 +1,5 @@
 package org.folio.oaipmh;
 
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URLEncodedUtils;
 import org.folio.rest.tools.utils.TenantTool;
 import org.openarchives.oai._2.RequestType;
 import org.openarchives.oai._2.VerbType;
@@ -9,32 +7,34 @@ import org.openarchives.oai._2_0.oai_identifier.OaiIdentifier;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
 import java.util.Map;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.stream.Collectors.toMap;
-
 /**
  * Class that represents OAI-PMH request and holds http query arguments.
  * It implements builder pattern, so use {@link Builder} instance to build an instance of the request.
  */
 public class Request {
-  private static final char PARAMETER_SEPARATOR = '&';
-  private static final String PARAMETER_VALUE_SEPARATOR = "=";
-
   private RequestType oaiRequest;
   private Map<String, String> okapiHeaders;
+  /** The snapshot of the configuration of the tenant the request is processed with. */
+  private TenantConfig tenantConfig;
+  /** The entity tags of the response already held by the client. */
+  private String ifNoneMatch;
 
   /** The request restored from resumptionToken. */
   private RequestType restoredOaiRequest;
+  /** Whether the request is restored from the state kept by harvest session rather than from resumptionToken itself. */
+  private boolean harvestSessionRestored;
   /** The result offset used for partitioning. */
   private int offset;
   /** The previous total number of records used for partitioning. */
   private int totalRecords;
   /** The id of the first record in the next set of results used for partitioning. */
   private String nextRecordId;
+  /** The last modified date of the last record in the previous set of results used for cursor partitioning. */
+  private String lastUpdatedDate;
+  /** The id of the last record in the previous set of results used for cursor partitioning. */
+  private String lastRecordId;
 
   /**
    * Builder used to build the request.
@@ -42,6 +42,8 @@ public class Request {
   public static class Builder {
     private RequestType oaiRequest = new RequestType();
     private Map<String, String> okapiHeaders;
+    private TenantConfig tenantConfig;
+    private String ifNoneMatch;
 
     public Builder verb(VerbType verb) {
       oaiRequest.setVerb(verb);
@@ -83,8 +85,18 @@ public class Request {
       return this;
     }
 
+    public Builder tenantConfig(TenantConfig tenantConfig) {
+      this.tenantConfig = tenantConfig;
+      return this;
+    }
+
+    public Builder ifNoneMatch(String ifNoneMatch) {
+      this.ifNoneMatch = ifNoneMatch;
+      return this;
+    }
+
     public Request build() {
-      return new Request(oaiRequest, okapiHeaders);
+      return new Request(oaiRequest, okapiHeaders, tenantConfig, ifNoneMatch);
     }
 
 
@@ -95,9 +107,11 @@ public class Request {
   }
 
 
-  private Request(RequestType oaiRequest, Map<String, String> okapiHeaders) {
+  private Request(RequestType oaiRequest, Map<String, String> okapiHeaders, TenantConfig tenantConfig, String ifNoneMatch) {
     this.oaiRequest = oaiRequest;
     this.okapiHeaders = okapiHeaders;
+    this.tenantConfig = tenantConfig;
+    this.ifNoneMatch = ifNoneMatch;
   }
 
 
@@ -168,6 +182,32 @@ public class Request {
     return nextRecordId;
   }
 
+  public String getLastUpdatedDate() {
+    return lastUpdatedDate;
+  }
+
+  public String getLastRecordId() {
+    return lastRecordId;
+  }
+
+  /**
+   * Gets the snapshot of the configuration of the tenant the request is processed with.
+   * @return the snapshot the request is built with or the one with System properties only if there is no any
+   */
+  public TenantConfig getTenantConfig() {
+    if (tenantConfig == null) {
+      tenantConfig = TenantConfig.of(null);
+    }
+    return tenantConfig;
+  }
+
+  /**
+   * @return value of If-None-Match header of the request or {@code null} if there is no such header
+   */
+  public String getIfNoneMatch() {
+    return ifNoneMatch;
+  }
+
   /**
    * Factory method returning an instance of the builder.
    * @return {@link Builder} instance
@@ -183,29 +223,46 @@ public class Request {
    * Restores original request encoded in resumptionToken.
    * The resumptionToken is exclusive param, so the request cannot be restored if some other params are provided
    * in the request along with the resumptionToken.
+   * <br/>
+   * If the resumptionToken is malformed or forged, the request is restored without any param, so it is reported as the one
+   * with bad resumptionToken by validation.
    *
    * @return true if the request was restored, false otherwise.
    */
   public boolean restoreFromResumptionToken() {
+    return restore(oaiRequest.getResumptionToken());
+  }
+
+  /**
+   * Restores original request from the state kept by harvest session which resumptionToken of the request is the key of.
+   * The state is issued by the repository for the already validated request, so the request does not need to be validated.
+   *
+   * @param state the state of the request in the form of resumptionToken issued without harvest sessions
+   * @return true if the request was restored, false otherwise.
+   */
+  public boolean restoreFromHarvestSession(String state) {
+    harvestSessionRestored = restore(state);
+    return harvestSessionRestored;
+  }
+
+  private boolean restore(String resumptionToken) {
     if (oaiRequest.getResumptionToken() == null || !isResumptionTokenExclusive()) {
       return false;
     }
 
-    String resumptionToken = new String(Base64.getUrlDecoder().decode(oaiRequest.getResumptionToken()),
-      StandardCharsets.UTF_8);
-
-    Map<String, String> params = URLEncodedUtils
-      .parse(resumptionToken, UTF_8, PARAMETER_SEPARATOR).stream()
-      .collect(toMap(NameValuePair::getName, NameValuePair::getValue));
-
     restoredOaiRequest = new RequestType();
-    restoredOaiRequest.setMetadataPrefix(params.get("metadataPrefix"));
-    restoredOaiRequest.setFrom(params.get("from"));
-    restoredOaiRequest.setUntil(params.get("until"));
-    restoredOaiRequest.setSet(params.get("set"));
-    this.offset = Integer.parseInt(params.get("offset"));
-    this.totalRecords = Integer.parseInt(params.get("totalRecords"));
-    this.nextRecordId = params.get("nextRecordId");
+    ResumptionToken token = ResumptionToken.decode(resumptionToken);
+    if (token != null) {
+      restoredOaiRequest.setMetadataPrefix(token.metadataPrefix);
+      restoredOaiRequest.setFrom(token.from);
+      restoredOaiRequest.setUntil(token.until);
+      restoredOaiRequest.setSet(token.set);
+      this.offset = token.offset;
+      this.totalRecords = token.totalRecords;
+      this.nextRecordId = token.nextRecordId;
+      this.lastUpdatedDate = token.lastUpdatedDate;
+      this.lastRecordId = token.lastRecordId;
+    }
 
     return true;
   }
@@ -218,52 +275,49 @@ public class Request {
     return restoredOaiRequest != null;
   }
 
+  /**
+   * Indicates if this request is restored from the state kept by harvest session.
+   * @return true if restored from harvest session, false otherwise
+   */
+  public boolean isHarvestSessionRestored() {
+    return harvestSessionRestored;
+  }
+
   /**
    * Serializes the request to resumptionToken string. Only original request params are serialized.
    * All extra parameters required to support partitioning should be additionally passed to the method.
    *
-   * @param extraParams extra parameters used to support partitioning
+   * @param extraParams extra parameters used to support partitioning, i.e. offset, totalRecords, nextRecordId,
+   *                    lastUpdatedDate, lastRecordId and until if the original request has no until param
    * @return serialized resumptionToken
    */
   public String toResumptionToken(Map<String, String> extraParams) {
-    StringBuilder builder = new StringBuilder();
-    appendParam(builder, "metadataPrefix", getMetadataPrefix());
-    appendParam(builder, "from", getFrom());
-    appendParam(builder, "until", getUntil());
-    appendParam(builder, "set", getSet());
-
-    extraParams.entrySet().stream()
-      .map(e -> e.getKey() + PARAMETER_VALUE_SEPARATOR + e.getValue())
-      .forEach(param -> builder.append(PARAMETER_SEPARATOR).append(param));
-
-    return Base64.getUrlEncoder()
-      .encodeToString(builder.toString().getBytes())
-      // this is to remove '=' or '==' at the end
-      .split("=")[0];
+    ResumptionToken token = new ResumptionToken();
+    token.metadataPrefix = getMetadataPrefix();
+    token.from = getFrom();
+    token.until = extraParams.containsKey("until") ? extraParams.get("until") : getUntil();
+    token.set = getSet();
+    token.offset = toInt(extraParams.get("offset"));
+    token.totalRecords = toInt(extraParams.get("totalRecords"));
+    token.nextRecordId = extraParams.get("nextRecordId");
+    token.lastUpdatedDate = extraParams.get("lastUpdatedDate");
+    token.lastRecordId = extraParams.get("lastRecordId");
+    return token.encode();
   }
 
-
-  private void appendParam(StringBuilder builder, String name, String value) {
-    if (value != null) {
-      if (builder.length() > 0) {
-        builder.append(PARAMETER_SEPARATOR);
-      }
-      builder.append(name).append(PARAMETER_VALUE_SEPARATOR).append(value);
-    }
+  private int toInt(String value) {
+    return value != null ? Integer.parseInt(value) : 0;
   }
 
   /**
-   * Checks if the resumptionToken is provided exclusively by comparing this request
-   * with one that only contains the resumptionToken.
+   * Checks if the resumptionToken is provided exclusively, i.e. the request has no other params besides the verb.
    * @return true is resumptionToken is exclusive, false otherwise
    */
   private boolean isResumptionTokenExclusive() {
-    Request exclusiveParamRequest = Request.builder()
-      .resumptionToken(oaiRequest.getResumptionToken())
-      .baseURL(oaiRequest.getValue())
-      .verb(oaiRequest.getVerb())
-      .build();
-
-    return exclusiveParamRequest.getOaiRequest().equals(oaiRequest);
+    return oaiRequest.getMetadataPrefix() == null
+      && oaiRequest.getIdentifier() == null
+      && oaiRequest.getFrom() == null
+      && oaiRequest.getUntil() == null
+      && oaiRequest.getSet() == null;
   }
 }
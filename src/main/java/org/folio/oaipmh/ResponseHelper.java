@@ -36,6 +36,7 @@ public class ResponseHelper {
   private static final String SIMPLE_DC_SCHEMA = SCHEMA_PATH + "simpledc20021212.xsd";
   private static final String MARC21_SCHEMA = SCHEMA_PATH + "MARC21slim.xsd";
   private static final String OAI_IDENTIFIER_SCHEMA = SCHEMA_PATH + "oai-identifier.xsd";
+  private static final String NAMESPACE_PREFIX_MAPPER_PROPERTY = "com.sun.xml.bind.namespacePrefixMapper";
 
   private static final Map<String, String> NAMESPACE_PREFIX_MAP = new HashMap<>();
   private final com.sun.xml.bind.marshaller.NamespacePrefixMapper namespacePrefixMapper;
@@ -57,6 +58,14 @@ public class ResponseHelper {
   private JAXBContext jaxbContext;
   private Schema oaipmhSchema;
 
+  /*
+   * Marshaller and unmarshaller are not thread-safe and quite expensive to create and configure,
+   * so the preconfigured instances are pooled and taken exclusively for each operation
+   */
+  private final JaxbObjectPool<Marshaller> marshallerPool;
+  private final JaxbObjectPool<Marshaller> fragmentMarshallerPool;
+  private final JaxbObjectPool<Unmarshaller> unmarshallerPool;
+
 
   public static ResponseHelper getInstance() {
     return ourInstance;
@@ -85,6 +94,39 @@ public class ResponseHelper {
         return NAMESPACE_PREFIX_MAP.getOrDefault(namespaceUri, suggestion);
       }
     };
+
+    int poolSize = Integer.parseInt(System.getProperty("jaxb.marshaller.poolSize", "32"));
+    marshallerPool = new JaxbObjectPool<>(this::createMarshaller, poolSize);
+    fragmentMarshallerPool = new JaxbObjectPool<>(this::createFragmentMarshaller, poolSize);
+    unmarshallerPool = new JaxbObjectPool<>(this::createUnmarshaller, poolSize);
+  }
+
+  private Marshaller createMarshaller() throws JAXBException {
+    Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
+    if (oaipmhSchema != null) {
+      jaxbMarshaller.setSchema(oaipmhSchema);
+    }
+    // Specifying xsi:schemaLocation (which will trigger xmlns:xsi being added to RS as well)
+    jaxbMarshaller.setProperty(Marshaller.JAXB_SCHEMA_LOCATION,
+      "http://www.openarchives.org/OAI/2.0/ http://www.openarchives.org/OAI/2.0/OAI-PMH.xsd");
+    // needed to replace the namespace prefixes with a more readable format.
+    jaxbMarshaller.setProperty(NAMESPACE_PREFIX_MAPPER_PROPERTY, namespacePrefixMapper);
+    return jaxbMarshaller;
+  }
+
+  private Marshaller createFragmentMarshaller() throws JAXBException {
+    Marshaller fragmentMarshaller = jaxbContext.createMarshaller();
+    fragmentMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+    fragmentMarshaller.setProperty(NAMESPACE_PREFIX_MAPPER_PROPERTY, namespacePrefixMapper);
+    return fragmentMarshaller;
+  }
+
+  private Unmarshaller createUnmarshaller() throws JAXBException {
+    Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
+    if (oaipmhSchema != null) {
+      jaxbUnmarshaller.setSchema(oaipmhSchema);
+    }
+    return jaxbUnmarshaller;
   }
 
   /**
@@ -96,19 +138,12 @@ public class ResponseHelper {
     StopWatch timer = logger.isDebugEnabled() ? StopWatch.createStarted() : null;
 
     try (StringWriter writer = new StringWriter()) {
-      // Marshaller is not thread-safe, so we should create every time a new one
-      Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-      if (oaipmhSchema != null) {
-        jaxbMarshaller.setSchema(oaipmhSchema);
-      }
-      // Specifying xsi:schemaLocation (which will trigger xmlns:xsi being added to RS as well)
-      jaxbMarshaller.setProperty(Marshaller.JAXB_SCHEMA_LOCATION,
-        "http://www.openarchives.org/OAI/2.0/ http://www.openarchives.org/OAI/2.0/OAI-PMH.xsd");
+      Marshaller jaxbMarshaller = marshallerPool.borrow();
       // Specifying if output should be formatted
       jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.parseBoolean(System.getProperty("jaxb.marshaller.formattedOutput")));
-      // needed to replace the namespace prefixes with a more readable format.
-      jaxbMarshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", namespacePrefixMapper);
       jaxbMarshaller.marshal(response, writer);
+      // The marshaller is returned to the pool only if it completed successfully
+      marshallerPool.release(jaxbMarshaller);
       return writer.toString();
     } catch (JAXBException | IOException e) {
       // In case there is an issue to marshal response, there is no way to handle it
@@ -126,12 +161,10 @@ public class ResponseHelper {
   public OAIPMH stringToOaiPmh(String oaipmhResponse) {
     StopWatch timer = logger.isDebugEnabled() ? StopWatch.createStarted() : null;
     try (StringReader reader = new StringReader(oaipmhResponse)) {
-      // Unmarshaller is not thread-safe, so we should create every time a new one
-      Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-      if (oaipmhSchema != null) {
-        jaxbUnmarshaller.setSchema(oaipmhSchema);
-      }
-      return (OAIPMH) jaxbUnmarshaller.unmarshal(reader);
+      Unmarshaller jaxbUnmarshaller = unmarshallerPool.borrow();
+      OAIPMH oaipmh = (OAIPMH) jaxbUnmarshaller.unmarshal(reader);
+      unmarshallerPool.release(jaxbUnmarshaller);
+      return oaipmh;
     } catch (JAXBException e) {
       // In case there is an issue to unmarshal response, there is no way to handle it
       throw new IllegalStateException("The string cannot be converted to OAI-PMH response.", e);
@@ -148,12 +181,10 @@ public class ResponseHelper {
   public Object bytesToObject(byte[] byteSource) {
     StopWatch timer = logger.isDebugEnabled() ? StopWatch.createStarted() : null;
     try(ByteArrayInputStream inputStream = new ByteArrayInputStream(byteSource)) {
-      // Unmarshaller is not thread-safe, so we should create every time a new one
-      Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-      if (oaipmhSchema != null) {
-        jaxbUnmarshaller.setSchema(oaipmhSchema);
-      }
-      return jaxbUnmarshaller.unmarshal(inputStream);
+      Unmarshaller jaxbUnmarshaller = unmarshallerPool.borrow();
+      Object object = jaxbUnmarshaller.unmarshal(inputStream);
+      unmarshallerPool.release(jaxbUnmarshaller);
+      return object;
     } catch (JAXBException | IOException e) {
       // In case there is an issue to unmarshal byteSource, there is no way to handle it
       throw new IllegalStateException("The byte array cannot be converted to JAXB object response.", e);
@@ -162,6 +193,42 @@ public class ResponseHelper {
     }
   }
 
+  /**
+   * Creates {@link StreamingResponseWriter} which writes records response entries one by one. The streamed response is
+   * validated against schema if the validation is enabled and is not formatted.
+   * @param baseResponse {@link OAIPMH} with responseDate and request populated
+   * @return new {@link StreamingResponseWriter} instance
+   */
+  public StreamingResponseWriter createStreamingWriter(OAIPMH baseResponse) {
+    try {
+      // The writer holds the marshaller exclusively until the response is finished
+      return new StreamingResponseWriter(fragmentMarshallerPool, baseResponse, oaipmhSchema);
+    } catch (JAXBException e) {
+      throw new IllegalStateException("The OAI-PMH streaming writer cannot be created.", e);
+    }
+  }
+
+  /**
+   * @return the pool of marshallers used to write complete {@link OAIPMH} responses
+   */
+  public JaxbObjectPool<Marshaller> getMarshallerPool() {
+    return marshallerPool;
+  }
+
+  /**
+   * @return the pool of marshallers used by {@link StreamingResponseWriter}
+   */
+  public JaxbObjectPool<Marshaller> getFragmentMarshallerPool() {
+    return fragmentMarshallerPool;
+  }
+
+  /**
+   * @return the pool of unmarshallers used to read {@link OAIPMH} responses and record metadata
+   */
+  public JaxbObjectPool<Unmarshaller> getUnmarshallerPool() {
+    return unmarshallerPool;
+  }
+
   /**
    * @return Checks if the Jaxb context initialized successfully
    */
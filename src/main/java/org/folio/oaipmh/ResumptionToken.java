@@ -0,0 +1,403 @@
+package org.folio.oaipmh;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.folio.oaipmh.Constants.ISO_UTC_DATE_TIME;
+import static org.folio.oaipmh.Constants.RESUMPTION_TOKEN_SECRET;
+
+/**
+ * The state of the partitioned request sequence held by resumptionToken.
+ * <br/>
+ * The token is encoded in compact binary form: the numbers are written as varints, record ids as 16 bytes and dates as epoch
+ * days, seconds or milliseconds whenever the original value can be restored exactly. The token is signed with truncated
+ * HMAC-SHA256, so the forged or corrupted token is rejected before any of its fields is decoded.
+ * <br/>
+ * The tokens issued in former {@code key=value&...} form are not signed. They are still accepted, so the harvests started
+ * before the upgrade can be finished, unless {@code resumptionToken.acceptLegacy} is {@code false}.
+ * The HMAC secret ({@code resumptionToken.secret}) must be the same for all instances of the module, so it is required at
+ * startup instead of being generated.
+ */
+final class ResumptionToken {
+  private static final byte VERSION = 1;
+  private static final int MAC_LENGTH = 16;
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(ResumptionToken::createMac);
+
+  /* Flags of the fields present in the token */
+  private static final int METADATA_PREFIX = 1;
+  private static final int FROM = 1 << 1;
+  private static final int UNTIL = 1 << 2;
+  private static final int SET = 1 << 3;
+  private static final int NEXT_RECORD_ID = 1 << 4;
+  private static final int LAST_UPDATED_DATE = 1 << 5;
+  private static final int LAST_RECORD_ID = 1 << 6;
+
+  /* Kinds of the encoded ids and dates */
+  private static final int TEXT = 0;
+  private static final int UUID_BITS = 1;
+  private static final int EPOCH_DAY = 2;
+  private static final int EPOCH_SECOND = 3;
+  private static final int EPOCH_MILLI = 4;
+
+  private static final int DATE_LENGTH = 10;
+  private static final int DATE_TIME_LENGTH = 20;
+  private static final int STORAGE_DATE_TIME_LENGTH = 28;
+  private static final int UUID_LENGTH = 36;
+  /** The format of the last modified dates of the storage records, e.g. 2018-11-20T07:23:11.172+0000 */
+  private static final DateTimeFormatter STORAGE_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+  String metadataPrefix;
+  String from;
+  String until;
+  String set;
+  /** The result offset used for partitioning. */
+  int offset;
+  /** The previous total number of records used for partitioning. */
+  int totalRecords;
+  /** The id of the first record in the next set of results used for partitioning. */
+  String nextRecordId;
+  /** The last modified date of the last record in the previous set of results used for cursor partitioning. */
+  String lastUpdatedDate;
+  /** The id of the last record in the previous set of results used for cursor partitioning. */
+  String lastRecordId;
+
+  /**
+   * Serializes the state to signed resumptionToken
+   * @return url safe Base64 encoded token without padding
+   */
+  String encode() {
+    Writer writer = new Writer();
+    writer.write(VERSION);
+    writer.write(flag(metadataPrefix, METADATA_PREFIX) | flag(from, FROM) | flag(until, UNTIL) | flag(set, SET)
+      | flag(nextRecordId, NEXT_RECORD_ID) | flag(lastUpdatedDate, LAST_UPDATED_DATE) | flag(lastRecordId, LAST_RECORD_ID));
+    writer.writeVarLong(offset);
+    writer.writeVarLong(totalRecords);
+    writer.writeText(metadataPrefix);
+    writer.writeDate(from);
+    writer.writeDate(until);
+    writer.writeText(set);
+    writer.writeId(nextRecordId);
+    writer.writeDate(lastUpdatedDate);
+    writer.writeId(lastRecordId);
+
+    int length = writer.size();
+    writer.write(sign(writer.buffer(), length), 0, MAC_LENGTH);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(writer.toByteArray());
+  }
+
+  private static int flag(String value, int flag) {
+    return value != null ? flag : 0;
+  }
+
+  /**
+   * Restores the state from resumptionToken
+   * @param value resumptionToken issued by the repository
+   * @return the state or {@code null} if the token is malformed or is not signed by the repository
+   */
+  static ResumptionToken decode(String value) {
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(value);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    if (bytes.length == 0 || bytes[0] != VERSION) {
+      return isLegacyAccepted() ? decodeLegacy(bytes) : null;
+    }
+    int length = bytes.length - MAC_LENGTH;
+    if (length <= 1 || !isSigned(bytes, length)) {
+      return null;
+    }
+    try {
+      return new Reader(bytes, 1, length).readToken();
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | ArithmeticException | DateTimeException e) {
+      return null;
+    }
+  }
+
+  private static boolean isLegacyAccepted() {
+    return Boolean.parseBoolean(System.getProperty("resumptionToken.acceptLegacy", "true"));
+  }
+
+  private static boolean isSigned(byte[] bytes, int length) {
+    byte[] mac = sign(bytes, length);
+    // Constant time comparison of the truncated MAC
+    int difference = 0;
+    for (int i = 0; i < MAC_LENGTH; i++) {
+      difference |= mac[i] ^ bytes[length + i];
+    }
+    return difference == 0;
+  }
+
+  private static byte[] sign(byte[] bytes, int length) {
+    Mac mac = MAC.get();
+    mac.update(bytes, 0, length);
+    return mac.doFinal();
+  }
+
+  /**
+   * Restores the state from the token of {@code key=value&...} form issued before the binary one. Such token always holds
+   * offset and totalRecords.
+   */
+  private static ResumptionToken decodeLegacy(byte[] bytes) {
+    try {
+      ResumptionToken token = new ResumptionToken();
+      token.offset = -1;
+      token.totalRecords = -1;
+      for (NameValuePair param : URLEncodedUtils.parse(new String(bytes, UTF_8), UTF_8, '&')) {
+        String name = param.getName();
+        if ("metadataPrefix".equals(name)) {
+          token.metadataPrefix = param.getValue();
+        } else if ("from".equals(name)) {
+          token.from = param.getValue();
+        } else if ("until".equals(name)) {
+          token.until = param.getValue();
+        } else if ("set".equals(name)) {
+          token.set = param.getValue();
+        } else if ("offset".equals(name)) {
+          token.offset = Integer.parseInt(param.getValue());
+        } else if ("totalRecords".equals(name)) {
+          token.totalRecords = Integer.parseInt(param.getValue());
+        } else if ("nextRecordId".equals(name)) {
+          token.nextRecordId = param.getValue();
+        } else if ("lastUpdatedDate".equals(name)) {
+          token.lastUpdatedDate = param.getValue();
+        } else if ("lastRecordId".equals(name)) {
+          token.lastRecordId = param.getValue();
+        }
+      }
+      return token.offset >= 0 && token.totalRecords >= 0 ? token : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static SecretKeySpec createSecret() {
+    String secret = System.getProperty(RESUMPTION_TOKEN_SECRET);
+    if (secret == null || secret.isEmpty()) {
+      throw new IllegalStateException(RESUMPTION_TOKEN_SECRET + " is not specified.");
+    }
+    return new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+  }
+
+  private static Mac createMac() {
+    try {
+      Mac mac = Mac.getInstance(MAC_ALGORITHM);
+      mac.init(createSecret());
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Writer extends ByteArrayOutputStream {
+
+    byte[] buffer() {
+      return buf;
+    }
+
+    void writeVarLong(long value) {
+      while ((value & ~0x7FL) != 0) {
+        write((int) (value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      write((int) value);
+    }
+
+    void writeSignedVarLong(long value) {
+      writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeText(String value) {
+      if (value != null) {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarLong(bytes.length);
+        write(bytes, 0, bytes.length);
+      }
+    }
+
+    void writeId(String value) {
+      if (value == null) {
+        return;
+      }
+      if (value.length() == UUID_LENGTH) {
+        try {
+          UUID uuid = UUID.fromString(value);
+          if (uuid.toString().equals(value)) {
+            write(UUID_BITS);
+            writeLong(uuid.getMostSignificantBits());
+            writeLong(uuid.getLeastSignificantBits());
+            return;
+          }
+        } catch (IllegalArgumentException e) {
+          // Not UUID, so written as is
+        }
+      }
+      write(TEXT);
+      writeText(value);
+    }
+
+    private void writeLong(long value) {
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        write((int) (value >>> shift));
+      }
+    }
+
+    /**
+     * Writes the date as the number of epoch days, seconds or milliseconds according to its format. The date of any other
+     * format (e.g. the invalid one which is reported by validation) is written as is.
+     */
+    void writeDate(String value) {
+      if (value == null) {
+        return;
+      }
+      try {
+        if (value.length() == DATE_LENGTH) {
+          LocalDate date = LocalDate.parse(value);
+          if (date.toString().equals(value)) {
+            write(EPOCH_DAY);
+            writeSignedVarLong(date.toEpochDay());
+            return;
+          }
+        } else if (value.length() == DATE_TIME_LENGTH) {
+          LocalDateTime dateTime = LocalDateTime.parse(value, ISO_UTC_DATE_TIME);
+          if (dateTime.format(ISO_UTC_DATE_TIME).equals(value)) {
+            write(EPOCH_SECOND);
+            writeSignedVarLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            return;
+          }
+        } else if (value.length() == STORAGE_DATE_TIME_LENGTH) {
+          OffsetDateTime dateTime = OffsetDateTime.parse(value, STORAGE_DATE_TIME);
+          if (ZoneOffset.UTC.equals(dateTime.getOffset()) && dateTime.format(STORAGE_DATE_TIME).equals(value)) {
+            write(EPOCH_MILLI);
+            writeSignedVarLong(dateTime.toInstant().toEpochMilli());
+            return;
+          }
+        }
+      } catch (DateTimeParseException e) {
+        // Not supported format, so written as is
+      }
+      write(TEXT);
+      writeText(value);
+    }
+  }
+
+  private static class Reader {
+    private final byte[] bytes;
+    private final int limit;
+    private int position;
+
+    Reader(byte[] bytes, int position, int limit) {
+      this.bytes = bytes;
+      this.position = position;
+      this.limit = limit;
+    }
+
+    ResumptionToken readToken() {
+      int flags = read();
+      ResumptionToken token = new ResumptionToken();
+      token.offset = Math.toIntExact(readVarLong());
+      token.totalRecords = Math.toIntExact(readVarLong());
+      token.metadataPrefix = (flags & METADATA_PREFIX) != 0 ? readText() : null;
+      token.from = (flags & FROM) != 0 ? readDate() : null;
+      token.until = (flags & UNTIL) != 0 ? readDate() : null;
+      token.set = (flags & SET) != 0 ? readText() : null;
+      token.nextRecordId = (flags & NEXT_RECORD_ID) != 0 ? readId() : null;
+      token.lastUpdatedDate = (flags & LAST_UPDATED_DATE) != 0 ? readDate() : null;
+      token.lastRecordId = (flags & LAST_RECORD_ID) != 0 ? readId() : null;
+      if (position != limit) {
+        throw new IllegalArgumentException("Unexpected bytes at the end of resumptionToken");
+      }
+      return token;
+    }
+
+    private int read() {
+      if (position >= limit) {
+        throw new IndexOutOfBoundsException("Unexpected end of resumptionToken");
+      }
+      return bytes[position++] & 0xFF;
+    }
+
+    private long readVarLong() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        int b = read();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint in resumptionToken");
+    }
+
+    private long readSignedVarLong() {
+      long value = readVarLong();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readLong() {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = value << 8 | read();
+      }
+      return value;
+    }
+
+    private String readText() {
+      int length = Math.toIntExact(readVarLong());
+      if (length < 0 || length > limit - position) {
+        throw new IndexOutOfBoundsException("Unexpected end of resumptionToken");
+      }
+      String value = new String(bytes, position, length, UTF_8);
+      position += length;
+      return value;
+    }
+
+    private String readId() {
+      int kind = read();
+      if (kind == UUID_BITS) {
+        return new UUID(readLong(), readLong()).toString();
+      }
+      return readTextOfKind(kind);
+    }
+
+    private String readDate() {
+      int kind = read();
+      switch (kind) {
+        case EPOCH_DAY:
+          return LocalDate.ofEpochDay(readSignedVarLong()).toString();
+        case EPOCH_SECOND:
+          return LocalDateTime.ofEpochSecond(readSignedVarLong(), 0, ZoneOffset.UTC).format(ISO_UTC_DATE_TIME);
+        case EPOCH_MILLI:
+          return Instant.ofEpochMilli(readSignedVarLong()).atOffset(ZoneOffset.UTC).format(STORAGE_DATE_TIME);
+        default:
+          return readTextOfKind(kind);
+      }
+    }
+
+    private String readTextOfKind(int kind) {
+      if (kind != TEXT) {
+        throw new IllegalArgumentException("Unknown value kind in resumptionToken: " + kind);
+      }
+      return readText();
+    }
+  }
+}
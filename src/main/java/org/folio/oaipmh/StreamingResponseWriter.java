@@ -0,0 +1,264 @@
+package org.folio.oaipmh;
+
+import io.vertx.core.buffer.Buffer;
+import org.openarchives.oai._2.HeaderType;
+import org.openarchives.oai._2.OAIPMH;
+import org.openarchives.oai._2.RecordType;
+import org.openarchives.oai._2.RequestType;
+import org.openarchives.oai._2.ResumptionTokenType;
+import org.xml.sax.SAXException;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static java.time.format.DateTimeFormatter.ISO_INSTANT;
+import static javax.xml.XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI;
+
+/**
+ * Writes OAI-PMH records responses (i.e. ListRecords, ListIdentifiers and GetRecord) entry by entry straight to the output
+ * buffer instead of building the whole {@link OAIPMH} object graph first. The envelope (responseDate and request) is taken from
+ * the base response and written before the first entry, so only one record is kept as JAXB object at a time.
+ * <br/>
+ * The entries are encoded to UTF-8 right away and flushed to the output buffer after each record, so the response is never held
+ * as string. The buffer is returned by {@link #finish(ResumptionTokenType)} and sent without converting it to string.
+ * <br/>
+ * Record metadata can be written as raw XML produced by metadata mapper, so it does not have to be converted to JAXB object
+ * and back to XML.
+ * <br/>
+ * If the schema is specified, the whole response is validated against it once it is finished, the same way the response written
+ * by the marshaller is validated.
+ * <br/>
+ * The instance is not thread-safe and is intended to be used for one response only.
+ */
+public class StreamingResponseWriter {
+  static final String OAI_NAMESPACE = "http://www.openarchives.org/OAI/2.0/";
+  private static final String OAI_SCHEMA_LOCATION = OAI_NAMESPACE + " http://www.openarchives.org/OAI/2.0/OAI-PMH.xsd";
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+  private static final byte[] XML_DECLARATION_START = "<?xml".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] XML_DECLARATION_END = "?>".getBytes(StandardCharsets.UTF_8);
+  private static final int INITIAL_OUTPUT_SIZE = 8192;
+
+  private final OAIPMH baseResponse;
+  private final JaxbObjectPool<Marshaller> marshallerPool;
+  private final Marshaller fragmentMarshaller;
+  private final Schema schema;
+  private final Buffer output = Buffer.buffer(INITIAL_OUTPUT_SIZE);
+  private final XMLStreamWriter writer;
+
+  private boolean started;
+  private int writtenCount;
+
+  /**
+   * @param marshallerPool pool of marshallers configured to write XML fragments
+   * @param baseResponse the response with responseDate and request populated
+   * @param schema the schema the response is validated against or {@code null} if the validation is disabled
+   * @throws JAXBException if marshaller cannot be created
+   */
+  StreamingResponseWriter(JaxbObjectPool<Marshaller> marshallerPool, OAIPMH baseResponse, Schema schema) throws JAXBException {
+    this.marshallerPool = marshallerPool;
+    this.fragmentMarshaller = marshallerPool.borrow();
+    this.baseResponse = baseResponse;
+    this.schema = schema;
+    try {
+      writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(new BufferOutputStream(output), StandardCharsets.UTF_8.name());
+    } catch (XMLStreamException e) {
+      throw new IllegalStateException("The OAI-PMH response writer cannot be created.", e);
+    }
+  }
+
+  /**
+   * Writes {@link RecordType} as the next entry of the ListRecords response
+   * @param record the record with header and metadata populated
+   */
+  public void writeRecord(RecordType record) {
+    writeEntry(new JAXBElement<>(new QName(OAI_NAMESPACE, "record"), RecordType.class, record));
+  }
+
+  /**
+   * Writes record as the next entry of the ListRecords or GetRecord response splicing metadata XML as is
+   * @param header the record header
+   * @param metadata the record metadata XML in UTF-8 encoding. XML declaration is skipped if present
+   */
+  public void writeRecord(HeaderType header, byte[] metadata) {
+    startResponse();
+    try {
+      writer.writeStartElement("", "record", OAI_NAMESPACE);
+      marshal(new JAXBElement<>(new QName(OAI_NAMESPACE, "header"), HeaderType.class, header));
+      writer.writeStartElement("", "metadata", OAI_NAMESPACE);
+      // Empty characters close the start tag so the raw content goes inside the metadata element
+      writer.writeCharacters("");
+      writer.flush();
+      int start = skipXmlDeclaration(metadata);
+      output.appendBytes(metadata, start, metadata.length - start);
+      // metadata element
+      writer.writeEndElement();
+      // record element
+      writer.writeEndElement();
+      writer.flush();
+    } catch (XMLStreamException e) {
+      throw new IllegalStateException("The OAI-PMH record cannot be written.", e);
+    }
+    writtenCount++;
+  }
+
+  /**
+   * Writes {@link HeaderType} as the next entry of the ListIdentifiers response
+   * @param header the record header
+   */
+  public void writeHeader(HeaderType header) {
+    writeEntry(new JAXBElement<>(new QName(OAI_NAMESPACE, "header"), HeaderType.class, header));
+  }
+
+  /**
+   * @return the number of records or headers written so far
+   */
+  public int getWrittenCount() {
+    return writtenCount;
+  }
+
+  /**
+   * Completes the verb element adding resumptionToken if any and closes the envelope
+   * @param resumptionToken the resumptionToken to be added to the list or {@code null}
+   * @return the whole response encoded in UTF-8
+   * @throws IllegalStateException if the response is not valid against the schema
+   */
+  public Buffer finish(ResumptionTokenType resumptionToken) {
+    try {
+      startResponse();
+      if (resumptionToken != null) {
+        marshal(new JAXBElement<>(new QName(OAI_NAMESPACE, "resumptionToken"), ResumptionTokenType.class, resumptionToken));
+      }
+      // verb element
+      writer.writeEndElement();
+      // OAI-PMH element
+      writer.writeEndElement();
+      writer.writeEndDocument();
+      writer.close();
+      validate();
+      // The marshaller is returned to the pool only if the whole response is written successfully
+      marshallerPool.release(fragmentMarshaller);
+      return output;
+    } catch (XMLStreamException e) {
+      throw new IllegalStateException("The OAI-PMH response cannot be written.", e);
+    }
+  }
+
+  private void validate() {
+    if (schema == null) {
+      return;
+    }
+    try {
+      schema.newValidator().validate(new StreamSource(new ByteArrayInputStream(output.getBytes())));
+    } catch (SAXException | IOException e) {
+      throw new IllegalStateException("The OAI-PMH response is not valid against the schema.", e);
+    }
+  }
+
+  private void writeEntry(JAXBElement<?> entry) {
+    startResponse();
+    marshal(entry);
+    try {
+      writer.flush();
+    } catch (XMLStreamException e) {
+      throw new IllegalStateException("The OAI-PMH response entry cannot be written.", e);
+    }
+    writtenCount++;
+  }
+
+  private void startResponse() {
+    if (started) {
+      return;
+    }
+    try {
+      writer.writeStartDocument("UTF-8", "1.0");
+      writer.writeStartElement("", "OAI-PMH", OAI_NAMESPACE);
+      writer.writeDefaultNamespace(OAI_NAMESPACE);
+      writer.writeNamespace("xsi", W3C_XML_SCHEMA_INSTANCE_NS_URI);
+      writer.writeAttribute("xsi", W3C_XML_SCHEMA_INSTANCE_NS_URI, "schemaLocation", OAI_SCHEMA_LOCATION);
+
+      writer.writeStartElement("", "responseDate", OAI_NAMESPACE);
+      writer.writeCharacters(ISO_INSTANT.format(baseResponse.getResponseDate()));
+      writer.writeEndElement();
+
+      marshal(new JAXBElement<>(new QName(OAI_NAMESPACE, "request"), RequestType.class, baseResponse.getRequest()));
+
+      // The verb element name is the same as the verb, i.e. ListRecords, ListIdentifiers or GetRecord
+      writer.writeStartElement("", baseResponse.getRequest().getVerb().value(), OAI_NAMESPACE);
+      started = true;
+    } catch (XMLStreamException e) {
+      throw new IllegalStateException("The OAI-PMH response envelope cannot be written.", e);
+    }
+  }
+
+  /**
+   * @return the index of the first byte of the XML after the declaration and the following whitespaces if the declaration is
+   * present or 0 otherwise
+   */
+  private int skipXmlDeclaration(byte[] xml) {
+    if (!startsWith(xml, XML_DECLARATION_START, 0)) {
+      return 0;
+    }
+    for (int i = XML_DECLARATION_START.length; i < xml.length; i++) {
+      if (startsWith(xml, XML_DECLARATION_END, i)) {
+        int start = i + XML_DECLARATION_END.length;
+        while (start < xml.length && Character.isWhitespace(xml[start])) {
+          start++;
+        }
+        return start;
+      }
+    }
+    return 0;
+  }
+
+  private static boolean startsWith(byte[] bytes, byte[] prefix, int offset) {
+    if (bytes.length - offset < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (bytes[offset + i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void marshal(JAXBElement<?> element) {
+    try {
+      fragmentMarshaller.marshal(element, writer);
+    } catch (JAXBException e) {
+      throw new IllegalStateException("The OAI-PMH response entry cannot be written.", e);
+    }
+  }
+
+  /**
+   * Appends the bytes written by {@link XMLStreamWriter} to the output buffer
+   */
+  private static class BufferOutputStream extends OutputStream {
+    private final Buffer buffer;
+
+    BufferOutputStream(Buffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+      buffer.appendByte((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+      buffer.appendBytes(bytes, offset, length);
+    }
+  }
+}
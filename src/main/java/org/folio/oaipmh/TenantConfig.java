@@ -0,0 +1,297 @@
+package org.folio.oaipmh;
+
+import io.vertx.core.json.JsonObject;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.openarchives.oai._2.DeletedRecordType;
+import org.openarchives.oai._2.GranularityType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.folio.oaipmh.Constants.REPOSITORY_ADMIN_EMAILS;
+import static org.folio.oaipmh.Constants.REPOSITORY_BASE_URL;
+import static org.folio.oaipmh.Constants.REPOSITORY_CURSOR_PAGINATION;
+import static org.folio.oaipmh.Constants.REPOSITORY_DC_MAPPER;
+import static org.folio.oaipmh.Constants.REPOSITORY_DELETED_RECORDS;
+import static org.folio.oaipmh.Constants.REPOSITORY_DIRECT_GET_RECORD;
+import static org.folio.oaipmh.Constants.REPOSITORY_HARVEST_SESSIONS;
+import static org.folio.oaipmh.Constants.REPOSITORY_MAX_CONCURRENT_FETCHES;
+import static org.folio.oaipmh.Constants.REPOSITORY_MAX_RECORDS_PER_RESPONSE;
+import static org.folio.oaipmh.Constants.REPOSITORY_MAX_TENANT_CONCURRENT_FETCHES;
+import static org.folio.oaipmh.Constants.REPOSITORY_NAME;
+import static org.folio.oaipmh.Constants.REPOSITORY_PREFETCH;
+import static org.folio.oaipmh.Constants.REPOSITORY_SOURCE_BATCH_SIZE;
+import static org.folio.oaipmh.Constants.REPOSITORY_STREAMING_RESPONSE;
+import static org.folio.oaipmh.Constants.REPOSITORY_STREAMING_STORAGE;
+import static org.folio.oaipmh.Constants.REPOSITORY_TIME_GRANULARITY;
+import static org.folio.oaipmh.Constants.REPOSITORY_TOTAL_RECORDS;
+
+/**
+ * Immutable snapshot of the configuration of the tenant. The values are taken from the configuration retrieved from
+ * mod-configuration or from System properties as a fallback and parsed once when the snapshot is created, so the request
+ * processing does not look up and parse the values each time they are needed.
+ */
+public final class TenantConfig {
+  private static final String NATIVE_METADATA_MAPPER = "native";
+  private static final int DEFAULT_MAX_RECORDS_PER_RESPONSE = 100;
+  private static final int DEFAULT_MAX_CONCURRENT_FETCHES = 20;
+  private static final int DEFAULT_MAX_TENANT_CONCURRENT_FETCHES = 100;
+
+  /** The configuration of the tenant retrieved from mod-configuration. */
+  private final Map<String, String> properties;
+
+  private final String baseUrl;
+  private final String repositoryName;
+  private final String adminEmails;
+  private final GranularityType timeGranularity;
+  private final DeletedRecordType deletedRecords;
+  private final int maxRecordsPerResponse;
+  private final boolean streamingResponse;
+  private final boolean nativeMetadataMapper;
+  private final int sourceBatchSize;
+  private final int maxConcurrentFetches;
+  private final int maxTenantConcurrentFetches;
+  private final boolean cursorPagination;
+  private final boolean prefetch;
+  private final boolean harvestSessions;
+  private final TotalRecords totalRecords;
+  private final boolean streamingStorage;
+  private final boolean directGetRecord;
+
+  private TenantConfig(Map<String, String> properties) {
+    this.properties = properties;
+    baseUrl = getProperty(REPOSITORY_BASE_URL);
+    repositoryName = getProperty(REPOSITORY_NAME);
+    adminEmails = getProperty(REPOSITORY_ADMIN_EMAILS);
+    timeGranularity = parseGranularity(getProperty(REPOSITORY_TIME_GRANULARITY));
+    deletedRecords = parseDeletedRecords(getProperty(REPOSITORY_DELETED_RECORDS));
+    maxRecordsPerResponse = NumberUtils.toInt(getProperty(REPOSITORY_MAX_RECORDS_PER_RESPONSE), DEFAULT_MAX_RECORDS_PER_RESPONSE);
+    streamingResponse = Boolean.parseBoolean(getProperty(REPOSITORY_STREAMING_RESPONSE));
+    nativeMetadataMapper = NATIVE_METADATA_MAPPER.equalsIgnoreCase(getProperty(REPOSITORY_DC_MAPPER));
+    sourceBatchSize = NumberUtils.toInt(getProperty(REPOSITORY_SOURCE_BATCH_SIZE), 0);
+    maxConcurrentFetches = NumberUtils.toInt(getProperty(REPOSITORY_MAX_CONCURRENT_FETCHES), DEFAULT_MAX_CONCURRENT_FETCHES);
+    maxTenantConcurrentFetches = NumberUtils.toInt(getProperty(REPOSITORY_MAX_TENANT_CONCURRENT_FETCHES),
+      DEFAULT_MAX_TENANT_CONCURRENT_FETCHES);
+    cursorPagination = Boolean.parseBoolean(getProperty(REPOSITORY_CURSOR_PAGINATION));
+    prefetch = Boolean.parseBoolean(getProperty(REPOSITORY_PREFETCH));
+    harvestSessions = Boolean.parseBoolean(getProperty(REPOSITORY_HARVEST_SESSIONS));
+    totalRecords = parseTotalRecords(getProperty(REPOSITORY_TOTAL_RECORDS));
+    streamingStorage = Boolean.parseBoolean(getProperty(REPOSITORY_STREAMING_STORAGE));
+    directGetRecord = Boolean.parseBoolean(getProperty(REPOSITORY_DIRECT_GET_RECORD));
+  }
+
+  /**
+   * Creates the snapshot of the configuration
+   * @param config the configuration of the tenant retrieved from mod-configuration or {@code null} if there is no any
+   * @return the snapshot with values of the tenant configuration or System properties if the tenant has no such config
+   */
+  public static TenantConfig of(JsonObject config) {
+    Map<String, String> properties = new HashMap<>();
+    if (config != null) {
+      config.forEach(entry -> properties.put(entry.getKey(), Objects.toString(entry.getValue(), null)));
+    }
+    return new TenantConfig(Collections.unmodifiableMap(properties));
+  }
+
+  /**
+   * Gets value of the config either from tenant configuration or from System properties as a fallback
+   * @param name config key
+   * @return value of the config
+   */
+  public String getProperty(String name) {
+    String value = properties.get(name);
+    return value != null ? value : System.getProperty(name);
+  }
+
+  private static GranularityType parseGranularity(String value) {
+    for (GranularityType granularity : GranularityType.values()) {
+      if (granularity.value().equals(value)) {
+        return granularity;
+      }
+    }
+    return null;
+  }
+
+  private static DeletedRecordType parseDeletedRecords(String value) {
+    for (DeletedRecordType deletedRecord : DeletedRecordType.values()) {
+      if (deletedRecord.value().equals(value)) {
+        return deletedRecord;
+      }
+    }
+    return null;
+  }
+
+  private static TotalRecords parseTotalRecords(String value) {
+    for (TotalRecords mode : TotalRecords.values()) {
+      if (mode.value().equalsIgnoreCase(value)) {
+        return mode;
+      }
+    }
+    return TotalRecords.EXACT;
+  }
+
+  /**
+   * @return the configuration of the tenant retrieved from mod-configuration
+   */
+  public Map<String, String> getProperties() {
+    return properties;
+  }
+
+  public String getBaseUrl() {
+    return baseUrl;
+  }
+
+  /**
+   * @return the repository name or {@code null} if it is not configured
+   */
+  public String getRepositoryName() {
+    return repositoryName;
+  }
+
+  /**
+   * @return comma separated e-mails of the repository administrators or {@code null} if they are not configured
+   */
+  public String getAdminEmails() {
+    return adminEmails;
+  }
+
+  /**
+   * @return the time granularity or {@code null} if it is not configured or invalid
+   */
+  public GranularityType getTimeGranularity() {
+    return timeGranularity;
+  }
+
+  /**
+   * @return deleted records support or {@code null} if it is not configured or invalid
+   */
+  public DeletedRecordType getDeletedRecords() {
+    return deletedRecords;
+  }
+
+  public int getMaxRecordsPerResponse() {
+    return maxRecordsPerResponse;
+  }
+
+  public boolean isStreamingResponse() {
+    return streamingResponse;
+  }
+
+  /**
+   * @return {@code true} if the metadata should be converted with the mapper implemented in Java code instead of XSLT one
+   */
+  public boolean isNativeMetadataMapper() {
+    return nativeMetadataMapper;
+  }
+
+  /**
+   * @return the maximum number of record sources requested by one storage query or {@code 0} if the sources should be requested
+   * for each record separately
+   */
+  public int getSourceBatchSize() {
+    return sourceBatchSize;
+  }
+
+  public int getMaxConcurrentFetches() {
+    return maxConcurrentFetches;
+  }
+
+  public int getMaxTenantConcurrentFetches() {
+    return maxTenantConcurrentFetches;
+  }
+
+  public boolean isCursorPagination() {
+    return cursorPagination;
+  }
+
+  public boolean isPrefetch() {
+    return prefetch;
+  }
+
+  /**
+   * @return {@code true} if resumptionToken is the key of the state kept by the module instead of the state itself
+   */
+  public boolean isHarvestSessions() {
+    return harvestSessions;
+  }
+
+  /**
+   * @return the way the total number of records of the list requests is counted, {@link TotalRecords#EXACT} if it is not
+   * configured or invalid
+   */
+  public TotalRecords getTotalRecords() {
+    return totalRecords;
+  }
+
+  /**
+   * @return {@code true} if the list responses of the storage are parsed incrementally while they are received
+   */
+  public boolean isStreamingStorage() {
+    return streamingStorage;
+  }
+
+  /**
+   * @return {@code true} if GetRecord gets the item by id from the storage directly instead of searching for it
+   */
+  public boolean isDirectGetRecord() {
+    return directGetRecord;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TenantConfig that = (TenantConfig) o;
+    return maxRecordsPerResponse == that.maxRecordsPerResponse
+      && streamingResponse == that.streamingResponse
+      && nativeMetadataMapper == that.nativeMetadataMapper
+      && sourceBatchSize == that.sourceBatchSize
+      && maxConcurrentFetches == that.maxConcurrentFetches
+      && maxTenantConcurrentFetches == that.maxTenantConcurrentFetches
+      && cursorPagination == that.cursorPagination
+      && prefetch == that.prefetch
+      && harvestSessions == that.harvestSessions
+      && totalRecords == that.totalRecords
+      && streamingStorage == that.streamingStorage
+      && directGetRecord == that.directGetRecord
+      && properties.equals(that.properties)
+      && Objects.equals(baseUrl, that.baseUrl)
+      && Objects.equals(repositoryName, that.repositoryName)
+      && Objects.equals(adminEmails, that.adminEmails)
+      && timeGranularity == that.timeGranularity
+      && deletedRecords == that.deletedRecords;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(properties, baseUrl, repositoryName, maxRecordsPerResponse);
+  }
+
+  /**
+   * The way the total number of records of the list requests is counted by the storage
+   */
+  public enum TotalRecords {
+    /** The records are counted exactly for each page. */
+    EXACT("exact"),
+    /** The records are counted exactly for the first page only, the count is carried forward to the next pages. */
+    SESSION("session"),
+    /** The storage estimates the number of records for each page. */
+    ESTIMATED("estimated");
+
+    private final String value;
+
+    TotalRecords(String value) {
+      this.value = value;
+    }
+
+    public String value() {
+      return value;
+    }
+  }
+}
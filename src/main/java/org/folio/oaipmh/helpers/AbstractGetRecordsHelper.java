@@ -9,7 +9,10 @@ import me.escoffier.vertx.completablefuture.VertxCompletableFuture;
 import org.folio.oaipmh.MetadataPrefix;
 import org.folio.oaipmh.Request;
 import org.folio.oaipmh.ResponseHelper;
+import org.folio.oaipmh.StreamingResponseWriter;
 import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+import org.folio.rest.tools.utils.BinaryOutStream;
+import org.openarchives.oai._2.HeaderType;
 import org.openarchives.oai._2.MetadataType;
 import org.openarchives.oai._2.OAIPMH;
 import org.openarchives.oai._2.OAIPMHerrorType;
@@ -20,15 +23,18 @@ import javax.ws.rs.core.Response;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static java.util.concurrent.CompletableFuture.completedFuture;
-import static me.escoffier.vertx.completablefuture.VertxCompletableFuture.supplyBlockingAsync;
 import static org.folio.oaipmh.Constants.GENERIC_ERROR_MESSAGE;
 import static org.folio.oaipmh.Constants.LIST_ILLEGAL_ARGUMENTS_ERROR;
 import static org.folio.oaipmh.Constants.RESUMPTION_TOKEN_FLOW_ERROR;
@@ -38,20 +44,24 @@ import static org.openarchives.oai._2.OAIPMHerrorcodeType.BAD_RESUMPTION_TOKEN;
 
 public abstract class AbstractGetRecordsHelper extends AbstractHelper {
 
+  private static final Pattern UUID_PATTERN =
+    Pattern.compile("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$");
+
   protected final Logger logger = LoggerFactory.getLogger(getClass());
 
   @Override
   public CompletableFuture<Response> handle(Request request, Context ctx) {
     CompletableFuture<Response> future = new VertxCompletableFuture<>(ctx);
     try {
-      if (request.getResumptionToken() != null && !request.restoreFromResumptionToken()) {
+      if (request.getResumptionToken() != null && !restoreRequest(request)) {
         OAIPMH oai = buildBaseResponse(request)
           .withErrors(new OAIPMHerrorType().withCode(BAD_ARGUMENT).withValue(LIST_ILLEGAL_ARGUMENTS_ERROR));
         future.complete(buildResponseWithErrors(oai));
         return future;
       }
 
-      List<OAIPMHerrorType> errors = validateRequest(request);
+      // The state kept by harvest session is issued for the already validated request
+      List<OAIPMHerrorType> errors = request.isHarvestSessionRestored() ? Collections.emptyList() : validateRequest(request);
       if (!errors.isEmpty()) {
         OAIPMH oai = buildBaseResponse(request);
         if (request.isRestored()) {
@@ -63,19 +73,22 @@ public abstract class AbstractGetRecordsHelper extends AbstractHelper {
         return future;
       }
 
-      final HttpClientInterface httpClient = getOkapiClient(request.getOkapiHeaders(), false);
-      final String instanceEndpoint = storageHelper.buildRecordsEndpoint(request);
-
-      logger.debug("Sending message to {}", instanceEndpoint);
+      final boolean directLookup = isDirectLookup(request);
+      final String instanceEndpoint = directLookup ? null : storageHelper.buildRecordsEndpoint(request);
+      final OkapiClientPool clientPool = getOkapiClientPool(request.getOkapiHeaders());
+      final HttpClientInterface httpClient = clientPool.borrow();
 
-      httpClient.request(instanceEndpoint, request.getOkapiHeaders(), false)
-        .thenCompose(response -> buildRecordsResponse(ctx, httpClient, request, response))
+      CompletableFuture<Response> response = directLookup
+        ? requestRecordById(ctx, httpClient, request)
+        : requestRecords(ctx, httpClient, request, instanceEndpoint)
+          .thenCompose(page -> buildRecordsResponse(ctx, httpClient, request, page.getResponse(), page.getSources()));
+      response
         .thenAccept(value -> {
-          httpClient.closeClient();
+          clientPool.release(httpClient);
           future.complete(value);
         })
         .exceptionally(e -> {
-          httpClient.closeClient();
+          clientPool.invalidate(httpClient);
           handleException(future, e);
           return null;
         });
@@ -85,30 +98,89 @@ public abstract class AbstractGetRecordsHelper extends AbstractHelper {
     return future;
   }
 
+  /**
+   * Gets the only item of the request by its storage id directly instead of searching for it, so neither list search nor
+   * resumption logic is involved
+   */
+  private CompletableFuture<Response> requestRecordById(Context ctx, HttpClientInterface httpClient, Request request) {
+    String endpoint = storageHelper.getItemByIdEndpoint(request.getStorageIdentifier());
+    final OAIPMH oaipmh = buildBaseResponse(request);
+    return VertxCompletableFuture.from(ctx, requestRecordSource(httpClient, request, endpoint))
+      .thenCompose(itemResponse -> {
+        JsonArray instances = new JsonArray();
+        // The item which does not exist is reported the same way as the one which is not found by the search
+        if (itemResponse.getCode() != 404) {
+          requiresSuccessStorageResponse(itemResponse);
+          JsonObject instance = storageHelper.getItemById(itemResponse.getBody());
+          if (instance != null) {
+            instances.add(instance);
+          }
+        }
+        return buildPageResponse(ctx, httpClient, request, oaipmh, instances, null, Collections.emptyMap());
+      });
+  }
+
+  /**
+   * Checks if the only item of the request is got by its storage id directly. The id is used as the part of the storage endpoint
+   * path, so only UUID is accepted.
+   */
+  private boolean isDirectLookup(Request request) {
+    if (!isDirectLookupSupported() || !request.getTenantConfig().isDirectGetRecord()) {
+      return false;
+    }
+    String id = request.getStorageIdentifier();
+    return id != null && UUID_PATTERN.matcher(id).matches();
+  }
+
   private CompletableFuture<Response> buildNoRecordsFoundOaiResponse(OAIPMH oaipmh) {
     oaipmh.withErrors(createNoRecordsFoundError());
     return completedFuture(buildResponseWithErrors(oaipmh));
   }
 
-  private CompletableFuture<MetadataType> getOaiMetadataByRecordId(Context ctx, HttpClientInterface httpClient, Request request, String id) {
+  /**
+   * Requests record source by id and builds metadata of required representation on worker thread
+   * @param limiter limits the number of record source requests in flight
+   * @param metadataBuilder builds metadata based on the request and record source
+   * @return metadata or {@code null} if record source is not found
+   */
+  private <T> CompletableFuture<T> getMetadataByRecordId(Context ctx, HttpClientInterface httpClient, Request request, String id,
+                                                         ConcurrencyLimiter limiter,
+                                                         BiFunction<Request, JsonObject, T> metadataBuilder) {
     try {
       String metadataEndpoint = storageHelper.getRecordByIdEndpoint(id);
-      logger.debug("Getting metadata info from {}", metadataEndpoint);
 
-      return httpClient.request(metadataEndpoint, request.getOkapiHeaders(), false)
-                       .thenCompose(response -> supplyBlockingAsync(ctx, () -> buildOaiMetadata(request, response)));
+      return limiter.execute(() -> requestRecordSource(httpClient, request, metadataEndpoint))
+                    .thenCompose(response -> WorkerPool.getMappingPool(ctx.owner()).supplyAsync(ctx, () -> {
+                      JsonObject source = getRecordSource(response);
+                      return source == null ? null : metadataBuilder.apply(request, source);
+                    }));
     } catch (Exception e) {
       throw new IllegalStateException(e);
     }
   }
 
+  private CompletableFuture<org.folio.rest.tools.client.Response> requestRecordSource(HttpClientInterface httpClient,
+                                                                                       Request request, String endpoint) {
+    logger.debug("Getting metadata info from {}", endpoint);
+    try {
+      return httpClient.request(endpoint, request.getOkapiHeaders(), false);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param prefetchedSources {@link Map} with storage id as key and record source as value of the records which sources are
+   * prefetched along with the page
+   */
   private CompletableFuture<Response> buildRecordsResponse(Context ctx, HttpClientInterface httpClient, Request request,
-                                                           org.folio.rest.tools.client.Response instancesResponse) {
+                                                           org.folio.rest.tools.client.Response instancesResponse,
+                                                           Map<String, JsonObject> prefetchedSources) {
     requiresSuccessStorageResponse(instancesResponse);
 
     JsonObject body = instancesResponse.getBody();
     JsonArray instances = storageHelper.getItems(body);
-    Integer totalRecords = storageHelper.getTotalRecords(body);
+    Integer totalRecords = getTotalRecords(request, body);
 
     logger.debug("{} entries retrieved out of {}", instances != null ? instances.size() : 0, totalRecords);
 
@@ -121,68 +193,177 @@ public abstract class AbstractGetRecordsHelper extends AbstractHelper {
     }
 
     ResumptionTokenType resumptionToken = buildResumptionToken(request, instances, totalRecords);
+    prefetchNextPage(ctx, request, resumptionToken);
 
     /*
     * According to OAI-PMH guidelines: it is recommended that the responseDate reflect the time of the repository's clock at the start
     * of any database query or search function necessary to answer the list request, rather than when the output is written.
     */
     final OAIPMH oaipmh = buildBaseResponse(request);
+    return buildPageResponse(ctx, httpClient, request, oaipmh, instances, resumptionToken, prefetchedSources);
+  }
+
+  /**
+   * Builds the response with the records of the storage items
+   * @param resumptionToken the resumptionToken of the response or {@code null} if there is no one
+   */
+  private CompletableFuture<Response> buildPageResponse(Context ctx, HttpClientInterface httpClient, Request request,
+                                                        OAIPMH oaipmh, JsonArray instances, ResumptionTokenType resumptionToken,
+                                                        Map<String, JsonObject> prefetchedSources) {
+    if (isStreamingSupported() && isStreamingResponse(request)) {
+      return buildStreamedRecordsResponse(ctx, httpClient, request, oaipmh, instances, resumptionToken, prefetchedSources);
+    }
 
-    // In case the response is quite large, time to process might be significant. So running in worker thread to not block event loop
-    return supplyBlockingAsync(ctx, () -> buildRecords(request, instances))
+    // In case the response is quite large, time to process might be significant. So running in parallel off the event loop
+    return buildRecords(ctx, request, instances)
       .thenCompose(recordsMap -> {
         if (recordsMap.isEmpty()) {
           return buildNoRecordsFoundOaiResponse(oaipmh);
         } else {
-          return updateRecordsWithoutMetadata(ctx, httpClient, request, recordsMap)
-            .thenApply(records -> {
+          return updateRecordsWithoutMetadata(ctx, httpClient, request, recordsMap, prefetchedSources)
+            .thenCompose(records -> {
               addRecordsToOaiResponse(oaipmh, records);
               addResumptionTokenToOaiResponse(oaipmh, resumptionToken);
-              return buildResponse(oaipmh);
+              return WorkerPool.getSerializationPool(ctx.owner()).supplyAsync(ctx, () -> buildResponse(oaipmh));
             });
         }
       });
   }
 
+  /**
+   * Writes records to the response one by one as soon as record metadata is available, so JAXB objects of the whole page are not
+   * built. The serialized response is held in memory as UTF-8 bytes (see {@link StreamingResponseWriter}).
+   * The records which source is not returned along with storage items are written in storage order once their metadata is fetched.
+   * Metadata produced by the mapper is written as is without converting to JAXB object.
+   */
+  private CompletableFuture<Response> buildStreamedRecordsResponse(Context ctx, HttpClientInterface httpClient, Request request,
+                                                                   OAIPMH oaipmh, JsonArray instances,
+                                                                   ResumptionTokenType resumptionToken,
+                                                                   Map<String, JsonObject> prefetchedSources) {
+    StreamingResponseWriter writer = ResponseHelper.getInstance().createStreamingWriter(oaipmh);
+    WorkerPool serializationPool = WorkerPool.getSerializationPool(ctx.owner());
+    return writeRecords(ctx, request, instances, writer)
+      .thenCompose(headers -> writeRecordsWithFetchedMetadata(ctx, httpClient, request, headers, writer, prefetchedSources))
+      .thenCompose(v -> serializationPool.supplyAsync(ctx, () -> {
+        if (writer.getWrittenCount() == 0) {
+          return buildResponseWithErrors(oaipmh.withErrors(createNoRecordsFoundError()));
+        }
+        logger.debug("{} records written to the response.", writer.getWrittenCount());
+        return buildStreamedSuccessResponse(toResponseEntity(writer.finish(resumptionToken)));
+      }));
+  }
+
+  /**
+   * Writes records which source is returned along with storage items. The metadata of the records is converted in parallel by
+   * windows of a few records while the records are written in storage order, so the metadata of the whole page is not held in
+   * memory at once.
+   * @return {@link Map} with storage id as key and {@link HeaderType} of the records which metadata has to be fetched separately
+   */
+  private CompletableFuture<Map<String, HeaderType>> writeRecords(Context ctx, Request request, JsonArray instances,
+                                                                 StreamingResponseWriter writer) {
+    List<JsonObject> items = getItemsList(instances);
+    String identifierPrefix = request.getIdentifierPrefix();
+    Map<String, HeaderType> headersWithoutMetadata = new LinkedHashMap<>();
+    CompletableFuture<Void> written = ParallelMapper.getInstance(ctx.owner())
+      .mapByWindows(items, instance -> {
+        JsonObject source = storageHelper.getInstanceRecordSource(instance);
+        return source == null ? null : convertMetadata(request, source);
+      }, (window, metadata) -> {
+        for (int i = 0; i < window.size(); i++) {
+          JsonObject instance = window.get(i);
+          HeaderType header = createHeader(instance)
+            .withIdentifier(getIdentifier(identifierPrefix, storageHelper.getIdentifierId(instance)));
+          if (metadata.get(i) != null) {
+            writer.writeRecord(header, metadata.get(i));
+          } else {
+            headersWithoutMetadata.put(storageHelper.getRecordId(instance), header);
+          }
+        }
+      }, WorkerPool.getSerializationPool(ctx.owner()));
+    return VertxCompletableFuture.from(ctx, written.thenApply(v -> headersWithoutMetadata));
+  }
+
+  private CompletableFuture<Void> writeRecordsWithFetchedMetadata(Context ctx, HttpClientInterface httpClient, Request request,
+                                                                  Map<String, HeaderType> headers, StreamingResponseWriter writer,
+                                                                  Map<String, JsonObject> prefetchedSources) {
+    ConcurrencyLimiter limiter = createFetchLimiter(request);
+    WorkerPool serializationPool = WorkerPool.getSerializationPool(ctx.owner());
+    return getRecordSources(ctx, httpClient, request, new ArrayList<>(headers.keySet()), prefetchedSources)
+      .thenCompose(sources -> {
+        // Metadata is requested for all the records at once but records are written sequentially to keep storage order
+        CompletableFuture<Void> written = completedFuture(null);
+        for (Map.Entry<String, HeaderType> entry : headers.entrySet()) {
+          HeaderType header = entry.getValue();
+          CompletableFuture<byte[]> metadata = getMetadata(ctx, httpClient, request, entry.getKey(), sources, limiter,
+            this::convertMetadata);
+          written = written.thenCombineAsync(metadata, (v, metadataSource) -> {
+            if (metadataSource == null) {
+              logger.warn(String.format("The record with '%s' storage's id has no metadata", entry.getKey()));
+            } else {
+              writer.writeRecord(header, metadataSource);
+            }
+            return null;
+          }, serializationPool);
+        }
+        return VertxCompletableFuture.from(ctx, written);
+      })
+      .thenRun(() -> logFetchMetrics(limiter));
+  }
+
   /**
    * Builds {@link Map} with storage id as key and {@link RecordType} with populated header if there is any,
-   * otherwise empty map is returned
+   * otherwise empty map is returned. The records are built in parallel.
    */
-  private Map<String, RecordType> buildRecords(Request request, JsonArray instances) {
-    Map<String, RecordType> records = Collections.emptyMap();
-    if (instances != null && !instances.isEmpty()) {
-      // Using LinkedHashMap just to rely on order returned by storage service
-      records = new LinkedHashMap<>();
-      String identifierPrefix = request.getIdentifierPrefix();
-
-      for (Object entity : instances) {
-        JsonObject instance = (JsonObject) entity;
-
-        String recordId = storageHelper.getRecordId(instance);
-        String identifierId = storageHelper.getIdentifierId(instance);
-
-        RecordType record = new RecordType()
-          .withHeader(createHeader(instance)
-          .withIdentifier(getIdentifier(identifierPrefix, identifierId)));
-
-        // Some repositories like SRS can return record source data along with other info
-        String source = storageHelper.getInstanceRecordSource(instance);
-        if (source != null) {
-          record.withMetadata(buildOaiMetadata(request, source));
+  private CompletableFuture<Map<String, RecordType>> buildRecords(Context ctx, Request request, JsonArray instances) {
+    if (instances == null || instances.isEmpty()) {
+      return completedFuture(Collections.emptyMap());
+    }
+    List<JsonObject> items = getItemsList(instances);
+    String identifierPrefix = request.getIdentifierPrefix();
+    CompletableFuture<Map<String, RecordType>> records = ParallelMapper.getInstance(ctx.owner())
+      .map(items, instance -> buildRecord(request, identifierPrefix, instance))
+      .thenApply(builtRecords -> {
+        // Using LinkedHashMap just to rely on order returned by storage service
+        Map<String, RecordType> recordsMap = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+          recordsMap.put(storageHelper.getRecordId(items.get(i)), builtRecords.get(i));
         }
-        records.put(recordId, record);
+        return recordsMap;
+      });
+    return VertxCompletableFuture.from(ctx, records);
+  }
+
+  private RecordType buildRecord(Request request, String identifierPrefix, JsonObject instance) {
+    String identifierId = storageHelper.getIdentifierId(instance);
+
+    RecordType record = new RecordType()
+      .withHeader(createHeader(instance)
+      .withIdentifier(getIdentifier(identifierPrefix, identifierId)));
+
+    // Some repositories like SRS can return record source data along with other info
+    JsonObject source = storageHelper.getInstanceRecordSource(instance);
+    if (source != null) {
+      record.withMetadata(buildOaiMetadata(request, source));
+    }
+    return record;
+  }
+
+  private List<JsonObject> getItemsList(JsonArray instances) {
+    List<JsonObject> items = new ArrayList<>();
+    if (instances != null) {
+      for (Object instance : instances) {
+        items.add((JsonObject) instance);
       }
     }
-    return records;
+    return items;
   }
 
   /**
-   * Builds {@link MetadataType} if the response from storage service is successful
-   * @param request the request to get metadata prefix
+   * Gets record source if the response from storage service is successful
    * @param sourceResponse the response with {@link JsonObject} which contains record metadata
-   * @return OAI record metadata
+   * @return record source or {@code null} if record is not found
    */
-  private MetadataType buildOaiMetadata(Request request, org.folio.rest.tools.client.Response sourceResponse) {
+  private JsonObject getRecordSource(org.folio.rest.tools.client.Response sourceResponse) {
     if (!org.folio.rest.tools.client.Response.isSuccess(sourceResponse.getCode())) {
       logger.error("Record not found. Service responded with error: " + sourceResponse.getError());
 
@@ -195,35 +376,152 @@ public abstract class AbstractGetRecordsHelper extends AbstractHelper {
       throw new IllegalStateException(sourceResponse.getError().toString());
     }
 
-    String source = storageHelper.getRecordSource(sourceResponse.getBody());
-    return buildOaiMetadata(request, source);
+    return storageHelper.getRecordSource(sourceResponse.getBody());
   }
 
-  private MetadataType buildOaiMetadata(Request request, String content) {
+  private MetadataType buildOaiMetadata(Request request, JsonObject content) {
     MetadataType metadata = new MetadataType();
-    MetadataPrefix metadataPrefix = MetadataPrefix.fromName(request.getMetadataPrefix());
-    byte[] byteSource = metadataPrefix.convert(content);
-    Object record = ResponseHelper.getInstance().bytesToObject(byteSource);
+    Object record = ResponseHelper.getInstance().bytesToObject(convertMetadata(request, content));
     metadata.setAny(record);
     return metadata;
   }
 
-  private CompletableFuture<Collection<RecordType>> updateRecordsWithoutMetadata(Context ctx, HttpClientInterface httpClient, Request request, Map<String, RecordType> records) {
+  /**
+   * Converts record source to XML representation of the requested metadata format
+   */
+  private byte[] convertMetadata(Request request, JsonObject content) {
+    MetadataPrefix metadataPrefix = MetadataPrefix.fromName(request.getMetadataPrefix());
+    return metadataPrefix.convert(content, isNativeMetadataMapper(request));
+  }
+
+  private CompletableFuture<Collection<RecordType>> updateRecordsWithoutMetadata(Context ctx, HttpClientInterface httpClient, Request request, Map<String, RecordType> records,
+                                                                                 Map<String, JsonObject> prefetchedSources) {
     if (hasRecordsWithoutMetadata(records)) {
-      List<CompletableFuture<Void>> cfs = new ArrayList<>();
-      records.forEach((id, record) -> {
-        if (Objects.isNull(record.getMetadata())) {
-          cfs.add(getOaiMetadataByRecordId(ctx, httpClient, request, id).thenAccept(record::withMetadata));
-        }
-      });
-      return VertxCompletableFuture.from(ctx, CompletableFuture.allOf(cfs.toArray(new CompletableFuture[0])))
-                                   // Return only records with metadata populated
-                                   .thenApply(v -> filterEmptyRecords(records));
+      List<String> ids = records.entrySet()
+                                .stream()
+                                .filter(entry -> Objects.isNull(entry.getValue().getMetadata()))
+                                .map(Map.Entry::getKey)
+                                .collect(Collectors.toList());
+      ConcurrencyLimiter limiter = createFetchLimiter(request);
+      return getRecordSources(ctx, httpClient, request, ids, prefetchedSources)
+        .thenCompose(sources -> {
+          List<CompletableFuture<Void>> cfs = new ArrayList<>();
+          for (String id : ids) {
+            cfs.add(getMetadata(ctx, httpClient, request, id, sources, limiter, this::buildOaiMetadata)
+              .thenAccept(records.get(id)::withMetadata));
+          }
+          return VertxCompletableFuture.from(ctx, CompletableFuture.allOf(cfs.toArray(new CompletableFuture[0])));
+        })
+        // Return only records with metadata populated
+        .thenApply(v -> {
+          logFetchMetrics(limiter);
+          return filterEmptyRecords(records);
+        });
     } else {
       return CompletableFuture.completedFuture(records.values());
     }
   }
 
+  @Override
+  protected CompletableFuture<Map<String, JsonObject>> prefetchRecordSources(Context ctx, HttpClientInterface httpClient,
+                                                                             Request request, JsonArray items) {
+    List<String> ids = new ArrayList<>();
+    if (items != null) {
+      for (Object item : items) {
+        JsonObject instance = (JsonObject) item;
+        if (storageHelper.getInstanceRecordSource(instance) == null) {
+          ids.add(storageHelper.getRecordId(instance));
+        }
+      }
+    }
+    return getRecordSourcesByIds(ctx, httpClient, request, ids);
+  }
+
+  /**
+   * Uses the prefetched sources of the records and requests the rest ones by chunks if the storage supports such search
+   * @return {@link Map} with storage id as key and record source as value
+   */
+  private CompletableFuture<Map<String, JsonObject>> getRecordSources(Context ctx, HttpClientInterface httpClient,
+                                                                      Request request, List<String> ids,
+                                                                      Map<String, JsonObject> prefetchedSources) {
+    if (prefetchedSources.isEmpty()) {
+      return getRecordSourcesByIds(ctx, httpClient, request, ids);
+    }
+    List<String> notPrefetchedIds = ids.stream()
+                                       .filter(id -> !prefetchedSources.containsKey(id))
+                                       .collect(Collectors.toList());
+    return getRecordSourcesByIds(ctx, httpClient, request, notPrefetchedIds)
+      .thenApply(sources -> {
+        Map<String, JsonObject> allSources = new HashMap<>(prefetchedSources);
+        allSources.putAll(sources);
+        return allSources;
+      });
+  }
+
+  /**
+   * Requests the sources of the records by chunks of configured size if the storage supports such search. If the chunk cannot
+   * be fetched, its records are requested one by one later on.
+   * @return {@link Map} with storage id as key and record source as value. The records which sources are not returned have to be
+   * requested separately
+   */
+  private CompletableFuture<Map<String, JsonObject>> getRecordSourcesByIds(Context ctx, HttpClientInterface httpClient,
+                                                                           Request request, List<String> ids) {
+    int batchSize = getSourceBatchSize(request);
+    if (batchSize <= 0 || ids.isEmpty()) {
+      return completedFuture(Collections.emptyMap());
+    }
+    Map<String, JsonObject> sources = new ConcurrentHashMap<>();
+    List<CompletableFuture<Void>> cfs = new ArrayList<>();
+    try {
+      for (int from = 0; from < ids.size(); from += batchSize) {
+        String endpoint = storageHelper.getRecordsSourceEndpoint(ids.subList(from, Math.min(from + batchSize, ids.size())));
+        if (endpoint == null) {
+          return completedFuture(Collections.emptyMap());
+        }
+        logger.debug("Getting records sources from {}", endpoint);
+        cfs.add(httpClient.request(endpoint, request.getOkapiHeaders(), false)
+          .thenAccept(response -> {
+            if (org.folio.rest.tools.client.Response.isSuccess(response.getCode())) {
+              sources.putAll(storageHelper.getRecordSources(response.getBody()));
+            } else {
+              logger.warn("Records sources cannot be fetched by one request, so they are requested separately. "
+                + "Service responded with error: " + response.getError());
+            }
+          })
+          .exceptionally(e -> {
+            logger.warn("Records sources cannot be fetched by one request, so they are requested separately.", e);
+            return null;
+          }));
+      }
+    } catch (Exception e) {
+      logger.warn("Records sources cannot be fetched by one request, so they are requested separately.", e);
+      return completedFuture(Collections.emptyMap());
+    }
+    return VertxCompletableFuture.from(ctx, CompletableFuture.allOf(cfs.toArray(new CompletableFuture[0])))
+                                 .thenApply(v -> sources);
+  }
+
+  /**
+   * Builds metadata from already fetched record source on worker thread or requests the source by record id if it is not fetched
+   */
+  private <T> CompletableFuture<T> getMetadata(Context ctx, HttpClientInterface httpClient, Request request, String id,
+                                               Map<String, JsonObject> sources, ConcurrencyLimiter limiter,
+                                               BiFunction<Request, JsonObject, T> metadataBuilder) {
+    JsonObject source = sources.get(id);
+    if (source == null) {
+      return getMetadataByRecordId(ctx, httpClient, request, id, limiter, metadataBuilder);
+    }
+    return WorkerPool.getMappingPool(ctx.owner()).supplyAsync(ctx, () -> metadataBuilder.apply(request, source));
+  }
+
+  private void logFetchMetrics(ConcurrencyLimiter limiter) {
+    if (logger.isDebugEnabled() && limiter.getStartedCount() > 0) {
+      logger.debug(String.format("%d record sources requested one by one, %d of them waited for %d ms in total "
+          + "(max queue depth %d, max wait %d ms)", limiter.getStartedCount(), limiter.getQueuedCount(),
+        limiter.getTotalWaitTime(), limiter.getMaxQueueDepth(), limiter.getMaxWaitTime()));
+    }
+  }
+
   private boolean hasRecordsWithoutMetadata(Map<String, RecordType> records) {
     return records.values()
                   .stream()
@@ -247,18 +545,6 @@ public abstract class AbstractGetRecordsHelper extends AbstractHelper {
     return hasMetadata;
   }
 
-  /**
-   * In case the storage service could not return instances we have to send 500 back to client.
-   * So the method is intended to validate and throw {@link IllegalStateException} for failure responses
-   * @param sourceResponse response from the storage
-   */
-  private void requiresSuccessStorageResponse(org.folio.rest.tools.client.Response sourceResponse) {
-    if (!org.folio.rest.tools.client.Response.isSuccess(sourceResponse.getCode())) {
-      logger.error("Source not found. Service responded with error: " + sourceResponse.getError());
-      throw new IllegalStateException(sourceResponse.getError().toString());
-    }
-  }
-
   private void handleException(CompletableFuture<Response> future, Throwable e) {
     logger.error(GENERIC_ERROR_MESSAGE, e);
     future.completeExceptionally(e);
@@ -271,6 +557,24 @@ public abstract class AbstractGetRecordsHelper extends AbstractHelper {
     return buildSuccessResponse(oai);
   }
 
+  /**
+   * @return {@code true} if the only item of the verb request can be got by its storage id directly
+   */
+  protected boolean isDirectLookupSupported() {
+    return false;
+  }
+
+  /**
+   * @return {@code true} if the verb response can be written with {@link StreamingResponseWriter}
+   */
+  protected abstract boolean isStreamingSupported();
+
+  /**
+   * Builds success response based on already written response body
+   * @param responseBody the response written by {@link StreamingResponseWriter}
+   */
+  protected abstract Response buildStreamedSuccessResponse(BinaryOutStream responseBody);
+
   protected abstract Response buildSuccessResponse(OAIPMH oai);
   protected abstract Response buildResponseWithErrors(OAIPMH oai);
   protected abstract List<OAIPMHerrorType> validateRequest(Request request);
@@ -1,15 +1,23 @@
 package org.folio.oaipmh.helpers;
 
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import me.escoffier.vertx.completablefuture.VertxCompletableFuture;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.folio.oaipmh.MetadataPrefix;
 import org.folio.oaipmh.Request;
+import org.folio.oaipmh.TenantConfig;
 import org.folio.oaipmh.helpers.storage.StorageHelper;
 import org.folio.rest.tools.client.HttpClientFactory;
+import org.folio.rest.tools.client.Response;
 import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+import org.folio.rest.tools.utils.BinaryOutStream;
 import org.folio.rest.tools.utils.TenantTool;
 import org.openarchives.oai._2.GranularityType;
 import org.openarchives.oai._2.HeaderType;
@@ -19,6 +27,7 @@ import org.openarchives.oai._2.OAIPMHerrorcodeType;
 import org.openarchives.oai._2.ResumptionTokenType;
 import org.openarchives.oai._2.SetType;
 
+import javax.ws.rs.core.HttpHeaders;
 import java.math.BigInteger;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -27,10 +36,14 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.EMPTY;
@@ -43,8 +56,6 @@ import static org.folio.oaipmh.Constants.LIST_NO_REQUIRED_PARAM_ERROR;
 import static org.folio.oaipmh.Constants.NO_RECORD_FOUND_ERROR;
 import static org.folio.oaipmh.Constants.OKAPI_TENANT;
 import static org.folio.oaipmh.Constants.OKAPI_URL;
-import static org.folio.oaipmh.Constants.REPOSITORY_MAX_RECORDS_PER_RESPONSE;
-import static org.folio.oaipmh.Constants.REPOSITORY_TIME_GRANULARITY;
 import static org.folio.oaipmh.Constants.UNTIL_PARAM;
 import static org.openarchives.oai._2.OAIPMHerrorcodeType.BAD_ARGUMENT;
 import static org.openarchives.oai._2.OAIPMHerrorcodeType.CANNOT_DISSEMINATE_FORMAT;
@@ -54,6 +65,7 @@ import static org.openarchives.oai._2.OAIPMHerrorcodeType.NO_RECORDS_MATCH;
  * Abstract helper implementation that provides some common methods.
  */
 public abstract class AbstractHelper implements VerbHelper {
+  private static final Logger logger = LoggerFactory.getLogger(AbstractHelper.class);
 
   /**
    * Holds instance to handle items returned
@@ -72,6 +84,50 @@ public abstract class AbstractHelper implements VerbHelper {
       .withRequest(request.getOaiRequest());
   }
 
+  /**
+   * Builds the response which depends only on the configuration of the tenant from the response cached by
+   * {@link ResponseCache}. The response is not sent back if the client already holds it.
+   * @param request the request
+   * @param oaiBuilder builds {@link OAIPMH} response if there is no cached one
+   * @param okResponse creates 200 response with the body
+   * @param notModifiedResponse creates 304 response
+   * @return the response with ETag header
+   */
+  protected javax.ws.rs.core.Response buildCachedResponse(Request request, Supplier<OAIPMH> oaiBuilder,
+                                                          Function<String, javax.ws.rs.core.Response> okResponse,
+                                                          Supplier<javax.ws.rs.core.Response> notModifiedResponse) {
+    return buildCachedResponse(request, null, oaiBuilder, okResponse, notModifiedResponse);
+  }
+
+  /**
+   * Wraps the response written by {@link org.folio.oaipmh.StreamingResponseWriter} to the entity which is sent as is, so the
+   * response is not converted to string before it is sent
+   * @param responseBody the response encoded in UTF-8
+   */
+  protected static BinaryOutStream toResponseEntity(Buffer responseBody) {
+    BinaryOutStream entity = new BinaryOutStream();
+    entity.setData(responseBody.getBytes());
+    return entity;
+  }
+
+  /**
+   * Builds the response which depends on the configuration of the tenant and the value changing independently of the
+   * configuration from the response cached by {@link ResponseCache}. The response is not sent back if the client already holds it.
+   * @param dependency the value the response depends on besides the configuration
+   * @see #buildCachedResponse(Request, Supplier, Function, Supplier)
+   */
+  protected javax.ws.rs.core.Response buildCachedResponse(Request request, Object dependency, Supplier<OAIPMH> oaiBuilder,
+                                                          Function<String, javax.ws.rs.core.Response> okResponse,
+                                                          Supplier<javax.ws.rs.core.Response> notModifiedResponse) {
+    ResponseCache.CachedResponse cachedResponse = ResponseCache.getInstance().get(request, dependency, oaiBuilder);
+    javax.ws.rs.core.Response response = cachedResponse.isNotModified(request.getIfNoneMatch())
+      ? notModifiedResponse.get()
+      : okResponse.apply(cachedResponse.getBody());
+    return javax.ws.rs.core.Response.fromResponse(response)
+      .header(HttpHeaders.ETAG, cachedResponse.getEntityTag())
+      .build();
+  }
+
   /**
    * The method is intended to be used to validate 'ListIdentifiers' and 'ListRecords' requests
    * @param request the {link Request} with parameters to be validated
@@ -134,9 +190,7 @@ public abstract class AbstractHelper implements VerbHelper {
   }
 
   private boolean isDateOnlyGranularity(Request request) {
-    String granularity = RepositoryConfigurationUtil.getProperty
-      (request.getOkapiHeaders().get(OKAPI_TENANT), REPOSITORY_TIME_GRANULARITY);
-    return GranularityType.fromValue(granularity) == GranularityType.YYYY_MM_DD;
+    return request.getTenantConfig().getTimeGranularity() == GranularityType.YYYY_MM_DD;
   }
 
   /**
@@ -178,6 +232,45 @@ public abstract class AbstractHelper implements VerbHelper {
     }
   }
 
+  /**
+   * Checks if the list response should be written entry by entry with {@link org.folio.oaipmh.StreamingResponseWriter}
+   * instead of marshalling the whole {@link OAIPMH} object at once.
+   * @param request the request to get tenant from
+   * @return {@code true} if streaming is enabled for the tenant
+   */
+  protected boolean isStreamingResponse(Request request) {
+    return request.getTenantConfig().isStreamingResponse();
+  }
+
+  /**
+   * Checks if the metadata should be converted with the mapper implemented in Java code instead of XSLT one
+   * (only Dublin Core has such a mapper so far)
+   * @param request the request to get tenant from
+   * @return {@code true} if native mapper is configured for the tenant
+   */
+  protected boolean isNativeMetadataMapper(Request request) {
+    return request.getTenantConfig().isNativeMetadataMapper();
+  }
+
+  /**
+   * Gets the maximum number of record sources requested by one storage query
+   * @return the batch size or {@code 0} if the sources should be requested for each record separately
+   */
+  protected int getSourceBatchSize(Request request) {
+    return request.getTenantConfig().getSourceBatchSize();
+  }
+
+  /**
+   * Creates limiter of the record source requests issued while processing the request. The requests are limited by the limit of
+   * the tenant as well, so several harvesters of the same tenant do not overload the storage.
+   */
+  protected ConcurrencyLimiter createFetchLimiter(Request request) {
+    String tenant = request.getOkapiHeaders().get(OKAPI_TENANT);
+    TenantConfig config = request.getTenantConfig();
+    return new ConcurrencyLimiter(config.getMaxConcurrentFetches(),
+      ConcurrencyLimiter.getTenantLimiter(tenant, config.getMaxTenantConcurrentFetches()));
+  }
+
   protected boolean validateIdentifier(Request request) {
     return StringUtils.startsWith(request.getIdentifier(), request.getIdentifierPrefix());
   }
@@ -210,6 +303,149 @@ public abstract class AbstractHelper implements VerbHelper {
     return HttpClientFactory.getHttpClient(okapiURL, tenantId, autoCloseConnections);
   }
 
+  /**
+   * Gets the pool of long-lived Okapi clients getting Okapi URL and tenant from headers. The client taken from the pool keeps
+   * connections alive, so it has to be returned back once the request is processed instead of being closed.
+   */
+  protected OkapiClientPool getOkapiClientPool(Map<String, String> okapiHeaders) {
+    return OkapiClientPool.getInstance(okapiHeaders.get(OKAPI_URL), TenantTool.tenantId(okapiHeaders));
+  }
+
+  /**
+   * Gets the page of storage items for the request. If the page was prefetched when the resumptionToken of the request was
+   * issued, the prefetched page is used, otherwise (or if it could not be prefetched) the page is requested from the storage.
+   */
+  protected CompletableFuture<PrefetchCache.Page> requestRecords(Context ctx, HttpClientInterface httpClient, Request request,
+                                                                 String endpoint) {
+    CompletableFuture<PrefetchCache.Page> prefetched = null;
+    if (request.isRestored() && isPrefetchEnabled(request)) {
+      prefetched = PrefetchCache.getInstance().take(getPrefetchKey(request, request.getResumptionToken()), endpoint);
+    }
+    if (prefetched == null) {
+      return requestStorage(ctx, httpClient, request, endpoint).thenApply(PrefetchCache.Page::new);
+    }
+    logger.debug("Prefetched page is used for {}", endpoint);
+    return VertxCompletableFuture.from(ctx, prefetched)
+      .handle((page, e) -> page != null ? CompletableFuture.completedFuture(page)
+        : requestStorage(ctx, httpClient, request, endpoint).thenApply(PrefetchCache.Page::new))
+      .thenCompose(Function.identity());
+  }
+
+  /**
+   * Starts fetching the next page in background once the resumptionToken is issued, so the next request of the harvester is
+   * served mostly from memory
+   * @param request the request the resumptionToken is issued for
+   * @param resumptionToken the resumptionToken of the response
+   */
+  protected void prefetchNextPage(Context ctx, Request request, ResumptionTokenType resumptionToken) {
+    if (resumptionToken == null || StringUtils.isEmpty(resumptionToken.getValue()) || !isPrefetchEnabled(request)) {
+      return;
+    }
+    try {
+      Request nextRequest = Request.builder()
+        .okapiHeaders(request.getOkapiHeaders())
+        .verb(request.getVerb())
+        .baseURL(request.getOaiRequest().getValue())
+        .resumptionToken(resumptionToken.getValue())
+        .tenantConfig(request.getTenantConfig())
+        .build();
+      // The next page is not requested by the harvester yet, so the harvest is not counted as resumed
+      restoreRequest(nextRequest, false);
+      String endpoint = storageHelper.buildRecordsEndpoint(nextRequest);
+      PrefetchCache.getInstance().prefetch(getPrefetchKey(request, resumptionToken.getValue()), endpoint,
+        () -> fetchPage(ctx, nextRequest, endpoint));
+    } catch (Exception e) {
+      logger.warn("The next page cannot be prefetched.", e);
+    }
+  }
+
+  /**
+   * Requests the sources of the records of the prefetched page which are not returned along with storage items
+   * @return {@link Map} with storage id as key and record source as value
+   */
+  protected CompletableFuture<Map<String, JsonObject>> prefetchRecordSources(Context ctx, HttpClientInterface httpClient,
+                                                                             Request request, JsonArray items) {
+    return CompletableFuture.completedFuture(Collections.emptyMap());
+  }
+
+  private CompletableFuture<PrefetchCache.Page> fetchPage(Context ctx, Request request, String endpoint) {
+    OkapiClientPool clientPool = getOkapiClientPool(request.getOkapiHeaders());
+    HttpClientInterface httpClient = clientPool.borrow();
+    logger.debug("Prefetching next page from {}", endpoint);
+    CompletableFuture<PrefetchCache.Page> page = VertxCompletableFuture.from(ctx, requestStorage(ctx, httpClient, request, endpoint))
+      .thenCompose(response -> {
+        if (!Response.isSuccess(response.getCode())) {
+          throw new IllegalStateException(response.getError().toString());
+        }
+        return prefetchRecordSources(ctx, httpClient, request, storageHelper.getItems(response.getBody()))
+          // Estimating the size of the page walks through all its items, so it is done on the mapping pool
+          .thenCompose(sources -> WorkerPool.getMappingPool(ctx.owner()).supplyAsync(ctx,
+            () -> new PrefetchCache.Page(response, sources)));
+      });
+    page.whenComplete((value, e) -> {
+      if (e == null) {
+        clientPool.release(httpClient);
+      } else {
+        clientPool.invalidate(httpClient);
+      }
+    });
+    return page;
+  }
+
+  /**
+   * In case the storage service could not return instances we have to send 500 back to client.
+   * So the method is intended to validate and throw {@link IllegalStateException} for failure responses
+   * @param storageResponse response from the storage
+   */
+  protected void requiresSuccessStorageResponse(Response storageResponse) {
+    if (!Response.isSuccess(storageResponse.getCode())) {
+      logger.error("Storage responded with error: " + storageResponse.getError());
+      throw new IllegalStateException(storageResponse.getError().toString());
+    }
+  }
+
+  private CompletableFuture<Response> requestStorage(Context ctx, HttpClientInterface httpClient, Request request,
+                                                     String endpoint) {
+    logger.debug("Sending message to {}", endpoint);
+    if (isStreamingStorage(request)) {
+      return StreamingStorageClient.getInstance(ctx.owner())
+        .request(endpoint, request.getOkapiHeaders(), storageHelper.getItemsName(), this::mapStorageItem);
+    }
+    try {
+      return httpClient.request(endpoint, request.getOkapiHeaders(), false);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Maps the storage item once it is parsed if the storage response is parsed incrementally. Only the data returned by the mapper
+   * is retained, the rest of the item is released right away.
+   * @param item the item returned by the storage
+   * @return the data of the item required to build the response
+   */
+  protected JsonObject mapStorageItem(JsonObject item) {
+    return item;
+  }
+
+  /**
+   * Checks if the list responses of the storage are parsed incrementally while they are received
+   */
+  protected boolean isStreamingStorage(Request request) {
+    return request.getTenantConfig().isStreamingStorage();
+  }
+
+  private String getPrefetchKey(Request request, String resumptionToken) {
+    return request.getOkapiHeaders().get(OKAPI_TENANT) + '|' + resumptionToken;
+  }
+
+  /**
+   * Checks if the next page should be fetched in background once the resumptionToken is issued
+   */
+  protected boolean isPrefetchEnabled(Request request) {
+    return request.getTenantConfig().isPrefetch();
+  }
+
   /**
    * Creates {@link HeaderType} and populates Identifier, Datestamp and Set
    *
@@ -288,15 +524,30 @@ public abstract class AbstractHelper implements VerbHelper {
    * null if the result set is not partitioned.
    */
   protected ResumptionTokenType buildResumptionToken(Request request, JsonArray instances, Integer totalRecords) {
-    int newOffset = request.getOffset() + Integer.valueOf(RepositoryConfigurationUtil.getProperty
-      (request.getOkapiHeaders().get(OKAPI_TENANT), REPOSITORY_MAX_RECORDS_PER_RESPONSE));
+    int maxRecordsPerResponse = request.getTenantConfig().getMaxRecordsPerResponse();
+    int newOffset = request.getOffset() + maxRecordsPerResponse;
+    boolean cursorPagination = isCursorPagination(request);
+    if (cursorPagination && request.getLastRecordId() != null && !isTotalRecordsCarried(request) && totalRecords != null) {
+      // The storage counts only the records following the last one of the previous page
+      totalRecords += request.getOffset();
+    }
+    // The extra record is checked unless the records are counted exactly for each page
+    boolean hasNextRecords = cursorPagination || !isExactTotalRecords(request) || totalRecords == null
+      ? instances != null && instances.size() > maxRecordsPerResponse
+      : newOffset < totalRecords;
     String resumptionToken = request.isRestored() ? EMPTY : null;
-    if (newOffset < totalRecords) {
+    Instant expirationDate = null;
+    if (hasNextRecords) {
       Map<String, String> extraParams = new HashMap<>();
-      extraParams.put("totalRecords", String.valueOf(totalRecords));
+      if (totalRecords != null) {
+        extraParams.put("totalRecords", String.valueOf(totalRecords));
+      }
       extraParams.put("offset", String.valueOf(newOffset));
       String nextRecordId = storageHelper.getRecordId((JsonObject) instances.remove(instances.size() - 1));
       extraParams.put("nextRecordId", nextRecordId);
+      if (cursorPagination) {
+        addCursor(extraParams, instances.getJsonObject(instances.size() - 1));
+      }
       if (request.getUntil() == null) {
         extraParams.put("until", LocalDateTime.now().format(ISO_UTC_DATE_TIME));
       }
@@ -304,16 +555,81 @@ public abstract class AbstractHelper implements VerbHelper {
       resumptionToken = request.toResumptionToken(extraParams);
     }
 
+    if (resumptionToken != null && isHarvestSessions(request)) {
+      HarvestSessionStore store = HarvestSessionStore.getInstance();
+      String tenant = request.getOkapiHeaders().get(OKAPI_TENANT);
+      HarvestSessionStore.SessionToken previous = request.isHarvestSessionRestored()
+        ? store.get(tenant, request.getResumptionToken())
+        : null;
+      int recordsCount = instances == null ? 0 : instances.size();
+      if (resumptionToken.isEmpty()) {
+        store.complete(previous, recordsCount);
+      } else {
+        // The state is kept by the module, so only the key of the state is issued
+        HarvestSessionStore.SessionToken next = store.issue(tenant, previous, resumptionToken, totalRecords, recordsCount);
+        resumptionToken = next.getValue();
+        expirationDate = next.getExpirationDate();
+        totalRecords = next.getSession().getCompleteListSize();
+      }
+    }
+
     if (resumptionToken != null) {
       return new ResumptionTokenType()
         .withValue(resumptionToken)
-        .withCompleteListSize(BigInteger.valueOf(totalRecords))
+        .withExpirationDate(expirationDate)
+        .withCompleteListSize(totalRecords == null ? null : BigInteger.valueOf(totalRecords))
         .withCursor(request.getOffset() == 0 ? BigInteger.ZERO : BigInteger.valueOf(request.getOffset()));
     }
 
     return null;
   }
 
+  /**
+   * Restores the request from resumptionToken. If harvest sessions are enabled and resumptionToken is the key of the state kept
+   * by {@link HarvestSessionStore}, the request is restored from that state, otherwise from resumptionToken itself.
+   * @return true if the request was restored, false otherwise
+   */
+  protected boolean restoreRequest(Request request) {
+    return restoreRequest(request, true);
+  }
+
+  /**
+   * @param resumed {@code true} if the harvest is resumed by the request of the harvester, so the lookup of the state is counted
+   * by {@link HarvestSessionStore}
+   */
+  private boolean restoreRequest(Request request, boolean resumed) {
+    if (isHarvestSessions(request)) {
+      HarvestSessionStore store = HarvestSessionStore.getInstance();
+      String tenant = request.getOkapiHeaders().get(OKAPI_TENANT);
+      HarvestSessionStore.SessionToken token = resumed
+        ? store.resume(tenant, request.getResumptionToken())
+        : store.get(tenant, request.getResumptionToken());
+      if (token != null) {
+        return request.restoreFromHarvestSession(token.getState());
+      }
+    }
+    return request.restoreFromResumptionToken();
+  }
+
+  /**
+   * Checks if resumptionToken is the key of the state kept by the module instead of the state itself
+   */
+  protected boolean isHarvestSessions(Request request) {
+    return request.getTenantConfig().isHarvestSessions();
+  }
+
+  /**
+   * Adds the sort keys of the last record of the page to resumptionToken params, so the next page is searched right after it.
+   * If the record has no updated date, the next page is searched by offset since the record cannot be sought by the sort key.
+   */
+  private void addCursor(Map<String, String> extraParams, JsonObject lastRecord) {
+    String lastUpdatedDate = storageHelper.getUpdatedDate(lastRecord);
+    if (lastUpdatedDate != null) {
+      extraParams.put("lastUpdatedDate", lastUpdatedDate);
+      extraParams.put("lastRecordId", storageHelper.getRecordId(lastRecord));
+    }
+  }
+
   /**
    * Checks if request sequences can be resumed without losing records in case of partitioning the whole result set.
    * <br/>
@@ -321,6 +637,8 @@ public abstract class AbstractHelper implements VerbHelper {
    * <li>No instances are returned</li>
    * <li>Current total number of records is less than the previous one and the first
    * record id does not match one stored in the resumptionToken</li>
+   * If the resumptionToken holds the last record of the previous page, only the first condition is checked since the next
+   * records are searched right after that record.
    * <br/>
    * See <a href="https://issues.folio.org/browse/MODOAIPMH-10">MODOAIPMH-10</a> for more details.
    * @param request
@@ -330,11 +648,64 @@ public abstract class AbstractHelper implements VerbHelper {
    */
   protected boolean canResumeRequestSequence(Request request, Integer totalRecords, JsonArray instances) {
     Integer prevTotalRecords = request.getTotalRecords();
+    // The records following the last one of the previous page are not affected by changes of the preceding records.
+    // The number of records is compared only if it is counted exactly for each page, otherwise the first record is checked.
     return instances != null && instances.size() > 0 &&
-      (totalRecords >= prevTotalRecords
+      (request.getLastRecordId() != null
+        || (isExactTotalRecords(request) && totalRecords != null && totalRecords >= prevTotalRecords)
         || StringUtils.equals(request.getNextRecordId(), storageHelper.getRecordId(instances.getJsonObject(0))));
   }
 
+  /**
+   * Gets the total number of records of the list request. If the records are counted by the first request of the harvest only,
+   * the number carried forward from the first page is used for the next pages. The harvest resumed from the state kept by
+   * {@link HarvestSessionStore} always carries the number forward, so the records are not counted again for each page.
+   * <br/>
+   * The number returned by the storage is checked against the records of the page, since the storage may not count the records
+   * as requested (e.g. the estimate may be lower than the number of the records actually found). Such number is not reported as
+   * completeListSize.
+   * @param request the request
+   * @param entries the storage response with the items
+   * @return the total number of records or {@code null} if the storage has not counted the records
+   */
+  protected Integer getTotalRecords(Request request, JsonObject entries) {
+    if (isTotalRecordsCarried(request)) {
+      // The resumptionToken of the harvest which first page has not been counted carries no number
+      int totalRecords = request.getTotalRecords();
+      return totalRecords > 0 ? totalRecords : null;
+    }
+    Integer totalRecords = storageHelper.getTotalRecords(entries);
+    JsonArray items = storageHelper.getItems(entries);
+    int pageSize = Math.min(items == null ? 0 : items.size(), request.getTenantConfig().getMaxRecordsPerResponse());
+    // The storage counts only the records following the last one of the previous page if the page is sought by cursor
+    int skipped = isCursorPagination(request) && request.getLastRecordId() != null ? 0 : request.getOffset();
+    if (totalRecords != null && totalRecords < skipped + pageSize) {
+      logger.debug("The storage has not counted the records as requested: {} records reported while at least {} are found",
+        totalRecords, skipped + pageSize);
+      return null;
+    }
+    return totalRecords;
+  }
+
+  private boolean isTotalRecordsCarried(Request request) {
+    return request.isRestored() && (request.isHarvestSessionRestored()
+      || request.getTenantConfig().getTotalRecords() == TenantConfig.TotalRecords.SESSION);
+  }
+
+  /**
+   * Checks if the records of the list requests are counted exactly for each page
+   */
+  protected boolean isExactTotalRecords(Request request) {
+    return request.getTenantConfig().getTotalRecords() == TenantConfig.TotalRecords.EXACT && !isTotalRecordsCarried(request);
+  }
+
+  /**
+   * Checks if the next pages are searched right after the last record of the previous page instead of skipping offset records
+   */
+  protected boolean isCursorPagination(Request request) {
+    return request.getTenantConfig().isCursorPagination();
+  }
+
   private List<String> getSupportedSetSpecs() {
     return getSupportedSetTypes().stream()
                                  .map(SetType::getSetSpec)
@@ -0,0 +1,263 @@
+package org.folio.oaipmh.helpers;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking limiter of the number of asynchronous operations (e.g. storage requests) which are in flight at the same time.
+ * If the limit is reached, the operation is queued and started once one of the running operations completes, so no thread
+ * is blocked while waiting. The limiter can have parent limiter (e.g. the one of the tenant), then the operation is started only
+ * when both limits allow it.
+ * <br/>
+ * The limiter collects the queue depth and wait time metrics which can be used to tune the limits against storage capacity. The
+ * metrics of the tenant limiters are logged by {@link MetricsLogger}.
+ * <br/>
+ * The limiter of the tenant which has no operations and has not been used for a minute is released once the limiter of another
+ * tenant is created, so only the limiters of the recently harvested tenants are kept.
+ */
+public class ConcurrencyLimiter {
+
+  private static final Map<String, ConcurrencyLimiter> tenantLimiters = new ConcurrentHashMap<>();
+  private static final long TENANT_LIMITER_IDLE_TIME = TimeUnit.MINUTES.toNanos(1);
+
+  private final ConcurrencyLimiter parent;
+  private final Queue<PendingOperation> pendingOperations = new ArrayDeque<>();
+  private int maxInFlight;
+  private int inFlightCount;
+  private int maxQueueDepth;
+  private volatile long lastUsedTime = System.nanoTime();
+
+  private final AtomicLong startedCount = new AtomicLong();
+  private final AtomicLong queuedCount = new AtomicLong();
+  private final AtomicLong totalWaitTime = new AtomicLong();
+  private final AtomicLong maxWaitTime = new AtomicLong();
+
+  /**
+   * @param maxInFlight the maximum number of operations in flight. {@code 0} or negative value means no limit
+   */
+  public ConcurrencyLimiter(int maxInFlight) {
+    this(maxInFlight, null);
+  }
+
+  /**
+   * @param maxInFlight the maximum number of operations in flight. {@code 0} or negative value means no limit
+   * @param parent the limiter which has to allow the operation as well or {@code null}
+   */
+  public ConcurrencyLimiter(int maxInFlight, ConcurrencyLimiter parent) {
+    this.maxInFlight = maxInFlight;
+    this.parent = parent;
+  }
+
+  /**
+   * Gets the limiter shared by all the requests of the tenant. The limit is updated if it is changed for the tenant.
+   * @param tenant the tenant
+   * @param maxInFlight the maximum number of operations of the tenant in flight. {@code 0} or negative value means no limit
+   * @return the limiter of the tenant
+   */
+  public static ConcurrencyLimiter getTenantLimiter(String tenant, int maxInFlight) {
+    ConcurrencyLimiter limiter = tenantLimiters.get(tenant);
+    if (limiter == null) {
+      evictIdleTenantLimiters(TENANT_LIMITER_IDLE_TIME);
+      limiter = tenantLimiters.computeIfAbsent(tenant, key -> new ConcurrencyLimiter(maxInFlight));
+    }
+    limiter.lastUsedTime = System.nanoTime();
+    limiter.setMaxInFlight(maxInFlight);
+    return limiter;
+  }
+
+  /**
+   * Releases the limiters of the tenants which have no operations in flight or queued and have not been used for the time
+   * @param idleTime the time in nanoseconds the limiter has not been used for
+   */
+  static void evictIdleTenantLimiters(long idleTime) {
+    long now = System.nanoTime();
+    tenantLimiters.keySet().forEach(tenant -> tenantLimiters.computeIfPresent(tenant,
+      (key, limiter) -> limiter.isIdle(now, idleTime) ? null : limiter));
+  }
+
+  private synchronized boolean isIdle(long now, long idleTime) {
+    return inFlightCount == 0 && pendingOperations.isEmpty() && now - lastUsedTime >= idleTime;
+  }
+
+  /**
+   * @return {@link Map} with tenant as key and the limiter of the tenant as value
+   */
+  public static Map<String, ConcurrencyLimiter> getTenantLimiters() {
+    return Collections.unmodifiableMap(tenantLimiters);
+  }
+
+  /**
+   * Starts the operation if the limit allows it, otherwise the operation is queued and started later on
+   * @param operation the supplier which starts the operation
+   * @return the future which is completed with the result of the operation
+   */
+  public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> operation) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Runnable start = () -> start(operation, result);
+    boolean acquired;
+    synchronized (this) {
+      acquired = isAllowed();
+      if (acquired) {
+        inFlightCount++;
+      } else {
+        pendingOperations.offer(new PendingOperation(start));
+        maxQueueDepth = Math.max(maxQueueDepth, pendingOperations.size());
+        queuedCount.incrementAndGet();
+      }
+    }
+    if (acquired) {
+      startedCount.incrementAndGet();
+      start.run();
+    }
+    return result;
+  }
+
+  /**
+   * Changes the limit starting queued operations if the limit is increased
+   * @param maxInFlight the maximum number of operations in flight. {@code 0} or negative value means no limit
+   */
+  public void setMaxInFlight(int maxInFlight) {
+    synchronized (this) {
+      if (this.maxInFlight == maxInFlight) {
+        return;
+      }
+      this.maxInFlight = maxInFlight;
+    }
+    PendingOperation next;
+    while ((next = pollAllowed()) != null) {
+      startPending(next);
+    }
+  }
+
+  private <T> void start(Supplier<CompletableFuture<T>> operation, CompletableFuture<T> result) {
+    CompletableFuture<T> future;
+    try {
+      future = parent == null ? operation.get() : parent.execute(operation);
+    } catch (Exception e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+    future.whenComplete((value, e) -> {
+      // The slot is released before completing the result, so the next operation is not delayed by the result's callbacks
+      release();
+      if (e != null) {
+        result.completeExceptionally(e);
+      } else {
+        result.complete(value);
+      }
+    });
+  }
+
+  private void release() {
+    PendingOperation next;
+    synchronized (this) {
+      inFlightCount--;
+      next = pollAllowed();
+    }
+    if (next != null) {
+      startPending(next);
+    }
+  }
+
+  /**
+   * Takes the next queued operation if the limit allows to start it and reserves the slot for it
+   */
+  private synchronized PendingOperation pollAllowed() {
+    if (pendingOperations.isEmpty() || !isAllowed()) {
+      return null;
+    }
+    inFlightCount++;
+    return pendingOperations.poll();
+  }
+
+  private void startPending(PendingOperation operation) {
+    long waitTime = System.nanoTime() - operation.queuedTime;
+    totalWaitTime.addAndGet(waitTime);
+    maxWaitTime.accumulateAndGet(waitTime, Math::max);
+    startedCount.incrementAndGet();
+    operation.start.run();
+  }
+
+  private boolean isAllowed() {
+    return maxInFlight <= 0 || inFlightCount < maxInFlight;
+  }
+
+  /**
+   * @return the maximum number of operations in flight, {@code 0} or negative value means no limit
+   */
+  public synchronized int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  /**
+   * @return current number of operations in flight
+   */
+  public synchronized int getInFlightCount() {
+    return inFlightCount;
+  }
+
+  /**
+   * @return current number of operations waiting to be started
+   */
+  public synchronized int getQueueDepth() {
+    return pendingOperations.size();
+  }
+
+  /**
+   * @return the maximum number of operations which were waiting to be started at the same time
+   */
+  public synchronized int getMaxQueueDepth() {
+    return maxQueueDepth;
+  }
+
+  /**
+   * @return number of operations started so far
+   */
+  public long getStartedCount() {
+    return startedCount.get();
+  }
+
+  /**
+   * @return number of operations which had to wait to be started because the limit was reached
+   */
+  public long getQueuedCount() {
+    return queuedCount.get();
+  }
+
+  /**
+   * @return total time in milliseconds the started operations were waiting in the queue
+   */
+  public long getTotalWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(totalWaitTime.get());
+  }
+
+  /**
+   * @return the longest time in milliseconds an operation was waiting in the queue
+   */
+  public long getMaxWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get());
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("limit=%d, in flight=%d, queued=%d, max queued=%d, started=%d, waited=%d, total wait=%dms, "
+      + "max wait=%dms", maxInFlight, inFlightCount, pendingOperations.size(), maxQueueDepth, getStartedCount(),
+      getQueuedCount(), getTotalWaitTime(), getMaxWaitTime());
+  }
+
+  private static class PendingOperation {
+    private final Runnable start;
+    private final long queuedTime = System.nanoTime();
+
+    private PendingOperation(Runnable start) {
+      this.start = start;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the earliest datestamps of the repositories of the tenants, so the storage is searched for the record modified first
+ * only once in a while rather than for each Identify request. Once the time to live is over, the cached datestamp is still
+ * used while it is refreshed in background. Concurrent searches of the same datestamp are coalesced into one storage request.
+ * <br/>
+ * The datestamp is kept for {@code earliestDatestamp.ttl} seconds.
+ */
+public class EarliestDatestampCache {
+  private static final Logger logger = LoggerFactory.getLogger(EarliestDatestampCache.class);
+
+  /* The search which takes longer is not waited for anymore, so the datestamp is searched again */
+  private static final long LOADING_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+  private static final EarliestDatestampCache instance = new EarliestDatestampCache(
+    TimeUnit.SECONDS.toMillis(Long.parseLong(System.getProperty("earliestDatestamp.ttl", "3600"))));
+
+  private final long ttl;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * @param ttl the time in milliseconds after which the datestamp is refreshed
+   */
+  EarliestDatestampCache(long ttl) {
+    this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+  }
+
+  public static EarliestDatestampCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Gets the cached earliest datestamp or searches for it if there is no cached one yet
+   * @param key Okapi URL and tenant
+   * @param loader the supplier which starts searching for the earliest datestamp
+   * @return the earliest datestamp. Completed exceptionally only if the datestamp has never been found
+   */
+  public CompletableFuture<Instant> get(String key, Supplier<CompletableFuture<Instant>> loader) {
+    Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+    Instant datestamp;
+    boolean expired;
+    synchronized (entry) {
+      datestamp = entry.datestamp;
+      expired = System.nanoTime() - entry.loadedTime >= ttl;
+    }
+    if (datestamp == null) {
+      return refresh(entry, loader);
+    }
+    if (expired) {
+      refresh(entry, loader);
+    }
+    return CompletableFuture.completedFuture(datestamp);
+  }
+
+  private CompletableFuture<Instant> refresh(Entry entry, Supplier<CompletableFuture<Instant>> loader) {
+    CompletableFuture<Instant> loading;
+    synchronized (entry) {
+      if (entry.loading != null && System.nanoTime() - entry.loadingStartTime < LOADING_TIMEOUT) {
+        return entry.loading;
+      }
+      loading = new CompletableFuture<>();
+      entry.loading = loading;
+      entry.loadingStartTime = System.nanoTime();
+    }
+
+    CompletableFuture<Instant> future;
+    try {
+      future = loader.get();
+    } catch (Exception e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+    future.whenComplete((datestamp, e) -> {
+      Instant previous;
+      synchronized (entry) {
+        // The previous datestamp is kept if the new one cannot be found
+        if (e == null) {
+          entry.datestamp = datestamp;
+          entry.loadedTime = System.nanoTime();
+        }
+        if (entry.loading == loading) {
+          entry.loading = null;
+        }
+        previous = entry.datestamp;
+      }
+      if (e != null) {
+        logger.warn("The earliest datestamp cannot be found.", e);
+      }
+      if (previous != null) {
+        loading.complete(previous);
+      } else {
+        loading.completeExceptionally(e);
+      }
+    });
+    return loading;
+  }
+
+  private static class Entry {
+    private Instant datestamp;
+    private long loadedTime;
+    private CompletableFuture<Instant> loading;
+    private long loadingStartTime;
+  }
+}
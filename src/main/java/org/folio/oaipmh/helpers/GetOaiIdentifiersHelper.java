@@ -8,18 +8,20 @@ import io.vertx.core.logging.LoggerFactory;
 import me.escoffier.vertx.completablefuture.VertxCompletableFuture;
 import org.folio.oaipmh.Request;
 import org.folio.oaipmh.ResponseHelper;
+import org.folio.oaipmh.StreamingResponseWriter;
 import org.folio.rest.tools.client.Response;
 import org.folio.rest.tools.client.interfaces.HttpClientInterface;
 import org.openarchives.oai._2.ListIdentifiersType;
 import org.openarchives.oai._2.OAIPMH;
 import org.openarchives.oai._2.OAIPMHerrorType;
 import org.openarchives.oai._2.OAIPMHerrorcodeType;
+import org.openarchives.oai._2.ResumptionTokenType;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
-import static me.escoffier.vertx.completablefuture.VertxCompletableFuture.supplyBlockingAsync;
 import static org.folio.oaipmh.Constants.LIST_ILLEGAL_ARGUMENTS_ERROR;
 import static org.folio.oaipmh.Constants.RESUMPTION_TOKEN_FLOW_ERROR;
 import static org.folio.oaipmh.Constants.RESUMPTION_TOKEN_FORMAT_ERROR;
@@ -38,7 +40,7 @@ public class GetOaiIdentifiersHelper extends AbstractHelper {
     CompletableFuture<javax.ws.rs.core.Response> future = new VertxCompletableFuture<>(ctx);
     try {
       // 1. Restore request from resumptionToken if present
-      if (request.getResumptionToken() != null && !request.restoreFromResumptionToken()) {
+      if (request.getResumptionToken() != null && !restoreRequest(request)) {
           OAIPMH oai = buildBaseResponse(request)
             .withErrors(new OAIPMHerrorType().withCode(BAD_ARGUMENT).withValue(LIST_ILLEGAL_ARGUMENTS_ERROR));
           future.complete(buildNoRecordsResponse(oai));
@@ -46,7 +48,8 @@ public class GetOaiIdentifiersHelper extends AbstractHelper {
       }
 
       // 2. Validate request
-      List<OAIPMHerrorType> errors = validateListRequest(request);
+      // The state kept by harvest session is issued for the already validated request
+      List<OAIPMHerrorType> errors = request.isHarvestSessionRestored() ? Collections.emptyList() : validateListRequest(request);
       if (!errors.isEmpty()) {
         OAIPMH oai = buildBaseResponse(request);
         if (request.isRestored()) {
@@ -58,14 +61,30 @@ public class GetOaiIdentifiersHelper extends AbstractHelper {
         return future;
       }
 
-      HttpClientInterface httpClient = getOkapiClient(request.getOkapiHeaders());
+      String instanceEndpoint = storageHelper.buildRecordsEndpoint(request);
+      OkapiClientPool clientPool = getOkapiClientPool(request.getOkapiHeaders());
+      HttpClientInterface httpClient = clientPool.borrow();
 
       // 3. Search for instances
-      VertxCompletableFuture.from(ctx, httpClient.request(storageHelper.buildRecordsEndpoint(request), request.getOkapiHeaders(), false))
-        // 4. Verify response and build list of identifiers
-        .thenApply(response -> buildListIdentifiers(request, response))
-        // 5. Build final response to client (potentially blocking operation thus running on worker thread)
-        .thenCompose(oai -> supplyBlockingAsync(ctx, () -> buildResponse(oai)))
+      VertxCompletableFuture.from(ctx, requestRecords(ctx, httpClient, request, instanceEndpoint)
+        .thenApply(PrefetchCache.Page::getResponse)
+        .whenComplete((response, e) -> {
+          if (e == null) {
+            clientPool.release(httpClient);
+          } else {
+            clientPool.invalidate(httpClient);
+          }
+        }))
+        .thenCompose(response -> {
+          if (isStreamingResponse(request)) {
+            // 4-5. Verify response and write identifiers one by one to the final response
+            return buildStreamedListIdentifiers(ctx, request, response);
+          }
+          // 4. Verify response and build list of identifiers
+          OAIPMH oai = buildListIdentifiers(ctx, request, response);
+          // 5. Build final response to client (potentially blocking operation thus running on worker thread)
+          return WorkerPool.getSerializationPool(ctx.owner()).supplyAsync(ctx, () -> buildResponse(oai));
+        })
         .thenAccept(future::complete)
         .exceptionally(e -> {
           logger.error(GENERIC_ERROR, e);
@@ -80,6 +99,14 @@ public class GetOaiIdentifiersHelper extends AbstractHelper {
     return future;
   }
 
+  /**
+   * Only the data required to build the header is retained, so the sources of the records are released once they are parsed
+   */
+  @Override
+  protected JsonObject mapStorageItem(JsonObject item) {
+    return storageHelper.getItemHeader(item);
+  }
+
   /**
    * Check if there are identifiers built and construct success response, otherwise return response with error(s)
    */
@@ -109,20 +136,17 @@ public class GetOaiIdentifiersHelper extends AbstractHelper {
   }
   /**
    * Builds {@link ListIdentifiersType} with headers if there is any item or {@code null}
+   * @param ctx the context to prefetch the next page on
    * @param request request
    * @param instancesResponse the response from the storage which contains items
    * @return {@link ListIdentifiersType} with headers if there is any or {@code null}
    */
-  private OAIPMH buildListIdentifiers(Request request, Response instancesResponse) {
-    if (!Response.isSuccess(instancesResponse.getCode())) {
-      logger.error("No instances found. Service responded with error: " + instancesResponse.getError());
-      // The storage service could not return instances so we have to send 500 back to client
-      throw new IllegalStateException(instancesResponse.getError().toString());
-    }
+  private OAIPMH buildListIdentifiers(Context ctx, Request request, Response instancesResponse) {
+    requiresSuccessStorageResponse(instancesResponse);
 
     OAIPMH oaipmh = buildBaseResponse(request);
     JsonArray instances = storageHelper.getItems(instancesResponse.getBody());
-    Integer totalRecords = storageHelper.getTotalRecords(instancesResponse.getBody());
+    Integer totalRecords = getTotalRecords(request, instancesResponse.getBody());
     if (request.isRestored() && !canResumeRequestSequence(request, totalRecords, instances)) {
         return oaipmh.withErrors(new OAIPMHerrorType()
         .withCode(BAD_RESUMPTION_TOKEN)
@@ -131,8 +155,10 @@ public class GetOaiIdentifiersHelper extends AbstractHelper {
     if (instances != null && !instances.isEmpty()) {
       logger.debug("{} entries retrieved out of {}", instances.size(), totalRecords);
 
+      ResumptionTokenType resumptionToken = buildResumptionToken(request, instances, totalRecords);
+      prefetchNextPage(ctx, request, resumptionToken);
       ListIdentifiersType identifiers = new ListIdentifiersType()
-        .withResumptionToken(buildResumptionToken(request, instances, totalRecords));
+        .withResumptionToken(resumptionToken);
 
       String identifierPrefix = request.getIdentifierPrefix();
       instances.stream()
@@ -144,4 +170,40 @@ public class GetOaiIdentifiersHelper extends AbstractHelper {
 
     return oaipmh.withErrors(createNoRecordsFoundError());
   }
+
+  /**
+   * Writes headers of the items returned by the storage directly to the response with {@link StreamingResponseWriter}.
+   * If there are no items or the request sequence cannot be resumed, response with error is built instead.
+   * @param ctx the context to run blocking code on
+   * @param request request
+   * @param instancesResponse the response from the storage which contains items
+   * @return the final response to client
+   */
+  private CompletableFuture<javax.ws.rs.core.Response> buildStreamedListIdentifiers(Context ctx, Request request,
+                                                                                    Response instancesResponse) {
+    requiresSuccessStorageResponse(instancesResponse);
+
+    OAIPMH oaipmh = buildBaseResponse(request);
+    JsonArray instances = storageHelper.getItems(instancesResponse.getBody());
+    Integer totalRecords = getTotalRecords(request, instancesResponse.getBody());
+    if (request.isRestored() && !canResumeRequestSequence(request, totalRecords, instances)) {
+      oaipmh.withErrors(new OAIPMHerrorType().withCode(BAD_RESUMPTION_TOKEN).withValue(RESUMPTION_TOKEN_FLOW_ERROR));
+      return WorkerPool.getSerializationPool(ctx.owner()).supplyAsync(ctx, () -> buildNoRecordsResponse(oaipmh));
+    }
+    if (instances == null || instances.isEmpty()) {
+      oaipmh.withErrors(createNoRecordsFoundError());
+      return WorkerPool.getSerializationPool(ctx.owner()).supplyAsync(ctx, () -> buildNoRecordsResponse(oaipmh));
+    }
+
+    logger.debug("{} entries retrieved out of {}", instances.size(), totalRecords);
+    ResumptionTokenType resumptionToken = buildResumptionToken(request, instances, totalRecords);
+    prefetchNextPage(ctx, request, resumptionToken);
+    String identifierPrefix = request.getIdentifierPrefix();
+
+    return WorkerPool.getSerializationPool(ctx.owner()).supplyAsync(ctx, () -> {
+      StreamingResponseWriter writer = ResponseHelper.getInstance().createStreamingWriter(oaipmh);
+      instances.forEach(instance -> writer.writeHeader(populateHeader(identifierPrefix, (JsonObject) instance)));
+      return GetOaiIdentifiersResponse.respond200WithTextXml(toResponseEntity(writer.finish(resumptionToken)));
+    });
+  }
 }
@@ -66,6 +66,11 @@ public class GetOaiMetadataFormatsHelper extends AbstractHelper {
    * @return future with {@link OAIPMH} response
    */
   private javax.ws.rs.core.Response retrieveMetadataFormats(Request request) {
+    if (request.getIdentifier() == null) {
+      // The list of the formats supported by the repository depends on the configuration of the tenant only
+      return buildCachedResponse(request, () -> buildBaseResponse(request).withListMetadataFormats(getMetadataFormatTypes()),
+        GetOaiMetadataFormatsResponse::respond200WithTextXml, GetOaiMetadataFormatsResponse::respond304);
+    }
     return GetOaiMetadataFormatsResponse.respond200WithTextXml(buildMetadataFormatTypesResponse(request));
   }
 
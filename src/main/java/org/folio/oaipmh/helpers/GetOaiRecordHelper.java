@@ -3,6 +3,7 @@ package org.folio.oaipmh.helpers;
 import org.folio.oaipmh.MetadataPrefix;
 import org.folio.oaipmh.Request;
 import org.folio.oaipmh.ResponseHelper;
+import org.folio.rest.tools.utils.BinaryOutStream;
 import org.openarchives.oai._2.GetRecordType;
 import org.openarchives.oai._2.OAIPMH;
 import org.openarchives.oai._2.OAIPMHerrorType;
@@ -79,6 +80,21 @@ public class GetOaiRecordHelper extends AbstractGetRecordsHelper {
     return respond200WithTextXml(ResponseHelper.getInstance().writeToString(oai));
   }
 
+  @Override
+  protected boolean isStreamingSupported() {
+    return true;
+  }
+
+  @Override
+  protected boolean isDirectLookupSupported() {
+    return true;
+  }
+
+  @Override
+  protected Response buildStreamedSuccessResponse(BinaryOutStream responseBody) {
+    return respond200WithTextXml(responseBody);
+  }
+
   @Override
   protected OAIPMHerrorType createNoRecordsFoundError() {
     return new OAIPMHerrorType().withCode(ID_DOES_NOT_EXIST).withValue(RECORD_NOT_FOUND_ERROR);
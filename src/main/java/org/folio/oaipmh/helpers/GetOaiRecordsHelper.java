@@ -2,6 +2,7 @@ package org.folio.oaipmh.helpers;
 
 import org.folio.oaipmh.Request;
 import org.folio.oaipmh.ResponseHelper;
+import org.folio.rest.tools.utils.BinaryOutStream;
 import org.openarchives.oai._2.ListRecordsType;
 import org.openarchives.oai._2.OAIPMH;
 import org.openarchives.oai._2.OAIPMHerrorType;
@@ -40,6 +41,16 @@ public class GetOaiRecordsHelper extends AbstractGetRecordsHelper {
     return GetOaiRecordsResponse.respond200WithTextXml(ResponseHelper.getInstance().writeToString(oai));
   }
 
+  @Override
+  protected boolean isStreamingSupported() {
+    return true;
+  }
+
+  @Override
+  protected javax.ws.rs.core.Response buildStreamedSuccessResponse(BinaryOutStream responseBody) {
+    return GetOaiRecordsResponse.respond200WithTextXml(responseBody);
+  }
+
   @Override
   protected javax.ws.rs.core.Response buildResponseWithErrors(OAIPMH oai) {
     String responseBody = ResponseHelper.getInstance().writeToString(oai);
@@ -1,13 +1,15 @@
 package org.folio.oaipmh.helpers;
 
 import io.vertx.core.Context;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import me.escoffier.vertx.completablefuture.VertxCompletableFuture;
 import org.apache.commons.lang3.StringUtils;
 import org.folio.oaipmh.Request;
-import org.folio.oaipmh.ResponseHelper;
+import org.folio.oaipmh.TenantConfig;
 import org.folio.rest.jaxrs.resource.Oai.GetOaiRepositoryInfoResponse;
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
 import org.openarchives.oai._2.DeletedRecordType;
 import org.openarchives.oai._2.DescriptionType;
 import org.openarchives.oai._2.GranularityType;
@@ -19,19 +21,16 @@ import javax.ws.rs.core.Response;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static org.folio.oaipmh.Constants.DEFLATE;
 import static org.folio.oaipmh.Constants.GZIP;
 import static org.folio.oaipmh.Constants.OKAPI_TENANT;
-import static org.folio.oaipmh.Constants.REPOSITORY_ADMIN_EMAILS;
-import static org.folio.oaipmh.Constants.REPOSITORY_DELETED_RECORDS;
-import static org.folio.oaipmh.Constants.REPOSITORY_NAME;
+import static org.folio.oaipmh.Constants.OKAPI_URL;
 import static org.folio.oaipmh.Constants.REPOSITORY_PROTOCOL_VERSION_2_0;
-import static org.folio.oaipmh.Constants.REPOSITORY_TIME_GRANULARITY;
 
 
 /**
@@ -46,39 +45,82 @@ public class GetOaiRepositoryInfoHelper extends AbstractHelper {
   @Override
   public CompletableFuture<Response> handle(Request request, Context ctx) {
     CompletableFuture<Response> future = new VertxCompletableFuture<>(ctx);
+    getEarliestDatestamp(ctx, request).thenAccept(earliestDatestamp -> {
+      try {
+        future.complete(buildCachedResponse(request, earliestDatestamp, () -> buildIdentifyResponse(request, earliestDatestamp),
+          GetOaiRepositoryInfoResponse::respond200WithTextXml, GetOaiRepositoryInfoResponse::respond304));
+      } catch (Exception e) {
+        logger.error("Error happened while processing Identify verb request", e);
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  private OAIPMH buildIdentifyResponse(Request request, Instant earliestDatestamp) {
+    TenantConfig config = request.getTenantConfig();
     try {
-      String tenant = request.getOkapiHeaders().get(OKAPI_TENANT);
-      OAIPMH oai = buildBaseResponse(request)
+      return buildBaseResponse(request)
         .withIdentify(new IdentifyType()
-          .withRepositoryName(getRepositoryName(tenant))
+          .withRepositoryName(getRepositoryName(config))
           .withBaseURL(request.getOaiRequest().getValue())
           .withProtocolVersion(REPOSITORY_PROTOCOL_VERSION_2_0)
-          .withEarliestDatestamp(getEarliestDatestamp())
-          .withGranularity(GranularityType.fromValue(RepositoryConfigurationUtil.getProperty
-            (tenant, REPOSITORY_TIME_GRANULARITY)))
-          .withDeletedRecord(DeletedRecordType.fromValue(RepositoryConfigurationUtil
-            .getProperty(tenant, REPOSITORY_DELETED_RECORDS)))
-          .withAdminEmails(getEmails(tenant))
+          .withEarliestDatestamp(earliestDatestamp)
+          .withGranularity(getGranularity(config))
+          .withDeletedRecord(getDeletedRecord(config))
+          .withAdminEmails(getEmails(config))
           .withCompressions(GZIP, DEFLATE)
           .withDescriptions(getDescriptions(request)));
-
-      String response = ResponseHelper.getInstance().writeToString(oai);
-      future.complete(GetOaiRepositoryInfoResponse.respond200WithTextXml(response));
-    } catch (Exception e) {
-      logger.error("Error happened while processing Identify verb request", e);
-      future.completeExceptionally(e);
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException(e);
     }
-    return future;
   }
 
   /**
-   * Return the earliest repository datestamp.
-   * For now, it always returns epoch instant, but later it might be pulled from mod-configuration.
+   * Return the earliest repository datestamp, i.e. the last modified date of the record modified first. The datestamp is
+   * searched once in a while and cached per tenant by {@link EarliestDatestampCache}, so Identify is served from memory.
    *
-   * @return repository earliest datestamp
+   * @return repository earliest datestamp or epoch instant if it cannot be found, since it is still the lower limit of all
+   * the datestamps
    */
-  private Instant getEarliestDatestamp() {
-    return Instant.EPOCH.truncatedTo(ChronoUnit.SECONDS);
+  private CompletableFuture<Instant> getEarliestDatestamp(Context ctx, Request request) {
+    Map<String, String> okapiHeaders = request.getOkapiHeaders();
+    String key = okapiHeaders.get(OKAPI_URL) + '|' + okapiHeaders.get(OKAPI_TENANT);
+    return VertxCompletableFuture.from(ctx, EarliestDatestampCache.getInstance().get(key, () -> requestEarliestDatestamp(request)))
+      .exceptionally(e -> Instant.EPOCH);
+  }
+
+  /**
+   * Searches the storage for the record modified first by the query sorted by the last modified date with limit=1
+   */
+  private CompletableFuture<Instant> requestEarliestDatestamp(Request request) {
+    OkapiClientPool clientPool = getOkapiClientPool(request.getOkapiHeaders());
+    HttpClientInterface httpClient = clientPool.borrow();
+    CompletableFuture<Instant> future;
+    try {
+      String endpoint = storageHelper.getEarliestRecordEndpoint();
+      logger.debug("Sending message to {}", endpoint);
+      future = httpClient.request(endpoint, request.getOkapiHeaders(), false)
+        .thenApply(response -> {
+          if (!org.folio.rest.tools.client.Response.isSuccess(response.getCode())) {
+            throw new IllegalStateException(response.getError().toString());
+          }
+          JsonArray items = storageHelper.getItems(response.getBody());
+          // There are no records yet, so any datestamp is the lower limit
+          return items == null || items.isEmpty() ? Instant.EPOCH : storageHelper.getLastModifiedDate(items.getJsonObject(0));
+        });
+    } catch (Exception e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+    future.whenComplete((datestamp, e) -> {
+      if (e == null) {
+        clientPool.release(httpClient);
+      } else {
+        clientPool.invalidate(httpClient);
+      }
+    });
+    return future;
   }
 
   /**
@@ -86,8 +128,8 @@ public class GetOaiRepositoryInfoHelper extends AbstractHelper {
    *
    * @return repository name
    */
-  private String getRepositoryName(String tenant) {
-    String repoName = RepositoryConfigurationUtil.getProperty(tenant, REPOSITORY_NAME);
+  private String getRepositoryName(TenantConfig config) {
+    String repoName = config.getRepositoryName();
     if (repoName == null) {
       throw new IllegalStateException("The required repository config 'repository.name' is missing");
     }
@@ -100,14 +142,40 @@ public class GetOaiRepositoryInfoHelper extends AbstractHelper {
    *
    * @return repository name
    */
-  private String[] getEmails(String tenant) {
-    String emails = RepositoryConfigurationUtil.getProperty(tenant, REPOSITORY_ADMIN_EMAILS);
+  private String[] getEmails(TenantConfig config) {
+    String emails = config.getAdminEmails();
     if (StringUtils.isBlank(emails)) {
       throw new IllegalStateException("The required repository config 'repository.adminEmails' is missing");
     }
     return emails.split(",");
   }
 
+  /**
+   * Return the finest harvesting granularity supported by the repository.
+   *
+   * @return repository granularity
+   */
+  private GranularityType getGranularity(TenantConfig config) {
+    GranularityType granularity = config.getTimeGranularity();
+    if (granularity == null) {
+      throw new IllegalStateException("The required repository config 'repository.timeGranularity' is missing or invalid");
+    }
+    return granularity;
+  }
+
+  /**
+   * Return the manner in which the repository supports the notion of deleted records.
+   *
+   * @return repository deleted records support
+   */
+  private DeletedRecordType getDeletedRecord(TenantConfig config) {
+    DeletedRecordType deletedRecord = config.getDeletedRecords();
+    if (deletedRecord == null) {
+      throw new IllegalStateException("The required repository config 'repository.deletedRecords' is missing or invalid");
+    }
+    return deletedRecord;
+  }
+
   /**
    * Returns list of the {@link DescriptionType} elements.
    * For now only oai-identifier description is created.
@@ -27,20 +27,18 @@ public class GetOaiSetsHelper extends AbstractHelper {
   public CompletableFuture<Response> handle(Request request, Context ctx) {
     CompletableFuture<Response> future = new VertxCompletableFuture<>(ctx);
     try {
-      OAIPMH oai = buildBaseResponse(request);
-
       if (request.getResumptionToken() != null) {
-        oai.withErrors(new OAIPMHerrorType()
-          .withCode(BAD_RESUMPTION_TOKEN).withValue(RESUMPTION_TOKEN_FORMAT_ERROR));
+        OAIPMH oai = buildBaseResponse(request)
+          .withErrors(new OAIPMHerrorType()
+            .withCode(BAD_RESUMPTION_TOKEN).withValue(RESUMPTION_TOKEN_FORMAT_ERROR));
         future.complete(GetOaiSetsResponse
           .respond400WithTextXml(ResponseHelper.getInstance().writeToString(oai)));
         return future;
       }
 
-      oai.withListSets(new ListSetsType()
-        .withSets(getSupportedSetTypes()));
-      future.complete(GetOaiSetsResponse
-        .respond200WithTextXml(ResponseHelper.getInstance().writeToString(oai)));
+      future.complete(buildCachedResponse(request,
+        () -> buildBaseResponse(request).withListSets(new ListSetsType().withSets(getSupportedSetTypes())),
+        GetOaiSetsResponse::respond200WithTextXml, GetOaiSetsResponse::respond304));
     } catch (Exception e) {
       logger.error("Error happened while processing ListSets verb request", e);
       future.completeExceptionally(e);
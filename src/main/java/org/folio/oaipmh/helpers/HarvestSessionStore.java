@@ -0,0 +1,289 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory store of the harvest sessions, so resumptionToken issued to the harvester is only an opaque key of the state kept
+ * by the module rather than the state itself. Each page of the harvest gets its own key of the state the next page is requested
+ * with, i.e. the frozen until date, the cursor position and the number of records. The next page fetched in background (see
+ * {@link PrefetchCache}) is kept by the same key. The keys expire once the time to live is over, so the time is reported to the
+ * harvester as expirationDate of resumptionToken. The store is bounded by the number of keys, the oldest ones are evicted first.
+ * <br/>
+ * The store holds up to {@code harvestSession.maxEntries} keys, each of which lives {@code harvestSession.ttl} seconds.
+ */
+public class HarvestSessionStore {
+  private static final Logger logger = LoggerFactory.getLogger(HarvestSessionStore.class);
+
+  private static final HarvestSessionStore instance = new HarvestSessionStore(
+    Integer.parseInt(System.getProperty("harvestSession.maxEntries", "1000")),
+    TimeUnit.SECONDS.toMillis(Long.parseLong(System.getProperty("harvestSession.ttl", "3600"))));
+
+  private static final int KEY_LENGTH = 16;
+
+  private final SecureRandom random = new SecureRandom();
+  private final int maxEntries;
+  private final long ttl;
+  /* The keys are kept in the order they are issued, so the oldest ones are evicted first */
+  private final Map<String, SessionToken> tokens = new LinkedHashMap<>();
+
+  private final AtomicLong startedCount = new AtomicLong();
+  private final AtomicLong completedCount = new AtomicLong();
+  private final AtomicLong resumedCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictedCount = new AtomicLong();
+
+  /**
+   * @param maxEntries the maximum number of keys
+   * @param ttl the time in milliseconds after which the key expires
+   */
+  HarvestSessionStore(int maxEntries, long ttl) {
+    this.maxEntries = maxEntries;
+    this.ttl = ttl;
+  }
+
+  public static HarvestSessionStore getInstance() {
+    return instance;
+  }
+
+  /**
+   * Saves the state the next page of the harvest is requested with
+   * @param tenant the tenant of the harvest
+   * @param previous the token the current page is requested with or {@code null} if the page is the first one
+   * @param state the state of the next page
+   * @param completeListSize the number of records found by the current request or {@code null} if they are not counted
+   * @param recordsCount the number of records of the current page
+   * @return the token to be issued to the harvester
+   */
+  public SessionToken issue(String tenant, SessionToken previous, String state, Integer completeListSize, int recordsCount) {
+    HarvestSession session;
+    if (previous != null) {
+      session = previous.session;
+    } else {
+      session = new HarvestSession(tenant, completeListSize);
+      startedCount.incrementAndGet();
+    }
+    session.pageServed(recordsCount);
+
+    byte[] key = new byte[KEY_LENGTH];
+    random.nextBytes(key);
+    // According to spec the nanoseconds should not be used so truncate to seconds
+    Instant expirationDate = Instant.now().plusMillis(ttl).truncatedTo(ChronoUnit.SECONDS);
+    SessionToken token = new SessionToken(Base64.getUrlEncoder().withoutPadding().encodeToString(key), expirationDate, state,
+      session);
+    synchronized (this) {
+      evictExpired();
+      while (!tokens.isEmpty() && tokens.size() >= maxEntries) {
+        evictOldest();
+      }
+      if (maxEntries > 0) {
+        tokens.put(getKey(tenant, token.value), token);
+      }
+    }
+    return token;
+  }
+
+  /**
+   * Finishes the harvest once its last page is served
+   * @param last the token the last page is requested with or {@code null} if the harvest has only one page
+   * @param recordsCount the number of records of the last page
+   */
+  public void complete(SessionToken last, int recordsCount) {
+    if (last == null) {
+      return;
+    }
+    HarvestSession session = last.session;
+    session.pageServed(recordsCount);
+    completedCount.incrementAndGet();
+    logger.debug("Harvest session of {} tenant completed: {} records in {} pages for {} ms", session.tenant,
+      session.getRecordsCount(), session.getPagesCount(), System.currentTimeMillis() - session.startedTime.toEpochMilli());
+  }
+
+  /**
+   * Gets the token the harvest is resumed with. The token is kept until it expires, so the page can be requested again.
+   * @param tenant the tenant of the harvest
+   * @param value resumptionToken of the request
+   * @return the token or {@code null} if there is no such token or it has expired
+   */
+  public SessionToken resume(String tenant, String value) {
+    SessionToken token = get(tenant, value);
+    if (token == null) {
+      missCount.incrementAndGet();
+    } else {
+      resumedCount.incrementAndGet();
+    }
+    return token;
+  }
+
+  /**
+   * Gets the token without counting it as resumed harvest
+   * @see #resume(String, String)
+   */
+  public synchronized SessionToken get(String tenant, String value) {
+    evictExpired();
+    return tokens.get(getKey(tenant, value));
+  }
+
+  private String getKey(String tenant, String value) {
+    return tenant + '|' + value;
+  }
+
+  private void evictExpired() {
+    Instant now = Instant.now();
+    Iterator<SessionToken> iterator = tokens.values().iterator();
+    while (iterator.hasNext()) {
+      SessionToken token = iterator.next();
+      if (now.isBefore(token.expirationDate)) {
+        return;
+      }
+      iterator.remove();
+      evictedCount.incrementAndGet();
+    }
+  }
+
+  private void evictOldest() {
+    Iterator<SessionToken> iterator = tokens.values().iterator();
+    iterator.next();
+    iterator.remove();
+    evictedCount.incrementAndGet();
+  }
+
+  /**
+   * @return number of started harvests
+   */
+  public long getStartedCount() {
+    return startedCount.get();
+  }
+
+  /**
+   * @return number of harvests which last page has been served
+   */
+  public long getCompletedCount() {
+    return completedCount.get();
+  }
+
+  /**
+   * @return number of requests resumed with the state kept by the store
+   */
+  public long getResumedCount() {
+    return resumedCount.get();
+  }
+
+  /**
+   * @return number of requests which resumptionToken is not found, e.g. because it has expired
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return number of keys evicted because of time to live or number limit
+   */
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  /**
+   * @return current number of keys
+   */
+  public synchronized int getEntriesCount() {
+    return tokens.size();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Harvest sessions: keys=%d, started=%d, completed=%d, resumed=%d, misses=%d, evicted=%d",
+      getEntriesCount(), getStartedCount(), getCompletedCount(), getResumedCount(), getMissCount(), getEvictedCount());
+  }
+
+  /**
+   * The key issued to the harvester as resumptionToken and the state of the next page it is the key of
+   */
+  public static class SessionToken {
+    private final String value;
+    private final Instant expirationDate;
+    private final String state;
+    private final HarvestSession session;
+
+    private SessionToken(String value, Instant expirationDate, String state, HarvestSession session) {
+      this.value = value;
+      this.expirationDate = expirationDate;
+      this.state = state;
+      this.session = session;
+    }
+
+    public String getValue() {
+      return value;
+    }
+
+    public Instant getExpirationDate() {
+      return expirationDate;
+    }
+
+    /**
+     * @return the state of the next page in the form of the resumptionToken the module issues without harvest sessions
+     */
+    public String getState() {
+      return state;
+    }
+
+    public HarvestSession getSession() {
+      return session;
+    }
+  }
+
+  /**
+   * The statistics of the harvest shared by all the tokens issued for its pages
+   */
+  public static class HarvestSession {
+    private final String tenant;
+    private final Instant startedTime = Instant.now();
+    private final Integer completeListSize;
+    private final AtomicInteger pagesCount = new AtomicInteger();
+    private final AtomicLong recordsCount = new AtomicLong();
+
+    private HarvestSession(String tenant, Integer completeListSize) {
+      this.tenant = tenant;
+      this.completeListSize = completeListSize;
+    }
+
+    private void pageServed(int recordsCount) {
+      pagesCount.incrementAndGet();
+      this.recordsCount.addAndGet(recordsCount);
+    }
+
+    public String getTenant() {
+      return tenant;
+    }
+
+    public Instant getStartedTime() {
+      return startedTime;
+    }
+
+    /**
+     * @return the number of records found by the first request of the harvest or {@code null} if they are not counted
+     */
+    public Integer getCompleteListSize() {
+      return completeListSize;
+    }
+
+    public int getPagesCount() {
+      return pagesCount.get();
+    }
+
+    public long getRecordsCount() {
+      return recordsCount.get();
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.LocalMap;
+import org.folio.oaipmh.MetadataPrefix;
+import org.folio.oaipmh.mappers.StylesheetRegistry;
+import org.folio.oaipmh.mappers.XSLTMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the state of the caches, pools and limiters of the module periodically, so their efficiency can be followed on the running
+ * instance. The logging is started once per Vert.x instance and is stopped along with the instance.
+ * <br/>
+ * The interval is set in seconds by {@code metrics.logInterval} JVM property, 0 disables the logging.
+ */
+public final class MetricsLogger {
+  private static final Logger logger = LoggerFactory.getLogger(MetricsLogger.class);
+
+  private static final String TIMERS_MAP = "oai-metrics-timers";
+  private static final String TIMER = "timer";
+
+  private MetricsLogger() {
+    throw new IllegalStateException("This class provides static methods only");
+  }
+
+  /**
+   * Starts logging the metrics unless it is already started for the Vert.x instance or is disabled
+   */
+  public static void start(Vertx vertx) {
+    long interval = TimeUnit.SECONDS.toMillis(Long.parseLong(System.getProperty("metrics.logInterval", "300")));
+    if (interval <= 0) {
+      return;
+    }
+    LocalMap<String, Long> timers = vertx.sharedData().getLocalMap(TIMERS_MAP);
+    synchronized (MetricsLogger.class) {
+      if (timers.get(TIMER) == null) {
+        timers.put(TIMER, vertx.setPeriodic(interval, id -> log(vertx)));
+      }
+    }
+  }
+
+  static void log(Vertx vertx) {
+    if (logger.isInfoEnabled()) {
+      logger.info(PrefetchCache.getInstance().toString());
+      logger.info(HarvestSessionStore.getInstance().toString());
+      logger.info(WorkerPool.getMappingPool(vertx).toString());
+      logger.info(WorkerPool.getSerializationPool(vertx).toString());
+      ConcurrencyLimiter.getTenantLimiters().forEach((tenant, limiter) ->
+        logger.info(String.format("Storage fetch limiter of %s tenant: %s", tenant, limiter)));
+      for (MetadataPrefix metadataPrefix : MetadataPrefix.values()) {
+        if (metadataPrefix.getMapper() instanceof XSLTMapper) {
+          logger.info(metadataPrefix.getMapper().toString());
+        }
+      }
+      logger.info(String.format("XSLT stylesheets compiled: %d", StylesheetRegistry.getCompiledCount()));
+      OkapiClientPool.getPools().forEach((key, pool) -> logger.info(String.format("Okapi client pool of %s: %s", key, pool)));
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.LocalMap;
+import org.folio.rest.tools.client.HttpClientFactory;
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pool of long-lived Okapi clients of one Okapi URL and tenant. The clients do not close connections after each request, so
+ * the next harvest pages reuse already established keep-alive connections instead of opening new ones. A client is taken
+ * exclusively by one OAI-PMH request and has to be returned back once the request is processed. If there is no idle client, the
+ * new one is created. If the pool already holds maximum number of idle clients, the returned one is closed. The clients which
+ * are idle longer than the idle timeout are closed as well, both when the pool is used and periodically, so the connections of
+ * the tenant which is not harvested any more are not kept open. The counters of the pools are logged by {@link MetricsLogger}.
+ * <br/>
+ * The pool keeps up to {@code okapi.client.poolSize} idle clients for {@code okapi.client.idleTimeout} seconds.
+ */
+public class OkapiClientPool {
+  private static final Logger logger = LoggerFactory.getLogger(OkapiClientPool.class);
+
+  private static final Map<String, OkapiClientPool> pools = new ConcurrentHashMap<>();
+  private static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(Long.parseLong(System.getProperty("okapi.client.idleTimeout",
+    "60")));
+  private static final String TIMERS_MAP = "oai-okapi-client-pool-timers";
+  private static final String EVICTION_TIMER = "eviction";
+
+  private final Supplier<HttpClientInterface> factory;
+  private final int maxIdle;
+  private final long idleTimeout;
+  /* The most recently used clients are at the head, so the ones idle for the longest time are evicted from the tail */
+  private final Deque<IdleClient> idleClients = new ArrayDeque<>();
+  private final AtomicInteger activeCount = new AtomicInteger();
+  private final AtomicLong createdCount = new AtomicLong();
+  private final AtomicLong reusedCount = new AtomicLong();
+  private final AtomicLong evictedCount = new AtomicLong();
+
+  /**
+   * @param factory creates new client which does not close connections after each request
+   * @param maxIdle the maximum number of idle clients
+   * @param idleTimeout the time in milliseconds after which idle client is closed
+   */
+  OkapiClientPool(Supplier<HttpClientInterface> factory, int maxIdle, long idleTimeout) {
+    this.factory = factory;
+    this.maxIdle = maxIdle;
+    this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+  }
+
+  /**
+   * Gets the pool of the clients of the Okapi URL and tenant
+   * @param okapiUrl Okapi URL
+   * @param tenant the tenant
+   * @return the pool of the clients
+   */
+  public static OkapiClientPool getInstance(String okapiUrl, String tenant) {
+    return pools.computeIfAbsent(okapiUrl + '|' + tenant, key -> new OkapiClientPool(
+      () -> HttpClientFactory.getHttpClient(okapiUrl, tenant, false),
+      Integer.parseInt(System.getProperty("okapi.client.poolSize", "8")), IDLE_TIMEOUT));
+  }
+
+  /**
+   * Starts closing the clients of all the pools which are idle longer than the idle timeout periodically. The timer is started
+   * once per Vert.x instance and is stopped along with the instance.
+   */
+  public static void startEviction(Vertx vertx) {
+    if (IDLE_TIMEOUT <= 0) {
+      return;
+    }
+    LocalMap<String, Long> timers = vertx.sharedData().getLocalMap(TIMERS_MAP);
+    synchronized (OkapiClientPool.class) {
+      if (timers.get(EVICTION_TIMER) == null) {
+        timers.put(EVICTION_TIMER, vertx.setPeriodic(IDLE_TIMEOUT, id -> pools.values().forEach(OkapiClientPool::evict)));
+      }
+    }
+  }
+
+  /**
+   * @return {@link Map} with Okapi URL and tenant separated by {@code |} as key and the pool of the clients as value
+   */
+  public static Map<String, OkapiClientPool> getPools() {
+    return Collections.unmodifiableMap(pools);
+  }
+
+  /**
+   * Takes idle client from the pool or creates new one if there is no any
+   * @return client which is used exclusively by the caller until it is returned by {@link #release(HttpClientInterface)}
+   */
+  public HttpClientInterface borrow() {
+    IdleClient idleClient;
+    synchronized (this) {
+      evictIdleClients();
+      idleClient = idleClients.pollFirst();
+    }
+    activeCount.incrementAndGet();
+    if (idleClient != null) {
+      reusedCount.incrementAndGet();
+      return idleClient.client;
+    }
+    createdCount.incrementAndGet();
+    return factory.get();
+  }
+
+  /**
+   * Returns the client back to the pool. Should be called only if the client was used successfully, otherwise the client
+   * should be discarded by {@link #invalidate(HttpClientInterface)}.
+   * @param client the client taken by {@link #borrow()}
+   */
+  public void release(HttpClientInterface client) {
+    activeCount.decrementAndGet();
+    boolean pooled = false;
+    synchronized (this) {
+      evictIdleClients();
+      if (idleClients.size() < maxIdle) {
+        idleClients.offerFirst(new IdleClient(client));
+        pooled = true;
+      }
+    }
+    if (!pooled) {
+      client.closeClient();
+    }
+  }
+
+  /**
+   * Closes the client which cannot be reused
+   * @param client the client taken by {@link #borrow()}
+   */
+  public void invalidate(HttpClientInterface client) {
+    activeCount.decrementAndGet();
+    client.closeClient();
+  }
+
+  /**
+   * Closes the clients which are idle longer than the idle timeout
+   */
+  synchronized void evict() {
+    evictIdleClients();
+  }
+
+  private void evictIdleClients() {
+    long now = System.nanoTime();
+    IdleClient idleClient;
+    while ((idleClient = idleClients.peekLast()) != null && now - idleClient.releasedTime >= idleTimeout) {
+      idleClients.pollLast();
+      evictedCount.incrementAndGet();
+      try {
+        idleClient.client.closeClient();
+      } catch (Exception e) {
+        logger.warn("Idle Okapi client cannot be closed.", e);
+      }
+    }
+  }
+
+  /**
+   * @return number of clients created by the pool
+   */
+  public long getCreatedCount() {
+    return createdCount.get();
+  }
+
+  /**
+   * @return number of times an idle client was reused instead of creating new one
+   */
+  public long getReusedCount() {
+    return reusedCount.get();
+  }
+
+  /**
+   * @return number of idle clients closed because of idle timeout
+   */
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  /**
+   * @return current number of clients taken from the pool
+   */
+  public int getActiveCount() {
+    return activeCount.get();
+  }
+
+  /**
+   * @return current number of idle clients in the pool
+   */
+  public synchronized int getIdleCount() {
+    return idleClients.size();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("created=%d, reused=%d, evicted=%d, active=%d, idle=%d", getCreatedCount(), getReusedCount(),
+      getEvictedCount(), getActiveCount(), getIdleCount());
+  }
+
+  private static class IdleClient {
+    private final HttpClientInterface client;
+    private final long releasedTime = System.nanoTime();
+
+    private IdleClient(HttpClientInterface client) {
+      this.client = client;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Maps the items of one page in parallel on the mapping pool (see {@link WorkerPool}) keeping their order. The page is split into contiguous chunks
+ * each of which is mapped by one task, so the number of tasks of one request is limited and a single harvester cannot take the
+ * whole pool while the others are waiting. Small pages are not split to avoid the overhead of the tasks.
+ * <br/>
+ * One request is split into up to {@code mapping.requestParallelism} tasks of at least {@code mapping.minChunkSize} items each.
+ */
+public class ParallelMapper {
+
+  private static final int REQUEST_PARALLELISM = Integer.parseInt(System.getProperty("mapping.requestParallelism", "4"));
+  private static final int MIN_CHUNK_SIZE = Integer.parseInt(System.getProperty("mapping.minChunkSize", "10"));
+
+  private final Executor executor;
+  private final int requestParallelism;
+  private final int minChunkSize;
+
+  /**
+   * @param executor the executor the chunks are mapped on
+   * @param requestParallelism the maximum number of chunks the items of one request are split into
+   * @param minChunkSize the minimum number of items per chunk
+   */
+  ParallelMapper(Executor executor, int requestParallelism, int minChunkSize) {
+    this.executor = executor;
+    this.requestParallelism = Math.max(1, requestParallelism);
+    this.minChunkSize = Math.max(1, minChunkSize);
+  }
+
+  /**
+   * @return the mapper running on the mapping pool of the Vert.x instance. The mapper holds no state of its own, so it is not
+   * cached
+   */
+  public static ParallelMapper getInstance(Vertx vertx) {
+    return new ParallelMapper(WorkerPool.getMappingPool(vertx), REQUEST_PARALLELISM, MIN_CHUNK_SIZE);
+  }
+
+  /**
+   * Maps the items in parallel
+   * @param items the items to map
+   * @param mapper maps one item, might be blocking
+   * @return the results of the mapping in the order of the items. The future is completed by the thread of the pool, so the
+   * caller has to switch back to its context if needed
+   */
+  public <T, R> CompletableFuture<List<R>> map(List<T> items, Function<T, R> mapper) {
+    int chunksCount = Math.max(1, Math.min(requestParallelism, items.size() / minChunkSize));
+    int chunkSize = (items.size() + chunksCount - 1) / chunksCount;
+    List<CompletableFuture<List<R>>> chunks = new ArrayList<>(chunksCount);
+    for (int from = 0; from < items.size(); from += chunkSize) {
+      List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+      chunks.add(CompletableFuture.supplyAsync(() -> mapChunk(chunk, mapper), executor));
+    }
+    return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+      .thenApply(v -> {
+        List<R> results = new ArrayList<>(items.size());
+        chunks.forEach(chunk -> results.addAll(chunk.join()));
+        return results;
+      });
+  }
+
+  /**
+   * Maps the items in parallel by windows and passes the results of each window to the consumer in the order of the items. The
+   * next window is mapped while the results of the previous one are consumed, so the results of at most two windows are held in
+   * memory instead of the results of all the items. The window is the number of items split into the maximum number of chunks of
+   * the minimum size, i.e. {@code mapping.requestParallelism * mapping.minChunkSize}.
+   * @param items the items to map
+   * @param mapper maps one item, might be blocking
+   * @param consumer consumes the items of one window and their results, it is called for the windows one after another
+   * @param consumerExecutor the executor the consumer is run on
+   * @return the future completed once the results of all the windows are consumed
+   */
+  public <T, R> CompletableFuture<Void> mapByWindows(List<T> items, Function<T, R> mapper,
+                                                    BiConsumer<List<T>, List<R>> consumer, Executor consumerExecutor) {
+    if (items.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    int windowSize = requestParallelism * minChunkSize;
+    return consumeWindows(items, 0, windowSize, map(getWindow(items, 0, windowSize), mapper), mapper, consumer,
+      consumerExecutor);
+  }
+
+  private <T, R> CompletableFuture<Void> consumeWindows(List<T> items, int from, int windowSize,
+                                                        CompletableFuture<List<R>> mapped, Function<T, R> mapper,
+                                                        BiConsumer<List<T>, List<R>> consumer, Executor consumerExecutor) {
+    return mapped.thenComposeAsync(results -> {
+      int next = from + windowSize;
+      CompletableFuture<List<R>> nextMapped = next < items.size() ? map(getWindow(items, next, windowSize), mapper) : null;
+      consumer.accept(getWindow(items, from, windowSize), results);
+      return nextMapped == null
+        ? CompletableFuture.<Void>completedFuture(null)
+        : consumeWindows(items, next, windowSize, nextMapped, mapper, consumer, consumerExecutor);
+    }, consumerExecutor);
+  }
+
+  private <T> List<T> getWindow(List<T> items, int from, int windowSize) {
+    return items.subList(from, Math.min(from + windowSize, items.size()));
+  }
+
+  private <T, R> List<R> mapChunk(List<T> chunk, Function<T, R> mapper) {
+    List<R> results = new ArrayList<>(chunk.size());
+    for (T item : chunk) {
+      results.add(mapper.apply(item));
+    }
+    return results;
+  }
+}
@@ -0,0 +1,314 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.folio.rest.tools.client.Response;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory store of the pages which are fetched from the storage in background once resumptionToken is issued, so the next
+ * list request of the harvester is served mostly from memory. The pages are kept by resumptionToken until the next request
+ * takes them or they expire. The store is bounded by the number of pages and by their estimated size, the oldest pages are
+ * evicted first. The number of pages fetched at the same time is limited as well, so the prefetch is skipped rather than
+ * queued if the limit is reached.
+ * <br/>
+ * The cache is bounded by {@code prefetch.maxEntries} pages and {@code prefetch.maxSize} megabytes, the pages expire after
+ * {@code prefetch.ttl} seconds and up to {@code prefetch.maxInFlight} pages are fetched at the same time. The counters of the cache are logged by {@link MetricsLogger}.
+ */
+public class PrefetchCache {
+  private static final Logger logger = LoggerFactory.getLogger(PrefetchCache.class);
+
+  private static final PrefetchCache instance = new PrefetchCache(
+    Integer.parseInt(System.getProperty("prefetch.maxEntries", "100")),
+    Long.parseLong(System.getProperty("prefetch.maxSize", "64")) * 1024 * 1024,
+    TimeUnit.SECONDS.toMillis(Long.parseLong(System.getProperty("prefetch.ttl", "60"))),
+    Integer.parseInt(System.getProperty("prefetch.maxInFlight", "10")));
+
+  private final int maxEntries;
+  private final long maxSize;
+  private final long ttl;
+  private final int maxInFlight;
+  /* The pages are kept in the order they are requested, so the oldest ones are evicted first */
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private long size;
+  private int inFlightCount;
+
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictedCount = new AtomicLong();
+  private final AtomicLong skippedCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+
+  /**
+   * @param maxEntries the maximum number of pages
+   * @param maxSize the maximum estimated size of the pages in bytes
+   * @param ttl the time in milliseconds after which not requested page is evicted
+   * @param maxInFlight the maximum number of pages fetched at the same time
+   */
+  PrefetchCache(int maxEntries, long maxSize, long ttl, int maxInFlight) {
+    this.maxEntries = maxEntries;
+    this.maxSize = maxSize;
+    this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+    this.maxInFlight = maxInFlight;
+  }
+
+  public static PrefetchCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Starts fetching the page unless it is already fetched or the limits do not allow to fetch one more page
+   * @param key the tenant and resumptionToken of the next request
+   * @param endpoint the storage endpoint the page is requested from
+   * @param loader the supplier which starts fetching the page
+   * @return {@code true} if the page is being fetched
+   */
+  public boolean prefetch(String key, String endpoint, Supplier<CompletableFuture<Page>> loader) {
+    Entry entry;
+    synchronized (this) {
+      evictExpired();
+      if (entries.containsKey(key)) {
+        return true;
+      }
+      if (inFlightCount >= maxInFlight || maxEntries <= 0) {
+        skippedCount.incrementAndGet();
+        return false;
+      }
+      while (entries.size() >= maxEntries) {
+        evictOldest();
+      }
+      entry = new Entry(endpoint);
+      entries.put(key, entry);
+      inFlightCount++;
+    }
+
+    CompletableFuture<Page> future;
+    try {
+      future = loader.get();
+    } catch (Exception e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+    future.whenComplete((page, e) -> {
+      completed(key, entry, page, e);
+      if (e != null) {
+        entry.page.completeExceptionally(e);
+      } else {
+        entry.page.complete(page);
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Takes the page fetched for the request, so the page is served only once
+   * @param key the tenant and resumptionToken of the request
+   * @param endpoint the storage endpoint the request needs the page from
+   * @return the page which might be still being fetched or {@code null} if there is no page fetched from the endpoint
+   */
+  public CompletableFuture<Page> take(String key, String endpoint) {
+    Entry entry;
+    synchronized (this) {
+      evictExpired();
+      entry = entries.remove(key);
+      if (entry != null) {
+        size -= entry.size;
+      }
+    }
+    if (entry == null || !entry.endpoint.equals(endpoint)) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    return entry.page;
+  }
+
+  private void completed(String key, Entry entry, Page page, Throwable e) {
+    synchronized (this) {
+      inFlightCount--;
+      if (entries.get(key) != entry) {
+        // The page is already taken or evicted
+        return;
+      }
+      if (e != null) {
+        entries.remove(key);
+      } else {
+        entry.size = page.getSize();
+        size += entry.size;
+        while (size > maxSize && !entries.isEmpty()) {
+          evictOldest();
+        }
+      }
+    }
+    if (e != null) {
+      failedCount.incrementAndGet();
+      logger.warn("The next page cannot be prefetched.", e);
+    }
+  }
+
+  private void evictExpired() {
+    long now = System.nanoTime();
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (now - entry.createdTime < ttl) {
+        return;
+      }
+      iterator.remove();
+      size -= entry.size;
+      evictedCount.incrementAndGet();
+    }
+  }
+
+  private void evictOldest() {
+    Iterator<Entry> iterator = entries.values().iterator();
+    Entry entry = iterator.next();
+    iterator.remove();
+    size -= entry.size;
+    evictedCount.incrementAndGet();
+  }
+
+  /**
+   * @return number of requests served by prefetched page
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return number of restored requests for which no page was prefetched
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * @return number of pages evicted because of time to live, number or size limits before they were requested
+   */
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  /**
+   * @return number of pages not prefetched because too many pages were being fetched at the same time
+   */
+  public long getSkippedCount() {
+    return skippedCount.get();
+  }
+
+  /**
+   * @return number of pages which could not be fetched
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * @return current number of pages
+   */
+  public synchronized int getEntriesCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return current estimated size of the fetched pages in bytes
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("Prefetch cache: pages=%d, size=%d bytes, in flight=%d, hits=%d, misses=%d, evicted=%d, skipped=%d, "
+      + "failed=%d", entries.size(), size, inFlightCount, getHitCount(), getMissCount(), getEvictedCount(), getSkippedCount(),
+      getFailedCount());
+  }
+
+  /**
+   * The page of storage items and the sources of the records fetched along with the page
+   */
+  public static class Page {
+    private final Response response;
+    private final Map<String, JsonObject> sources;
+    private final long size;
+
+    /**
+     * @param response the storage response with the items
+     * @param sources {@link Map} with storage id as key and record source as value
+     */
+    public Page(Response response, Map<String, JsonObject> sources) {
+      this.response = response;
+      this.sources = sources;
+      long responseSize = response instanceof StreamingStorageClient.StreamedResponse
+        ? ((StreamingStorageClient.StreamedResponse) response).getBodySize()
+        : estimateSize(response.getBody());
+      this.size = responseSize + sources.values().stream().mapToLong(Page::estimateSize).sum();
+    }
+
+    /**
+     * The page which is not kept in memory, e.g. fetched by the request itself
+     */
+    public Page(Response response) {
+      this.response = response;
+      this.sources = Collections.emptyMap();
+      this.size = 0;
+    }
+
+    /**
+     * Estimates the size of the value encoded as JSON by the length of its names and text values, so the value is not
+     * serialized only to be measured
+     */
+    private static long estimateSize(Object value) {
+      long size;
+      if (value instanceof JsonObject) {
+        size = 2;
+        for (Map.Entry<String, Object> field : (JsonObject) value) {
+          size += field.getKey().length() + 4 + estimateSize(field.getValue());
+        }
+      } else if (value instanceof JsonArray) {
+        size = 2;
+        for (Object item : (JsonArray) value) {
+          size += estimateSize(item) + 1;
+        }
+      } else if (value instanceof CharSequence) {
+        size = ((CharSequence) value).length() + 2L;
+      } else {
+        size = value == null ? 0 : 8;
+      }
+      return size;
+    }
+
+    public Response getResponse() {
+      return response;
+    }
+
+    public Map<String, JsonObject> getSources() {
+      return sources;
+    }
+
+    public long getSize() {
+      return size;
+    }
+  }
+
+  private static class Entry {
+    private final String endpoint;
+    private final long createdTime = System.nanoTime();
+    private final CompletableFuture<Page> page = new CompletableFuture<>();
+    private long size;
+
+    private Entry(String endpoint) {
+      this.endpoint = endpoint;
+    }
+  }
+}
@@ -5,15 +5,20 @@ import static org.folio.oaipmh.Constants.OKAPI_TENANT;
 import static org.folio.oaipmh.Constants.OKAPI_TOKEN;
 import static org.folio.oaipmh.Constants.OKAPI_URL;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.folio.oaipmh.TenantConfig;
 import org.folio.oaipmh.helpers.configuration.ConfigurationHelper;
 import org.folio.rest.client.ConfigurationsClient;
 
 import io.vertx.core.Context;
-import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
@@ -29,21 +34,86 @@ public class RepositoryConfigurationUtil {
 
   private static final String QUERY = "module==OAIPMH";
 
+  private static final long DEFAULT_CACHE_TTL = 60;
+  private static final long LOADING_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
   private static ConfigurationHelper configurationHelper = ConfigurationHelper.getInstance();
 
+  private static final Map<String, CachedConfiguration> configurations = new ConcurrentHashMap<>();
+
+  private static volatile Map<String, TenantConfig> tenantConfigs = Collections.emptyMap();
+
   /**
-   * Retrieve configuration for mod-oai-pmh from mod-configuration and puts these properties into context.
+   * Retrieve configuration for mod-oai-pmh from mod-configuration and publishes the snapshot of the configuration of the tenant,
+   * so it is available by {@link #getTenantConfig(String)}. The configuration is cached per Okapi URL and tenant for
+   * {@code configuration.cacheTtl} seconds, so it is not requested for each OAI-PMH request. Once the time to live is over, the
+   * cached configuration is still used while it is refreshed in background. Concurrent requests of the same configuration are
+   * coalesced into one request to mod-configuration.
    * @param okapiHeaders
    * @param ctx the context
-   * @return empty CompletableFuture
+   * @return CompletableFuture with the snapshot of the configuration of the tenant. If the configuration cannot be retrieved,
+   * the previous snapshot of the tenant is returned if there is any
    */
-  public static CompletableFuture<Void> loadConfiguration(Map<String, String> okapiHeaders, Context ctx) {
+  public static CompletableFuture<TenantConfig> loadConfiguration(Map<String, String> okapiHeaders, Context ctx) {
 
     String okapiURL = StringUtils.trimToEmpty(okapiHeaders.get(OKAPI_URL));
     String tenant = okapiHeaders.get(OKAPI_TENANT);
     String token = okapiHeaders.get(OKAPI_TOKEN);
 
-    CompletableFuture<Void> future = new VertxCompletableFuture<>(ctx);
+    CachedConfiguration cached = configurations.computeIfAbsent(okapiURL + '|' + tenant, key -> new CachedConfiguration());
+    JsonObject config;
+    boolean expired;
+    synchronized (cached) {
+      config = cached.config;
+      expired = System.nanoTime() - cached.loadedTime >= TimeUnit.SECONDS.toNanos(getCacheTtl());
+    }
+
+    if (config == null) {
+      return VertxCompletableFuture.from(ctx, refreshConfiguration(cached, okapiURL, tenant, token))
+        .thenApply(loadedConfig -> publishTenantConfig(tenant, loadedConfig));
+    }
+    if (expired) {
+      refreshConfiguration(cached, okapiURL, tenant, token);
+    }
+    CompletableFuture<TenantConfig> future = new VertxCompletableFuture<>(ctx);
+    future.complete(publishTenantConfig(tenant, config));
+    return future;
+  }
+
+  /**
+   * Requests configuration unless it is already being requested. The request which takes too long (e.g. mod-configuration
+   * never responded) is not waited for anymore, so the configuration is requested again.
+   * @return the configuration or {@code null} if it cannot be retrieved
+   */
+  private static CompletableFuture<JsonObject> refreshConfiguration(CachedConfiguration cached, String okapiURL, String tenant,
+                                                                     String token) {
+    CompletableFuture<JsonObject> loading;
+    synchronized (cached) {
+      if (cached.loading != null && System.nanoTime() - cached.loadingStartTime < LOADING_TIMEOUT) {
+        return cached.loading;
+      }
+      loading = new CompletableFuture<>();
+      cached.loading = loading;
+      cached.loadingStartTime = System.nanoTime();
+    }
+    requestConfiguration(okapiURL, tenant, token).thenAccept(config -> {
+      synchronized (cached) {
+        // The previous configuration is kept if the new one cannot be retrieved
+        if (config != null) {
+          cached.config = config;
+          cached.loadedTime = System.nanoTime();
+        }
+        if (cached.loading == loading) {
+          cached.loading = null;
+        }
+      }
+      loading.complete(config);
+    });
+    return loading;
+  }
+
+  private static CompletableFuture<JsonObject> requestConfiguration(String okapiURL, String tenant, String token) {
+    CompletableFuture<JsonObject> future = new CompletableFuture<>();
     try {
       ConfigurationsClient configurationsClient = new ConfigurationsClient(okapiURL, tenant, token, false);
 
@@ -66,14 +136,7 @@ public class RepositoryConfigurationUtil {
             .map(configurationHelper::getConfigKeyValueMapFromJsonEntryValueField)
             .forEach(configKeyValueMap -> configKeyValueMap.forEach(config::put));
 
-          JsonObject tenantConfig = ctx.config().getJsonObject(tenant);
-          if (tenantConfig != null) {
-            tenantConfig.mergeIn(config);
-          } else {
-            ctx.config().put(tenant, config);
-          }
-
-          future.complete(null);
+          future.complete(config);
         } catch (Exception e) {
           logger.error("Error getting configuration for {} tenant", e, tenant);
           future.complete(null);
@@ -87,19 +150,57 @@ public class RepositoryConfigurationUtil {
   }
 
   /**
-   * Gets value of the config either from shared config or from System properties as a fallback.
+   * Creates the snapshot of the configuration and replaces the snapshot of the tenant with it unless they are equal. The
+   * snapshot is created each time since System properties used as a fallback might be changed as well (e.g. on tenant init).
+   * @param config the configuration retrieved from mod-configuration or {@code null} if it cannot be retrieved
+   * @return the current snapshot of the configuration of the tenant
+   */
+  static TenantConfig publishTenantConfig(String tenant, JsonObject config) {
+    if (config == null) {
+      return getTenantConfig(tenant);
+    }
+    TenantConfig tenantConfig = TenantConfig.of(config);
+    if (tenantConfig.equals(tenantConfigs.get(tenant))) {
+      return tenantConfigs.get(tenant);
+    }
+    synchronized (RepositoryConfigurationUtil.class) {
+      // The registry is copied on write, so the readers always see consistent snapshots without locking
+      Map<String, TenantConfig> configs = new HashMap<>(tenantConfigs);
+      configs.put(tenant, tenantConfig);
+      tenantConfigs = Collections.unmodifiableMap(configs);
+    }
+    return tenantConfig;
+  }
+
+  /**
+   * Gets the last published snapshot of the configuration of the tenant
+   * @param tenant tenant
+   * @return the snapshot or the one with System properties only if the configuration of the tenant has not been loaded yet
+   */
+  public static TenantConfig getTenantConfig(String tenant) {
+    TenantConfig tenantConfig = tenantConfigs.get(tenant);
+    return tenantConfig != null ? tenantConfig : TenantConfig.of(null);
+  }
+
+  private static long getCacheTtl() {
+    return NumberUtils.toLong(System.getProperty("configuration.cacheTtl"), DEFAULT_CACHE_TTL);
+  }
+
+  /**
+   * Gets value of the config either from the configuration of the tenant or from System properties as a fallback.
+   * The request processing should use the typed values of {@link org.folio.oaipmh.Request#getTenantConfig()} instead.
    * @param tenant tenant
    * @param name config key
-   * @return value of the config either from shared config if present. Or from System properties as fallback.
+   * @return value of the config either from the configuration of the tenant if present. Or from System properties as fallback.
    */
   public static String getProperty(String tenant, String name) {
-    JsonObject configs = Vertx.currentContext().config().getJsonObject(tenant);
-    String defaultValue = System.getProperty(name);
-
-    if (configs != null) {
-      return configs.getString(name, defaultValue);
-    }
+    return getTenantConfig(tenant).getProperty(name);
+  }
 
-    return defaultValue;
+  private static class CachedConfiguration {
+    private JsonObject config;
+    private long loadedTime;
+    private CompletableFuture<JsonObject> loading;
+    private long loadingStartTime;
   }
 }
@@ -0,0 +1,172 @@
+package org.folio.oaipmh.helpers;
+
+import org.folio.oaipmh.Request;
+import org.folio.oaipmh.ResponseHelper;
+import org.folio.oaipmh.TenantConfig;
+import org.openarchives.oai._2.OAIPMH;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.folio.oaipmh.Constants.OKAPI_TENANT;
+
+/**
+ * Cache of the serialized responses which depend only on the configuration of the tenant (i.e. Identify, ListSets and
+ * ListMetadataFormats without identifier), so such responses are not built and marshalled for each request. The response is
+ * kept per tenant and verb along with the snapshot of the configuration it is built with, and it is rebuilt once the
+ * configuration of the tenant changes. Only the responseDate of the cached response is replaced for each request.
+ * <br/>
+ * Each cached response has the entity tag, so the client which already holds the response can be answered with 304 without
+ * the body. The last modified date is not sent since the time the data the response is built from has changed is not known
+ * (the response is only rebuilt once the change is noticed, e.g. after restart of the module), so the entity tag is the only
+ * validator of the response.
+ */
+public class ResponseCache {
+  private static final ResponseCache instance = new ResponseCache();
+
+  private static final String RESPONSE_DATE_ELEMENT = "responseDate>";
+
+  private final Map<String, CachedResponse> responses = new ConcurrentHashMap<>();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  public static ResponseCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Gets the cached response of the tenant and verb of the request or builds it if there is no response built with the same
+   * configuration of the tenant
+   * @param request the request to get the tenant, verb and configuration from
+   * @param responseBuilder builds the response if there is no cached one
+   * @return the cached response
+   */
+  public CachedResponse get(Request request, Supplier<OAIPMH> responseBuilder) {
+    return get(request, null, responseBuilder);
+  }
+
+  /**
+   * Gets the cached response of the tenant and verb of the request or builds it if there is no response built with the same
+   * configuration of the tenant and the same value the response depends on besides the configuration
+   * @param request the request to get the tenant, verb and configuration from
+   * @param dependency the value which the response depends on besides the configuration (e.g. the earliest datestamp)
+   * @param responseBuilder builds the response if there is no cached one
+   * @return the cached response
+   */
+  public CachedResponse get(Request request, Object dependency, Supplier<OAIPMH> responseBuilder) {
+    String key = request.getOkapiHeaders().get(OKAPI_TENANT) + '|' + request.getVerb();
+    TenantConfig config = request.getTenantConfig();
+    CachedResponse response = responses.get(key);
+    if (response != null && response.config.equals(config) && Objects.equals(response.dependency, dependency)) {
+      hitCount.incrementAndGet();
+    } else {
+      missCount.incrementAndGet();
+      response = new CachedResponse(config, dependency, ResponseHelper.getInstance().writeToString(responseBuilder.get()));
+      responses.put(key, response);
+    }
+    return response;
+  }
+
+  /**
+   * @return number of requests served by already built response
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return number of times the response was built because there was no response or the configuration had changed (or
+   * the value the response depends on)
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /**
+   * The response serialized once and split around the value of responseDate element
+   */
+  public static class CachedResponse {
+    private final TenantConfig config;
+    private final Object dependency;
+    private final String beforeResponseDate;
+    private final String afterResponseDate;
+    private final String entityTag;
+
+    CachedResponse(TenantConfig config, Object dependency, String response) {
+      this.config = config;
+      this.dependency = dependency;
+      int start = response.indexOf(RESPONSE_DATE_ELEMENT);
+      int end = start < 0 ? -1 : response.indexOf('<', start);
+      if (end < 0) {
+        beforeResponseDate = response;
+        afterResponseDate = null;
+      } else {
+        beforeResponseDate = response.substring(0, start + RESPONSE_DATE_ELEMENT.length());
+        afterResponseDate = response.substring(end);
+      }
+      // The response differs by responseDate only, so the entity tag is weak
+      entityTag = "W/\"" + digest(beforeResponseDate, afterResponseDate) + '"';
+    }
+
+    private static String digest(String... parts) {
+      try {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        for (String part : parts) {
+          if (part != null) {
+            messageDigest.update(part.getBytes(StandardCharsets.UTF_8));
+          }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(messageDigest.digest());
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    /**
+     * @return the response with the current responseDate
+     */
+    public String getBody() {
+      if (afterResponseDate == null) {
+        return beforeResponseDate;
+      }
+      // According to spec the nanoseconds should not be used so truncate to seconds
+      return beforeResponseDate + Instant.now().truncatedTo(ChronoUnit.SECONDS) + afterResponseDate;
+    }
+
+    public String getEntityTag() {
+      return entityTag;
+    }
+
+    /**
+     * Checks if the client already holds the response
+     * @param ifNoneMatch value of If-None-Match header of the request
+     * @return {@code true} if any of the entity tags matches the one of the response
+     */
+    public boolean isNotModified(String ifNoneMatch) {
+      if (ifNoneMatch == null) {
+        return false;
+      }
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        // Weak comparison is used for If-None-Match
+        if ("*".equals(tag) || stripWeakPrefix(tag).equals(stripWeakPrefix(entityTag))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static String stripWeakPrefix(String tag) {
+      return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+  }
+}
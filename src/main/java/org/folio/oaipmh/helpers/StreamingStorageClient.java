@@ -0,0 +1,126 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import org.folio.oaipmh.helpers.storage.StorageResponseParser;
+import org.folio.rest.tools.client.Response;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.folio.oaipmh.Constants.OKAPI_URL;
+
+/**
+ * Client which requests the list of the storage items and parses the response incrementally while it is received (see
+ * {@link StorageResponseParser}), so neither the whole response nor the parts of the items which are not needed are held in
+ * memory at once. The parsed items are collected into the response, which is returned once the whole response is received in
+ * the same form as {@link org.folio.rest.tools.client.interfaces.HttpClientInterface} returns it. One client with keep-alive connections is shared by all the requests of the Vert.x instance and is kept in the
+ * local shared data of the instance, so it is released along with the instance.
+ * <br/>
+ * The client opens up to {@code storage.client.maxPoolSize} connections per Okapi host, and its request fails once no data is
+ * received from the storage for {@code storage.client.timeout} seconds.
+ */
+public class StreamingStorageClient implements Shareable {
+  private static final Logger logger = LoggerFactory.getLogger(StreamingStorageClient.class);
+
+  private static final String CLIENTS_MAP = "oai-streaming-storage-clients";
+  private static final String CLIENT = "client";
+  private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(Long.parseLong(System.getProperty("storage.client.timeout",
+    "60")));
+
+  private final HttpClient httpClient;
+
+  private StreamingStorageClient(HttpClient httpClient) {
+    this.httpClient = httpClient;
+  }
+
+  public static StreamingStorageClient getInstance(Vertx vertx) {
+    LocalMap<String, StreamingStorageClient> clients = vertx.sharedData().getLocalMap(CLIENTS_MAP);
+    StreamingStorageClient client = clients.get(CLIENT);
+    if (client != null) {
+      return client;
+    }
+    synchronized (StreamingStorageClient.class) {
+      client = clients.get(CLIENT);
+      if (client == null) {
+        client = new StreamingStorageClient(vertx.createHttpClient(new HttpClientOptions()
+          .setKeepAlive(true)
+          .setTryUseCompression(true)
+          .setMaxPoolSize(Integer.parseInt(System.getProperty("storage.client.maxPoolSize", "20")))));
+        clients.put(CLIENT, client);
+      }
+      return client;
+    }
+  }
+
+  /**
+   * Requests the list of the storage items
+   * @param endpoint the endpoint of the storage relative to Okapi URL
+   * @param okapiHeaders Okapi headers of the OAI-PMH request
+   * @param itemsName the name of the items array of the response
+   * @param itemMapper the function applied to each item once it is parsed
+   * @return the response of the storage with parsed body if the request is successful or with error otherwise. The future is
+   * completed exceptionally if the storage does not send any data within the timeout
+   */
+  public CompletableFuture<Response> request(String endpoint, Map<String, String> okapiHeaders, String itemsName,
+                                             UnaryOperator<JsonObject> itemMapper) {
+    CompletableFuture<Response> future = new CompletableFuture<>();
+    HttpClientRequest request = httpClient.getAbs(okapiHeaders.get(OKAPI_URL) + endpoint, httpResponse -> {
+      httpResponse.exceptionHandler(future::completeExceptionally);
+      StreamedResponse response = new StreamedResponse();
+      response.setCode(httpResponse.statusCode());
+      if (!Response.isSuccess(httpResponse.statusCode())) {
+        httpResponse.bodyHandler(body -> {
+          response.populateError(endpoint, httpResponse.statusCode(), body.toString());
+          future.complete(response);
+        });
+        return;
+      }
+      StorageResponseParser parser = new StorageResponseParser(itemsName, itemMapper);
+      httpResponse.handler(parser::write);
+      httpResponse.endHandler(v -> {
+        try {
+          response.setBody(parser.end());
+          response.bodySize = parser.getSize();
+          future.complete(response);
+        } catch (Exception e) {
+          logger.error("Response of " + endpoint + " cannot be parsed.", e);
+          future.completeExceptionally(e);
+        }
+      });
+    });
+    request.exceptionHandler(e -> {
+      logger.error("Request of " + endpoint + " failed.", e);
+      future.completeExceptionally(e);
+    });
+    // The storage which stalls fails the request instead of leaving it pending
+    request.setTimeout(TIMEOUT);
+    okapiHeaders.forEach(request::putHeader);
+    request.putHeader("Accept", "application/json");
+    request.end();
+    return future;
+  }
+
+  /**
+   * The response which holds the number of bytes of the body received from the storage
+   */
+  public static class StreamedResponse extends Response {
+    private long bodySize;
+
+    /**
+     * @return the number of bytes of the body received from the storage
+     */
+    public long getBodySize() {
+      return bodySize;
+    }
+  }
+}
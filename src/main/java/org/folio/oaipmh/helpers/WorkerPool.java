@@ -0,0 +1,156 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import me.escoffier.vertx.completablefuture.VertxCompletableFuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Named pool of worker threads dedicated to one kind of blocking work. The metadata conversion and the XML serialization run on
+ * their own pools instead of the default worker pool of Vert.x, so a backlog of one of them does not delay the other work and
+ * the pools can be sized independently. The pool tracks the number of the tasks waiting for a thread and being run.
+ * <br/>
+ * The pools are kept in the local shared data of the Vert.x instance, so they are released along with the instance.
+ * <br/>
+ * The mapping and serialization pools have {@code mapping.poolSize} and {@code serialization.poolSize} threads respectively.
+ */
+public class WorkerPool implements Executor, Shareable {
+  private static final Logger logger = LoggerFactory.getLogger(WorkerPool.class);
+
+  public static final String MAPPING_POOL = "oai-mapping";
+  public static final String SERIALIZATION_POOL = "oai-serialization";
+
+  private static final String POOLS_MAP = "oai-worker-pools";
+
+  private final String name;
+  private final int poolSize;
+  private final WorkerExecutor workerExecutor;
+  private final AtomicInteger queueLength = new AtomicInteger();
+  private final AtomicInteger activeCount = new AtomicInteger();
+  private final AtomicLong completedCount = new AtomicLong();
+  private final AtomicLong totalWaitTime = new AtomicLong();
+
+  WorkerPool(String name, int poolSize, WorkerExecutor workerExecutor) {
+    this.name = name;
+    this.poolSize = poolSize;
+    this.workerExecutor = workerExecutor;
+  }
+
+  /**
+   * @return the pool the metadata of the records is converted on
+   */
+  public static WorkerPool getMappingPool(Vertx vertx) {
+    return getInstance(vertx, MAPPING_POOL, Integer.parseInt(System.getProperty("mapping.poolSize",
+      String.valueOf(Runtime.getRuntime().availableProcessors()))));
+  }
+
+  /**
+   * @return the pool the responses are serialized to XML on
+   */
+  public static WorkerPool getSerializationPool(Vertx vertx) {
+    return getInstance(vertx, SERIALIZATION_POOL, Integer.parseInt(System.getProperty("serialization.poolSize",
+      String.valueOf(Runtime.getRuntime().availableProcessors()))));
+  }
+
+  private static WorkerPool getInstance(Vertx vertx, String name, int poolSize) {
+    LocalMap<String, WorkerPool> pools = vertx.sharedData().getLocalMap(POOLS_MAP);
+    WorkerPool pool = pools.get(name);
+    if (pool != null) {
+      return pool;
+    }
+    synchronized (WorkerPool.class) {
+      pool = pools.get(name);
+      if (pool == null) {
+        pool = new WorkerPool(name, poolSize, vertx.createSharedWorkerExecutor(name, poolSize));
+        pools.put(name, pool);
+      }
+      return pool;
+    }
+  }
+
+  /**
+   * Runs the task on the pool. The tasks are not ordered, so they run in parallel as soon as there is a free thread.
+   */
+  @Override
+  public void execute(Runnable task) {
+    long queuedAt = System.nanoTime();
+    queueLength.incrementAndGet();
+    workerExecutor.executeBlocking(promise -> {
+      queueLength.decrementAndGet();
+      activeCount.incrementAndGet();
+      totalWaitTime.addAndGet(System.nanoTime() - queuedAt);
+      try {
+        task.run();
+        promise.complete();
+      } finally {
+        activeCount.decrementAndGet();
+        completedCount.incrementAndGet();
+      }
+    }, false, result -> {
+      if (result.failed()) {
+        logger.error("Task failed on " + name + " pool.", result.cause());
+      }
+    });
+  }
+
+  /**
+   * Runs the supplier on the pool
+   * @return the future completed with the result of the supplier on the given context
+   */
+  public <T> CompletableFuture<T> supplyAsync(Context ctx, Supplier<T> supplier) {
+    return VertxCompletableFuture.from(ctx, CompletableFuture.supplyAsync(supplier, this));
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * @return the number of the tasks waiting for a free thread of the pool
+   */
+  public int getQueueLength() {
+    return queueLength.get();
+  }
+
+  /**
+   * @return the number of the threads of the pool which are running the tasks
+   */
+  public int getActiveCount() {
+    return activeCount.get();
+  }
+
+  /**
+   * @return the number of the tasks completed by the pool
+   */
+  public long getCompletedCount() {
+    return completedCount.get();
+  }
+
+  /**
+   * @return the total time in milliseconds the tasks have been waiting for a free thread of the pool
+   */
+  public long getTotalWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(totalWaitTime.get());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s pool: size=%d, queued=%d, active=%d, completed=%d, total wait=%dms", name, poolSize,
+      getQueueLength(), getActiveCount(), getCompletedCount(), getTotalWaitTime());
+  }
+}
@@ -2,7 +2,7 @@ package org.folio.oaipmh.helpers.storage;
 
 import io.vertx.core.json.JsonObject;
 import org.folio.oaipmh.Request;
-import org.folio.oaipmh.helpers.RepositoryConfigurationUtil;
+import org.folio.oaipmh.TenantConfig;
 
 import java.io.UnsupportedEncodingException;
 import java.time.Instant;
@@ -11,12 +11,15 @@ import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
-import static org.folio.oaipmh.Constants.OKAPI_TENANT;
-import static org.folio.oaipmh.Constants.REPOSITORY_MAX_RECORDS_PER_RESPONSE;
 
 public abstract class AbstractStorageHelper implements StorageHelper {
 
+  private static final String UPDATED_DATE = "metadata.updatedDate";
+  static final String METADATA = "metadata";
+
   /**
    * The dates returned by inventory storage service are in format "2018-09-19T02:52:08.873+0000".
    * Using {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} and just in case 2 offsets "+HHmm" and "+HH:MM"
@@ -36,7 +39,7 @@ public abstract class AbstractStorageHelper implements StorageHelper {
   @Override
   public Instant getLastModifiedDate(JsonObject record) {
     // Get metadat described by ramls/raml-util/schemas/metadata.schema
-    JsonObject metadata = record.getJsonObject("metadata");
+    JsonObject metadata = record.getJsonObject(METADATA);
     Instant datetime = Instant.EPOCH;
     if (metadata != null) {
       Optional<String> date = Optional.ofNullable(metadata.getString("updatedDate"));
@@ -61,12 +64,79 @@ public abstract class AbstractStorageHelper implements StorageHelper {
         .dateRange(request.getFrom(), request.getUntil());
     }
 
+    TenantConfig config = request.getTenantConfig();
+    int offset = request.getOffset();
+    if (isEmpty(request.getIdentifier()) && config.isCursorPagination()) {
+      // The next page is searched right after the last record of the previous one, so each page costs the same regardless of offset
+      if (request.getLastRecordId() != null) {
+        queryBuilder
+          .and()
+          .seekAfter(UPDATED_DATE, request.getLastUpdatedDate(), getIdentifierName(), request.getLastRecordId());
+        offset = 0;
+      }
+      queryBuilder.sortBy(UPDATED_DATE, getIdentifierName());
+    }
+
     // one extra record is required to check if resumptionToken is good
-    int limit = Integer.parseInt(RepositoryConfigurationUtil.getProperty
-      (request.getOkapiHeaders().get(OKAPI_TENANT), REPOSITORY_MAX_RECORDS_PER_RESPONSE)) + 1;
-    return queryBuilder.build()
+    int limit = config.getMaxRecordsPerResponse() + 1;
+    String query = queryBuilder.build()
       + "&limit=" + limit
-      + "&offset=" + request.getOffset();
+      + "&offset=" + offset;
+    return isEmpty(request.getIdentifier()) ? query + getTotalRecordsParam(request) : query;
+  }
+
+  /**
+   * Builds the parameter which asks the storage not to count the records exactly if the exact count is not required. The storage
+   * which does not support the parameter ignores it.
+   */
+  private String getTotalRecordsParam(Request request) {
+    if (request.isHarvestSessionRestored()) {
+      // The number of records is kept by the harvest session since its first request
+      return "&totalRecords=none";
+    }
+    switch (request.getTenantConfig().getTotalRecords()) {
+      case ESTIMATED:
+        return "&totalRecords=estimated";
+      case SESSION:
+        // The records are counted by the first request of the harvest only
+        return request.isRestored() ? "&totalRecords=none" : EMPTY;
+      default:
+        return EMPTY;
+    }
+  }
+
+  /**
+   * Builds the query of the record modified first. The records suppressed from discovery are not excluded since the earliest
+   * datestamp is only the lower limit of the datestamps of the repository.
+   */
+  protected String buildEarliestRecordQuery() throws UnsupportedEncodingException {
+    CQLQueryBuilder queryBuilder = new CQLQueryBuilder();
+    addSource(queryBuilder);
+    queryBuilder.sortBy(UPDATED_DATE);
+    return queryBuilder.build() + "&limit=1&offset=0";
+  }
+
+  @Override
+  public String getUpdatedDate(JsonObject record) {
+    JsonObject metadata = record.getJsonObject(METADATA);
+    if (metadata == null) {
+      return null;
+    }
+    // No fallback to createdDate since the value is compared with updatedDate the records are sorted by
+    return metadata.getString("updatedDate");
+  }
+
+  /**
+   * Copies the fields of the entry which are present to the new object
+   */
+  protected JsonObject copyFields(JsonObject entry, String... names) {
+    JsonObject copy = new JsonObject();
+    for (String name : names) {
+      if (entry.containsKey(name)) {
+        copy.put(name, entry.getValue(name));
+      }
+    }
+    return copy;
   }
 
   abstract String getIdentifierName();
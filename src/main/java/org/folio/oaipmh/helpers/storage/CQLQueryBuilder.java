@@ -6,6 +6,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Collection;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.folio.oaipmh.Constants.ISO_UTC_DATE_TIME;
@@ -44,6 +45,48 @@ public class CQLQueryBuilder {
     return this;
   }
 
+  /**
+   * Adds a statement to search by key matching any of the values to the query, i.e. {@code key==("value1" or "value2")}.
+   *
+   * @param key the condition to search by
+   * @param values the values of the condition to search by
+   * @return {@link CQLQueryBuilder}
+   */
+  public CQLQueryBuilder addAnyOfCriteria(String key, Collection<String> values) {
+    builder.append(String.format("%s==(\"%s\")", key, String.join("\" or \"", values)));
+    return this;
+  }
+
+  /**
+   * Adds a statement to search for the records following the specified one in the order of sort keys, i.e.
+   * {@code (dateKey>"date" or (dateKey=="date" and idKey>"id"))}. Used to seek the next page of the records sorted by
+   * {@link #sortBy(String...)} with the same keys.
+   *
+   * @param dateKey the primary sort key
+   * @param date the value of the primary sort key of the last record
+   * @param idKey the unique secondary sort key
+   * @param id the value of the secondary sort key of the last record
+   * @return {@link CQLQueryBuilder}
+   */
+  public CQLQueryBuilder seekAfter(String dateKey, String date, String idKey, String id) {
+    builder.append(String.format("(%1$s>\"%2$s\" or (%1$s==\"%2$s\" and %3$s>\"%4$s\"))", dateKey, date, idKey, id));
+    return this;
+  }
+
+  /**
+   * Adds ascending sorting by the keys to the query. Should be called after all the statements are added.
+   *
+   * @param keys the keys to sort by
+   * @return {@link CQLQueryBuilder}
+   */
+  public CQLQueryBuilder sortBy(String... keys) {
+    builder.append(" sortBy");
+    for (String key : keys) {
+      builder.append(' ').append(key).append("/sort.ascending");
+    }
+    return this;
+  }
+
   /**
    * Adds a statement to search by date range (or just lower/upper bound) to the query.
    * The query is being updated with metadata.updatedDate checks only.
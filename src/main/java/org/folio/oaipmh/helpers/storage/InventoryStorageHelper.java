@@ -5,13 +5,27 @@ import io.vertx.core.json.JsonObject;
 import org.folio.oaipmh.Request;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.folio.oaipmh.helpers.storage.SourceRecordStorageHelper.SOURCE_STORAGE_RESULT_URI;
 
 public class InventoryStorageHelper extends AbstractStorageHelper {
 
   public static final String INSTANCES_URI = "/instance-storage/instances";
+  public static final String INSTANCE_URI = INSTANCES_URI + "/%s";
   public static final String MARC_JSON_RECORD_URI = "/instance-storage/instances/%s/source-record/marc-json";
 
   private static final String ID = "id";
+  private static final String INSTANCES = "instances";
+  private static final String SOURCE_RECORD_FORMAT = "sourceRecordFormat";
+  private static final String MARC_JSON_FORMAT = "MARC-JSON";
+  private static final String SOURCE_RECORDS = "sourceRecords";
+  private static final String EXTERNAL_INSTANCE_ID = "externalIdsHolder.instanceId";
+
+  /* The sources of several instances are searched in SRS, so they are read from its source records */
+  private static final SourceRecordStorageHelper sourceRecordStorageHelper = new SourceRecordStorageHelper();
 
   /**
    *
@@ -21,7 +35,17 @@ public class InventoryStorageHelper extends AbstractStorageHelper {
    */
   @Override
   public JsonArray getItems(JsonObject entries) {
-    return entries.getJsonArray("instances");
+    return entries.getJsonArray(INSTANCES);
+  }
+
+  @Override
+  public String getItemsName() {
+    return INSTANCES;
+  }
+
+  @Override
+  public JsonObject getItemHeader(JsonObject entry) {
+    return copyFields(entry, ID, METADATA);
   }
 
   /**
@@ -44,6 +68,11 @@ public class InventoryStorageHelper extends AbstractStorageHelper {
     return INSTANCES_URI + buildSearchQuery(request);
   }
 
+  @Override
+  public String getEarliestRecordEndpoint() throws UnsupportedEncodingException {
+    return INSTANCES_URI + buildEarliestRecordQuery();
+  }
+
   /**
    * Gets endpoint to search for record metadata by identifier
    * @param id instance identifier
@@ -54,19 +83,71 @@ public class InventoryStorageHelper extends AbstractStorageHelper {
     return String.format(MARC_JSON_RECORD_URI, id);
   }
 
+  /**
+   * Gets endpoint to get the instance by id. The source of the instance is requested separately the same way as for the
+   * instances found by the search.
+   * @param id instance identifier
+   * @return endpoint to get the instance
+   */
+  @Override
+  public String getItemByIdEndpoint(String id) {
+    return String.format(INSTANCE_URI, id);
+  }
+
+  @Override
+  public JsonObject getItemById(JsonObject entry) {
+    return MARC_JSON_FORMAT.equals(entry.getString(SOURCE_RECORD_FORMAT)) ? entry : null;
+  }
+
+  /**
+   * Gets endpoint to search for MarcJson sources of several instances by one request. mod-inventory-storage provides the source
+   * of one instance only (see {@link #MARC_JSON_RECORD_URI}), so the source records of source-record-storage linked to the
+   * instances are searched instead.
+   * @param ids instance identifiers
+   * @return endpoint to get the source records by instance identifiers
+   */
+  @Override
+  public String getRecordsSourceEndpoint(Collection<String> ids) throws UnsupportedEncodingException {
+    return SOURCE_STORAGE_RESULT_URI
+      + new CQLQueryBuilder().addAnyOfCriteria(EXTERNAL_INSTANCE_ID, ids).build()
+      + "&limit=" + ids.size();
+  }
+
+  /**
+   * @param entries the data returned by source-record-storage. The response of the source records search contains
+   *                {@literal sourceRecords} each of which holds parsed MarcJson source and id of the instance it is linked to
+   * @return {@link Map} with instance id as key and MarcJson source as value
+   */
+  @Override
+  public Map<String, JsonObject> getRecordSources(JsonObject entries) {
+    Map<String, JsonObject> sources = new HashMap<>();
+    JsonArray sourceRecords = entries.getJsonArray(SOURCE_RECORDS);
+    if (sourceRecords != null) {
+      for (Object sourceRecord : sourceRecords) {
+        JsonObject record = (JsonObject) sourceRecord;
+        JsonObject source = sourceRecordStorageHelper.getRecordSource(record);
+        // The record without parsed source is requested separately the same way as the not found one
+        if (source != null) {
+          sources.put(sourceRecordStorageHelper.getIdentifierId(record), source);
+        }
+      }
+    }
+    return sources;
+  }
+
   @Override
-  public String getInstanceRecordSource(JsonObject entry) {
+  public JsonObject getInstanceRecordSource(JsonObject entry) {
     return null;
   }
 
   @Override
-  public String getRecordSource(JsonObject record) {
-    return record.toString();
+  public JsonObject getRecordSource(JsonObject record) {
+    return record;
   }
 
   @Override
   protected void addSource(CQLQueryBuilder queryBuilder) {
-    queryBuilder.addStrictCriteria("sourceRecordFormat", "MARC-JSON");
+    queryBuilder.addStrictCriteria(SOURCE_RECORD_FORMAT, MARC_JSON_FORMAT);
   }
 
   @Override
@@ -5,11 +5,20 @@ import io.vertx.core.json.JsonObject;
 import org.folio.oaipmh.Request;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 
 public class SourceRecordStorageHelper extends AbstractStorageHelper {
 
   private static final String RECORD_ID = "recordId";
+  private static final String SOURCE_RECORDS = "sourceRecords";
+  private static final String ADDITIONAL_INFO = "additionalInfo";
+  private static final String SUPPRESS_DISCOVERY = "suppressDiscovery";
+  private static final String RECORD_TYPE = "recordType";
+  private static final String MARC_RECORD_TYPE = "MARC";
+  private static final String ID = "id";
 
   /**
    * Alternative option is to use SourceStorageClient generated by RMB.
@@ -24,10 +33,26 @@ public class SourceRecordStorageHelper extends AbstractStorageHelper {
   private static final int INSTANCE_ID_POSITION = 1;
   private static final String INSTANCE_ID = "i";
   private static final String PARSED_RECORD = "parsedRecord";
+  private static final String EXTERNAL_IDS_HOLDER = "externalIdsHolder";
+  private static final String EXTERNAL_INSTANCE_ID = "instanceId";
 
   @Override
   public JsonArray getItems(JsonObject entries) {
-    return entries.getJsonArray("sourceRecords");
+    return entries.getJsonArray(SOURCE_RECORDS);
+  }
+
+  @Override
+  public String getItemsName() {
+    return SOURCE_RECORDS;
+  }
+
+  /**
+   * The instance id linked to the record is kept as external id, so parsed record is not required to build the header
+   */
+  @Override
+  public JsonObject getItemHeader(JsonObject entry) {
+    JsonObject header = copyFields(entry, RECORD_ID, METADATA, ADDITIONAL_INFO);
+    return header.put(EXTERNAL_IDS_HOLDER, new JsonObject().put(EXTERNAL_INSTANCE_ID, getIdentifierId(entry)));
   }
 
   @Override
@@ -36,13 +61,20 @@ public class SourceRecordStorageHelper extends AbstractStorageHelper {
   }
 
   /**
-   * Returns instance id that is linked to record within 999 field
+   * Returns instance id that is linked to record. The id is taken from external ids of the record if there are any, otherwise
+   * from 999 field of the record
    *
    * @param entry the item returned by source-storage
    * @return instance id
    */
   @Override
   public String getIdentifierId(final JsonObject entry) {
+    String externalInstanceId = Optional.ofNullable(entry.getJsonObject(EXTERNAL_IDS_HOLDER))
+      .map(externalIds -> externalIds.getString(EXTERNAL_INSTANCE_ID))
+      .orElse(null);
+    if (externalInstanceId != null) {
+      return externalInstanceId;
+    }
     Optional<JsonArray> parsedRecordFields = Optional.ofNullable(entry.getJsonObject(PARSED_RECORD))
       .map(parsedRecord -> parsedRecord.getJsonObject(CONTENT))
       .map(content -> content.getJsonArray(FIELDS));
@@ -69,15 +101,14 @@ public class SourceRecordStorageHelper extends AbstractStorageHelper {
   }
 
   @Override
-  public String getInstanceRecordSource(JsonObject entry) {
+  public JsonObject getInstanceRecordSource(JsonObject entry) {
     return Optional.ofNullable(entry.getJsonObject(PARSED_RECORD))
       .map(record -> record.getJsonObject(CONTENT))
-      .map(JsonObject::encode)
       .orElse(null);
   }
 
   @Override
-  public String getRecordSource(JsonObject record) {
+  public JsonObject getRecordSource(JsonObject record) {
     return getInstanceRecordSource(record);
   }
 
@@ -88,12 +119,12 @@ public class SourceRecordStorageHelper extends AbstractStorageHelper {
 
   @Override
   protected void addSource(CQLQueryBuilder queryBuilder) {
-    queryBuilder.addStrictCriteria("recordType", "MARC");
+    queryBuilder.addStrictCriteria(RECORD_TYPE, MARC_RECORD_TYPE);
   }
 
   @Override
   void addSuppressFromDiscovery(final CQLQueryBuilder queryBuilder) {
-    queryBuilder.addStrictCriteria("additionalInfo.suppressDiscovery", "false");
+    queryBuilder.addStrictCriteria(ADDITIONAL_INFO + "." + SUPPRESS_DISCOVERY, "false");
   }
 
   @Override
@@ -101,9 +132,44 @@ public class SourceRecordStorageHelper extends AbstractStorageHelper {
     return RECORD_ID;
   }
 
+  @Override
+  public String getEarliestRecordEndpoint() throws UnsupportedEncodingException {
+    return SOURCE_STORAGE_RESULT_URI + buildEarliestRecordQuery();
+  }
+
   @Override
   public String getRecordByIdEndpoint(String id) {
     return String.format(SOURCE_STORAGE_RECORD_URI, id);
   }
 
+  /**
+   * The record returned by the record endpoint holds the same data as the source record returned by the search
+   */
+  @Override
+  public String getItemByIdEndpoint(String id) {
+    return getRecordByIdEndpoint(id);
+  }
+
+  @Override
+  public JsonObject getItemById(JsonObject entry) {
+    JsonObject additionalInfo = entry.getJsonObject(ADDITIONAL_INFO);
+    if (!MARC_RECORD_TYPE.equals(entry.getString(RECORD_TYPE))
+      || (additionalInfo != null && Boolean.TRUE.equals(additionalInfo.getBoolean(SUPPRESS_DISCOVERY)))) {
+      return null;
+    }
+    return entry.put(RECORD_ID, entry.getString(ID));
+  }
+
+  /**
+   * The sources are returned along with the records by SRS, so there is no need to request them separately
+   */
+  @Override
+  public String getRecordsSourceEndpoint(Collection<String> ids) {
+    return null;
+  }
+
+  @Override
+  public Map<String, JsonObject> getRecordSources(JsonObject entries) {
+    return Collections.emptyMap();
+  }
 }
@@ -6,6 +6,8 @@ import org.folio.oaipmh.Request;
 
 import java.io.UnsupportedEncodingException;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
 
 import static org.folio.oaipmh.Constants.INVENTORY_STORAGE;
 import static org.folio.oaipmh.Constants.REPOSITORY_STORAGE;
@@ -34,6 +36,20 @@ public interface StorageHelper {
    */
   JsonArray getItems(JsonObject entries);
 
+  /**
+   * Returns the name of the array of the items in the data returned by items storage service
+   * @return the name of the items array
+   */
+  String getItemsName();
+
+  /**
+   * Returns only the data of the item required to build its header, so the rest of the item can be released right after it is
+   * parsed
+   * @param entry the item returned by items storage service
+   * @return the item with id, instance id, last modified date and suppress flags only
+   */
+  JsonObject getItemHeader(JsonObject entry);
+
   /**
    * Extracts total number of records from {@linkplain JsonObject entries}
    * @param entries the data returned by items storage service
@@ -48,6 +64,14 @@ public interface StorageHelper {
    */
   Instant getLastModifiedDate(JsonObject record);
 
+  /**
+   * Returns item's {@code metadata.updatedDate} as it is stored, i.e. with storage precision. It is the sort key of cursor
+   * pagination, so created date is not used instead of the missing one
+   * @param record the record returned by storage service
+   * @return the date or {@code null} if the record has no metadata or no updated date
+   */
+  String getUpdatedDate(JsonObject record);
+
   /**
    * Returns id of the entry
    * @param entry the entry entry returned by items storage service
@@ -63,18 +87,19 @@ public interface StorageHelper {
   String getIdentifierId(JsonObject entry);
 
   /**
-   * Returns the record's source of the instance returned in the list instances response
+   * Returns the record's source of the instance returned in the list instances response. The source is returned as already
+   * parsed json, so it is not encoded and parsed again by the mapper
    * @param entry the instance returned by records storage service
-   * @return {@link Instant} based on updated or created date
+   * @return MarcJson source or {@code null} if the instance has no source
    */
-  String getInstanceRecordSource(JsonObject entry);
+  JsonObject getInstanceRecordSource(JsonObject entry);
 
   /**
    * Returns the source of the record
    * @param record the record returned by records storage service
-   * @return {@link Instant} based on updated or created date
+   * @return MarcJson source
    */
-  String getRecordSource(JsonObject record);
+  JsonObject getRecordSource(JsonObject record);
 
   /**
    * Returns base endpoint to get items
@@ -82,10 +107,45 @@ public interface StorageHelper {
    */
   String buildRecordsEndpoint(Request request) throws UnsupportedEncodingException;
 
+  /**
+   * Gets endpoint to search for the record modified first, i.e. the one with the earliest datestamp in the repository
+   * @return endpoint to get the only record with the earliest last modified date
+   */
+  String getEarliestRecordEndpoint() throws UnsupportedEncodingException;
+
   /**
    * Gets endpoint to search for record metadata by identifier
    * @param id instance identifier
    * @return endpoint to get metadata by identifier
    */
   String getRecordByIdEndpoint(String id);
+
+  /**
+   * Gets endpoint to get the item by its storage id directly instead of searching for it
+   * @param id storage id of the item
+   * @return endpoint to get the item
+   */
+  String getItemByIdEndpoint(String id);
+
+  /**
+   * Converts the data returned by the item endpoint to the item as it is returned by the search. The item which is not found
+   * by the search, e.g. because of its format or suppress flag, is not returned.
+   * @param entry the data returned by the item endpoint
+   * @return the item or {@code null} if the item is not disseminated
+   */
+  JsonObject getItemById(JsonObject entry);
+
+  /**
+   * Gets endpoint to search for the sources of several records by one request
+   * @param ids identifiers of the records
+   * @return endpoint to get the sources of the records or {@code null} if the storage does not support such search
+   */
+  String getRecordsSourceEndpoint(Collection<String> ids) throws UnsupportedEncodingException;
+
+  /**
+   * Extracts the sources of the records from the data returned by the records source endpoint
+   * @param entries the data returned by storage service
+   * @return {@link Map} with record id as key and MarcJson source as value
+   */
+  Map<String, JsonObject> getRecordSources(JsonObject entries);
 }
@@ -0,0 +1,110 @@
+package org.folio.oaipmh.helpers.storage;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.JsonEvent;
+import io.vertx.core.parsetools.JsonParser;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Parses the list response of the storage incrementally while its chunks are received. The items are parsed one at a time and
+ * passed through the item mapper, so the chunks of the response and the parts of the items which are not retained by the mapper
+ * are released right after the item is parsed. The result has the same layout as the response of the storage, i.e. the items
+ * array and the scalar fields like {@code totalRecords}, so it is handled the same way as the response parsed at once.
+ */
+public class StorageResponseParser {
+
+  private final String itemsName;
+  private final UnaryOperator<JsonObject> itemMapper;
+  private final JsonParser parser = JsonParser.newParser();
+  private final JsonObject result = new JsonObject();
+  private final JsonArray items = new JsonArray();
+  private int depth;
+  private boolean inItems;
+  private Throwable failure;
+  private long size;
+
+  /**
+   * @param itemsName the name of the items array of the response
+   * @param itemMapper the function applied to each item once it is parsed
+   */
+  public StorageResponseParser(String itemsName, UnaryOperator<JsonObject> itemMapper) {
+    this.itemsName = itemsName;
+    this.itemMapper = itemMapper;
+    parser.objectEventMode();
+    parser.handler(this::handleEvent);
+    parser.exceptionHandler(e -> failure = e);
+  }
+
+  /**
+   * Parses the next chunk of the response
+   * @param chunk the chunk of the response
+   */
+  public void write(Buffer chunk) {
+    size += chunk.length();
+    if (failure == null) {
+      parser.handle(chunk);
+    }
+  }
+
+  /**
+   * Finishes parsing of the response
+   * @return the response with the items mapped by the item mapper
+   * @throws IllegalStateException if the response is not valid JSON
+   */
+  public JsonObject end() {
+    if (failure == null) {
+      parser.end();
+    }
+    if (failure != null) {
+      throw new IllegalStateException("The storage response cannot be parsed", failure);
+    }
+    return result.put(itemsName, items);
+  }
+
+  /**
+   * @return the number of bytes of the response received so far
+   */
+  public long getSize() {
+    return size;
+  }
+
+  private void handleEvent(JsonEvent event) {
+    switch (event.type()) {
+      case START_OBJECT:
+        depth++;
+        break;
+      case START_ARRAY:
+        // The items are the array of the root object, each of them is emitted as already parsed object
+        if (depth == 1 && itemsName.equals(event.fieldName())) {
+          inItems = true;
+          parser.objectValueMode();
+        }
+        depth++;
+        break;
+      case END_ARRAY:
+        if (inItems && depth == 2) {
+          inItems = false;
+          parser.objectEventMode();
+        }
+        depth--;
+        break;
+      case END_OBJECT:
+        depth--;
+        break;
+      case VALUE:
+        if (inItems) {
+          if (event.isObject()) {
+            items.add(itemMapper.apply(event.objectValue()));
+          }
+        } else if (depth == 1) {
+          result.put(event.fieldName(), event.value());
+        }
+        break;
+      default:
+        break;
+    }
+  }
+}
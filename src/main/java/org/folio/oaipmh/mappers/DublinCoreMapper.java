@@ -0,0 +1,315 @@
+package org.folio.oaipmh.mappers;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.apache.commons.lang3.time.StopWatch;
+import org.marc4j.marc.ControlField;
+import org.marc4j.marc.DataField;
+import org.marc4j.marc.Leader;
+import org.marc4j.marc.Record;
+import org.marc4j.marc.Subfield;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Converts MarcJson format to Dublin Core in Java code following the crosswalk rules of {@code xslt/MARC21slim2OAIDC.xsl}
+ * stylesheet, so neither MarcXML document nor XSLT transformation is involved. The result is the same document as
+ * {@link XSLTMapper} with that stylesheet produces.
+ */
+public class DublinCoreMapper extends MarcXmlMapper {
+  private static final Logger logger = LoggerFactory.getLogger(DublinCoreMapper.class);
+
+  private static final String DC_START = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+    + "<oai_dc:dc xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+    + " xmlns:oai_dc=\"http://www.openarchives.org/OAI/2.0/oai_dc/\""
+    + " xsi:schemaLocation=\"http://www.openarchives.org/OAI/2.0/oai_dc/ http://www.openarchives.org/OAI/2.0/oai_dc.xsd\">";
+  private static final String DC_END = "\n</oai_dc:dc>\n";
+
+  private static final String TITLE = "dc:title";
+  private static final String CREATOR = "dc:creator";
+  private static final String TYPE = "dc:type";
+  private static final String PUBLISHER = "dc:publisher";
+  private static final String DATE = "dc:date";
+  private static final String LANGUAGE = "dc:language";
+  private static final String FORMAT = "dc:format";
+  private static final String DESCRIPTION = "dc:description";
+  private static final String SUBJECT = "dc:subject";
+  private static final String COVERAGE = "dc:coverage";
+  private static final String RELATION = "dc:relation";
+  private static final String IDENTIFIER = "dc:identifier";
+  private static final String RIGHTS = "dc:rights";
+
+  private static final int[] CREATOR_TAGS = {100, 110, 111, 700, 710, 711, 720};
+  private static final int[] SUBJECT_TAGS = {600, 610, 611, 630, 650, 653};
+  private static final int[] LINKING_ENTRY_TAGS = {760, 762, 765, 767, 770, 772, 773, 774, 775, 776, 777, 780, 785, 786, 787};
+  private static final int[] DESCRIPTION_EXCLUDED_TAGS = {506, 530, 540, 546};
+  private static final int NOT_NUMERIC_TAG = -1;
+
+  /**
+   * Convert MarcJson to Dublin Core.
+   *
+   * @param source String representation of MarcJson source.
+   * @return byte[] representation of Dublin Core XML
+   */
+  @Override
+  public byte[] convert(String source) {
+    return convert(readRecord(source));
+  }
+
+  /**
+   * Convert already parsed MarcJson to Dublin Core.
+   *
+   * @param source MarcJson source.
+   * @return byte[] representation of Dublin Core XML
+   */
+  @Override
+  public byte[] convert(JsonObject source) {
+    return convert(readRecord(source));
+  }
+
+  private byte[] convert(Record record) {
+    StopWatch timer = logger.isDebugEnabled() ? StopWatch.createStarted() : null;
+    try {
+      return map(record).getBytes(StandardCharsets.UTF_8);
+    } finally {
+      if (timer != null) {
+        timer.stop();
+        logger.debug(String.format("Marc record converted to Dublin Core after %d ms", timer.getTime()));
+      }
+    }
+  }
+
+  /**
+   * Builds Dublin Core document from MARC record. The elements are written in the same order as the stylesheet does, i.e.
+   * rule by rule and the fields of each rule in the record order.
+   */
+  private String map(Record record) {
+    List<DataField> fields = record.getDataFields();
+    int[] tags = new int[fields.size()];
+    for (int i = 0; i < tags.length; i++) {
+      tags[i] = getTagNumber(fields.get(i).getTag());
+    }
+    Leader leader = record.getLeader();
+    String leaderValue = leader == null ? "" : leader.marshal();
+
+    StringBuilder dc = new StringBuilder(DC_START);
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] == 245) {
+        appendElement(dc, TITLE, selectSubfields(fields.get(i), "abfghk"));
+      }
+    }
+    for (int i = 0; i < tags.length; i++) {
+      if (contains(CREATOR_TAGS, tags[i])) {
+        appendElement(dc, CREATOR, getValue(fields.get(i)));
+      }
+    }
+    appendElement(dc, TYPE, getType(charAt(leaderValue, 6), charAt(leaderValue, 7)));
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] == 655) {
+        appendElement(dc, TYPE, getValue(fields.get(i)));
+      }
+    }
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] == 260) {
+        appendElement(dc, PUBLISHER, selectSubfields(fields.get(i), "ab"));
+      }
+    }
+    appendSubfieldElements(dc, DATE, fields, tags, 260, 'c');
+    appendElement(dc, LANGUAGE, getLanguage(record));
+    appendSubfieldElements(dc, FORMAT, fields, tags, 856, 'q');
+    appendFirstSubfieldElements(dc, DESCRIPTION, fields, tags, 520, 'a');
+    appendFirstSubfieldElements(dc, DESCRIPTION, fields, tags, 521, 'a');
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] >= 500 && tags[i] <= 599 && !contains(DESCRIPTION_EXCLUDED_TAGS, tags[i])) {
+        appendElement(dc, DESCRIPTION, getFirstSubfieldData(fields.get(i), 'a'));
+      }
+    }
+    // Unlike creators, subjects are grouped by tag
+    for (int subjectTag : SUBJECT_TAGS) {
+      for (int i = 0; i < tags.length; i++) {
+        if (tags[i] == subjectTag) {
+          appendElement(dc, SUBJECT, selectSubfields(fields.get(i), "abcdq"));
+        }
+      }
+    }
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] == 752) {
+        appendElement(dc, COVERAGE, selectSubfields(fields.get(i), "abcd"));
+      }
+    }
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] == 530) {
+        appendElement(dc, RELATION, selectSubfields(fields.get(i), "abcdu"));
+      }
+    }
+    for (int i = 0; i < tags.length; i++) {
+      if (contains(LINKING_ENTRY_TAGS, tags[i])) {
+        appendElement(dc, RELATION, selectSubfields(fields.get(i), "ot"));
+      }
+    }
+    appendFirstSubfieldElements(dc, IDENTIFIER, fields, tags, 856, 'u');
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] == 20) {
+        appendElement(dc, IDENTIFIER, "URN:ISBN:" + getFirstSubfieldData(fields.get(i), 'a'));
+      }
+    }
+    appendFirstSubfieldElements(dc, RIGHTS, fields, tags, 506, 'a');
+    appendFirstSubfieldElements(dc, RIGHTS, fields, tags, 540, 'a');
+    return dc.append(DC_END).toString();
+  }
+
+  private String getType(char leader6, char leader7) {
+    StringBuilder type = new StringBuilder();
+    if (leader7 == 'c') {
+      type.append("collection");
+    }
+    if (leader6 == 'd' || leader6 == 'f' || leader6 == 'p' || leader6 == 't') {
+      type.append("manuscript");
+    }
+    switch (leader6) {
+      case 'a':
+      case 't':
+        return type.append("text").toString();
+      case 'e':
+      case 'f':
+        return type.append("cartographic").toString();
+      case 'c':
+      case 'd':
+        return type.append("notated music").toString();
+      case 'i':
+      case 'j':
+        return type.append("sound recording").toString();
+      case 'k':
+        return type.append("still image").toString();
+      case 'g':
+        return type.append("moving image").toString();
+      case 'r':
+        return type.append("three dimensional object").toString();
+      case 'm':
+        return type.append("software, multimedia").toString();
+      case 'p':
+        return type.append("mixed material").toString();
+      default:
+        return type.toString();
+    }
+  }
+
+  /**
+   * The language code is taken from positions 35-37 of the first 008 control field
+   */
+  private String getLanguage(Record record) {
+    for (ControlField field : record.getControlFields()) {
+      if (getTagNumber(field.getTag()) == 8) {
+        String data = field.getData() == null ? "" : field.getData();
+        return data.length() > 35 ? data.substring(35, Math.min(38, data.length())) : "";
+      }
+    }
+    return "";
+  }
+
+  /**
+   * Appends element per each subfield with specified code of all the fields with specified tag
+   */
+  private void appendSubfieldElements(StringBuilder dc, String element, List<DataField> fields, int[] tags, int tag, char code) {
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] == tag) {
+        for (Subfield subfield : fields.get(i).getSubfields()) {
+          if (subfield.getCode() == code) {
+            appendElement(dc, element, subfield.getData());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Appends element per each field with specified tag with the value of the first subfield with specified code
+   */
+  private void appendFirstSubfieldElements(StringBuilder dc, String element, List<DataField> fields, int[] tags, int tag,
+                                           char code) {
+    for (int i = 0; i < tags.length; i++) {
+      if (tags[i] == tag) {
+        appendElement(dc, element, getFirstSubfieldData(fields.get(i), code));
+      }
+    }
+  }
+
+  /**
+   * Concatenates data of the subfields with specified codes, the same as subfieldSelect template of MARC21slimUtils.xsl does
+   */
+  private String selectSubfields(DataField field, String codes) {
+    StringBuilder value = new StringBuilder();
+    for (Subfield subfield : field.getSubfields()) {
+      if (codes.indexOf(subfield.getCode()) >= 0 && subfield.getData() != null) {
+        value.append(subfield.getData());
+      }
+    }
+    return value.toString();
+  }
+
+  /**
+   * @return concatenated data of all subfields, i.e. string value of the datafield element
+   */
+  private String getValue(DataField field) {
+    StringBuilder value = new StringBuilder();
+    for (Subfield subfield : field.getSubfields()) {
+      if (subfield.getData() != null) {
+        value.append(subfield.getData());
+      }
+    }
+    return value.toString();
+  }
+
+  private String getFirstSubfieldData(DataField field, char code) {
+    for (Subfield subfield : field.getSubfields()) {
+      if (subfield.getCode() == code) {
+        return subfield.getData() == null ? "" : subfield.getData();
+      }
+    }
+    return "";
+  }
+
+  private void appendElement(StringBuilder dc, String element, String value) {
+    dc.append('\n').append('<').append(element);
+    if (value == null || value.isEmpty()) {
+      dc.append("/>");
+      return;
+    }
+    dc.append('>');
+    XmlEscapeUtils.appendEscapedText(dc, value);
+    dc.append("</").append(element).append('>');
+  }
+
+  /**
+   * The stylesheet compares tags as numbers, e.g. {@code @tag=020}, so the tags are compared the same way
+   */
+  private int getTagNumber(String tag) {
+    if (tag == null || tag.isEmpty()) {
+      return NOT_NUMERIC_TAG;
+    }
+    int number = 0;
+    for (int i = 0; i < tag.length(); i++) {
+      char c = tag.charAt(i);
+      if (c < '0' || c > '9') {
+        return NOT_NUMERIC_TAG;
+      }
+      number = number * 10 + (c - '0');
+    }
+    return number;
+  }
+
+  private boolean contains(int[] tags, int tag) {
+    for (int value : tags) {
+      if (value == tag) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private char charAt(String value, int index) {
+    return value.length() > index ? value.charAt(index) : ' ';
+  }
+}
@@ -1,5 +1,7 @@
 package org.folio.oaipmh.mappers;
 
+import io.vertx.core.json.JsonObject;
+
 /**
  * Converts MarcJson format to XML format.
  */
@@ -11,4 +13,15 @@ public interface Mapper {
    * @return byte[] that represents result XML document.
    */
   byte[] convert(String source);
+
+  /**
+   * Converts already parsed json to byte[] representation of XML document. By default the json is encoded back to string,
+   * the implementations should override it to use the parsed json as is.
+   *
+   * @param source MarcJson source.
+   * @return byte[] that represents result XML document.
+   */
+  default byte[] convert(JsonObject source) {
+    return convert(source.encode());
+  }
 }
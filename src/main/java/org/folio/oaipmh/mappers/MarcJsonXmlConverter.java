@@ -0,0 +1,320 @@
+package org.folio.oaipmh.mappers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_STRING;
+
+/**
+ * Converts MarcJson in MARC-in-JSON layout to MarcXML writing MarcXML markup directly, so neither marc4j record nor
+ * intermediate copies of the source are created. The source is either read as JSON token stream or, if it is already parsed,
+ * walked as JSON tree. The result is the same document as marc4j produces. The buffers are kept by the thread and reused for
+ * the next record.
+ * <br/>
+ * Like the previous regex-based fix of {@code "\\"} indicators, backslashes in the values are replaced by spaces while the
+ * values are written.
+ */
+final class MarcJsonXmlConverter {
+
+  static final String LEADER = "leader";
+  static final String FIELDS = "fields";
+  static final String IND_1 = "ind1";
+  static final String IND_2 = "ind2";
+  static final String SUBFIELDS = "subfields";
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  /* Buffers grown by unusually large records are not retained to avoid holding the memory by the thread */
+  private static final int MAX_RETAINED_BUFFER_CAPACITY = 1 << 18;
+  private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+  private static final String RECORD_START = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><record xmlns=\"http://www.loc.gov/MARC21/slim\">";
+  private static final String RECORD_END = "</record>";
+
+  private MarcJsonXmlConverter() {
+    throw new IllegalStateException("This class holds static methods only");
+  }
+
+  /**
+   * Converts MarcJson to MarcXML reading the source as JSON token stream.
+   *
+   * @param source String representation of MarcJson source.
+   * @return byte[] representation of MarcXML or {@code null} if the source does not have expected MARC-in-JSON layout
+   * @throws IOException if the source is not valid JSON
+   */
+  static byte[] convert(String source) throws IOException {
+    Buffers buffers = BUFFERS.get();
+    try (JsonParser parser = JSON_FACTORY.createParser(source)) {
+      return readRecord(parser, buffers) ? buildMarcXml(buffers) : null;
+    } finally {
+      buffers.reset();
+    }
+  }
+
+  /**
+   * Converts already parsed MarcJson to MarcXML.
+   *
+   * @param source MarcJson source
+   * @return byte[] representation of MarcXML or {@code null} if the source does not have expected MARC-in-JSON layout
+   */
+  static byte[] convert(JsonObject source) {
+    Buffers buffers = BUFFERS.get();
+    try {
+      return readRecord(source, buffers) ? buildMarcXml(buffers) : null;
+    } finally {
+      buffers.reset();
+    }
+  }
+
+  private static byte[] buildMarcXml(Buffers buffers) {
+    StringBuilder result = buffers.result
+      .append(RECORD_START)
+      .append("<leader");
+    appendContent(result, buffers.leader, LEADER);
+    return result
+      .append(buffers.controlFields)
+      .append(buffers.dataFields)
+      .append(RECORD_END)
+      .toString()
+      .getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static boolean readRecord(JsonParser parser, Buffers buffers) throws IOException {
+    if (parser.nextToken() != START_OBJECT) {
+      return false;
+    }
+    boolean hasLeader = false;
+    while (parser.nextToken() == FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (LEADER.equals(name) && token == VALUE_STRING) {
+        XmlEscapeUtils.appendEscapedText(buffers.leader, getText(parser), true);
+        hasLeader = true;
+      } else if (FIELDS.equals(name) && token == START_ARRAY) {
+        if (!readFields(parser, buffers)) {
+          return false;
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return hasLeader;
+  }
+
+  /**
+   * Reads fields array where each object is either control field, i.e. {@code {"001": "value"}}, or data field, i.e.
+   * {@code {"245": {"ind1": " ", "ind2": "0", "subfields": [{"a": "value"}]}}}.
+   */
+  private static boolean readFields(JsonParser parser, Buffers buffers) throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) == START_OBJECT) {
+      while (parser.nextToken() == FIELD_NAME) {
+        String tag = parser.getCurrentName();
+        token = parser.nextToken();
+        if (token == VALUE_STRING) {
+          appendControlField(buffers, tag, getText(parser));
+        } else if (token != START_OBJECT || !readDataField(parser, tag, buffers)) {
+          return false;
+        }
+      }
+    }
+    return token == END_ARRAY;
+  }
+
+  private static boolean readDataField(JsonParser parser, String tag, Buffers buffers) throws IOException {
+    String ind1 = " ";
+    String ind2 = " ";
+    while (parser.nextToken() == FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ((IND_1.equals(name) || IND_2.equals(name)) && token == VALUE_STRING) {
+        if (!isValidCode(parser.getText())) {
+          return false;
+        }
+        if (IND_1.equals(name)) {
+          ind1 = parser.getText();
+        } else {
+          ind2 = parser.getText();
+        }
+      } else if (SUBFIELDS.equals(name) && token == START_ARRAY) {
+        if (!readSubfields(parser, buffers.subfields)) {
+          return false;
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    appendDataField(buffers, tag, ind1, ind2);
+    return true;
+  }
+
+  private static boolean readSubfields(JsonParser parser, StringBuilder subfields) throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) == START_OBJECT) {
+      while (parser.nextToken() == FIELD_NAME) {
+        String code = parser.getCurrentName();
+        if (!isValidCode(code) || parser.nextToken() != VALUE_STRING) {
+          return false;
+        }
+        appendSubfield(subfields, code, getText(parser));
+      }
+    }
+    return token == END_ARRAY;
+  }
+
+  private static boolean readRecord(JsonObject source, Buffers buffers) {
+    Object leader = source.getValue(LEADER);
+    Object fields = source.getValue(FIELDS);
+    if (!(leader instanceof String) || (fields != null && !(fields instanceof JsonArray))) {
+      return false;
+    }
+    XmlEscapeUtils.appendEscapedText(buffers.leader, (String) leader, true);
+    if (fields != null) {
+      for (Object field : (JsonArray) fields) {
+        if (!(field instanceof JsonObject) || !readField((JsonObject) field, buffers)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean readField(JsonObject field, Buffers buffers) {
+    for (Map.Entry<String, Object> entry : field) {
+      Object value = entry.getValue();
+      if (value instanceof String) {
+        appendControlField(buffers, entry.getKey(), (String) value);
+      } else if (!(value instanceof JsonObject) || !readDataField(entry.getKey(), (JsonObject) value, buffers)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean readDataField(String tag, JsonObject dataField, Buffers buffers) {
+    Object ind1 = dataField.getValue(IND_1, " ");
+    Object ind2 = dataField.getValue(IND_2, " ");
+    Object subfields = dataField.getValue(SUBFIELDS);
+    if (!isValidCode(ind1) || !isValidCode(ind2) || (subfields != null && !(subfields instanceof JsonArray))) {
+      return false;
+    }
+    if (subfields != null) {
+      for (Object subfield : (JsonArray) subfields) {
+        if (!(subfield instanceof JsonObject)) {
+          return false;
+        }
+        for (Map.Entry<String, Object> entry : (JsonObject) subfield) {
+          if (!isValidCode(entry.getKey()) || !(entry.getValue() instanceof String)) {
+            return false;
+          }
+          appendSubfield(buffers.subfields, entry.getKey(), (String) entry.getValue());
+        }
+      }
+    }
+    appendDataField(buffers, tag, (String) ind1, (String) ind2);
+    return true;
+  }
+
+  /**
+   * Only single char indicators and subfield codes are expected
+   */
+  private static boolean isValidCode(Object code) {
+    return code instanceof String && ((String) code).length() == 1;
+  }
+
+  /**
+   * Control fields are written before data fields the same way as marc4j does, so they are collected separately
+   */
+  private static void appendControlField(Buffers buffers, String tag, CharSequence data) {
+    StringBuilder controlFields = buffers.controlFields.append("<controlfield tag=\"");
+    XmlEscapeUtils.appendEscapedAttribute(controlFields, tag, true);
+    controlFields.append('"');
+    StringBuilder content = buffers.content;
+    XmlEscapeUtils.appendEscapedText(content, data, true);
+    appendContent(controlFields, content, "controlfield");
+    content.setLength(0);
+  }
+
+  /**
+   * Writes data field with the subfields collected so far and clears them for the next data field
+   */
+  private static void appendDataField(Buffers buffers, String tag, String ind1, String ind2) {
+    StringBuilder dataFields = buffers.dataFields.append("<datafield tag=\"");
+    XmlEscapeUtils.appendEscapedAttribute(dataFields, tag, true);
+    dataFields.append("\" ind1=\"");
+    XmlEscapeUtils.appendEscapedAttribute(dataFields, ind1, true);
+    dataFields.append("\" ind2=\"");
+    XmlEscapeUtils.appendEscapedAttribute(dataFields, ind2, true);
+    dataFields.append('"');
+    appendContent(dataFields, buffers.subfields, "datafield");
+    buffers.subfields.setLength(0);
+  }
+
+  private static void appendSubfield(StringBuilder subfields, String code, CharSequence data) {
+    subfields.append("<subfield code=\"");
+    XmlEscapeUtils.appendEscapedAttribute(subfields, code, true);
+    subfields.append('"');
+    if (data.length() == 0) {
+      subfields.append("/>");
+    } else {
+      subfields.append('>');
+      XmlEscapeUtils.appendEscapedText(subfields, data, true);
+      subfields.append("</subfield>");
+    }
+  }
+
+  /**
+   * Closes the start tag and writes the content with the end tag or closes the tag as empty one if there is no content
+   */
+  private static void appendContent(StringBuilder builder, CharSequence content, String element) {
+    if (content.length() == 0) {
+      builder.append("/>");
+    } else {
+      builder.append('>').append(content).append("</").append(element).append('>');
+    }
+  }
+
+  /**
+   * @return current string value as view of the parser buffer, so no string is created
+   */
+  private static CharSequence getText(JsonParser parser) throws IOException {
+    return CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+  }
+
+  private static class Buffers {
+    private StringBuilder result = new StringBuilder();
+    private StringBuilder leader = new StringBuilder();
+    private StringBuilder controlFields = new StringBuilder();
+    private StringBuilder dataFields = new StringBuilder();
+    private StringBuilder subfields = new StringBuilder();
+    private StringBuilder content = new StringBuilder();
+
+    private void reset() {
+      result = reset(result);
+      leader = reset(leader);
+      controlFields = reset(controlFields);
+      dataFields = reset(dataFields);
+      subfields = reset(subfields);
+      content = reset(content);
+    }
+
+    private StringBuilder reset(StringBuilder buffer) {
+      if (buffer.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+        return new StringBuilder();
+      }
+      buffer.setLength(0);
+      return buffer;
+    }
+  }
+}
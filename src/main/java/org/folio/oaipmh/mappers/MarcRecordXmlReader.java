@@ -0,0 +1,173 @@
+package org.folio.oaipmh.mappers;
+
+import org.marc4j.marc.ControlField;
+import org.marc4j.marc.DataField;
+import org.marc4j.marc.Record;
+import org.marc4j.marc.Subfield;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Emits MARC {@link Record} as SAX events of the MARCXML document, i.e. the same document as {@link MarcXmlMapper} produces
+ * but without serializing it to bytes and parsing again. Intended to be used as {@link javax.xml.transform.sax.SAXSource}
+ * reader, so the record is streamed directly into XSLT transformation. The input source passed to the parse methods is ignored.
+ * <br/>
+ * The instance is not thread-safe and is intended to be used for one record only.
+ */
+class MarcRecordXmlReader implements XMLReader {
+
+  static final String MARC_NAMESPACE = "http://www.loc.gov/MARC21/slim";
+
+  private static final String CDATA_TYPE = "CDATA";
+  private static final String RECORD = "record";
+  private static final String LEADER = "leader";
+  private static final String CONTROL_FIELD = "controlfield";
+  private static final String DATA_FIELD = "datafield";
+  private static final String SUBFIELD = "subfield";
+  private static final String TAG = "tag";
+  private static final String IND_1 = "ind1";
+  private static final String IND_2 = "ind2";
+  private static final String CODE = "code";
+
+  private final Record record;
+  private final AttributesImpl attributes = new AttributesImpl();
+  private final Map<String, Boolean> features = new HashMap<>();
+
+  private ContentHandler contentHandler;
+  private DTDHandler dtdHandler;
+  private EntityResolver entityResolver;
+  private ErrorHandler errorHandler;
+
+  MarcRecordXmlReader(Record record) {
+    this.record = record;
+  }
+
+  @Override
+  public void parse(InputSource input) throws SAXException {
+    if (contentHandler == null) {
+      throw new SAXException("Content handler is not set.");
+    }
+    contentHandler.startDocument();
+    contentHandler.startPrefixMapping("", MARC_NAMESPACE);
+    attributes.clear();
+    startElement(RECORD);
+
+    writeElement(LEADER, record.getLeader().marshal());
+    for (ControlField controlField : record.getControlFields()) {
+      attributes.addAttribute("", TAG, TAG, CDATA_TYPE, controlField.getTag());
+      writeElement(CONTROL_FIELD, controlField.getData());
+    }
+    for (DataField dataField : record.getDataFields()) {
+      attributes.addAttribute("", TAG, TAG, CDATA_TYPE, dataField.getTag());
+      attributes.addAttribute("", IND_1, IND_1, CDATA_TYPE, String.valueOf(dataField.getIndicator1()));
+      attributes.addAttribute("", IND_2, IND_2, CDATA_TYPE, String.valueOf(dataField.getIndicator2()));
+      startElement(DATA_FIELD);
+      for (Subfield subfield : dataField.getSubfields()) {
+        attributes.addAttribute("", CODE, CODE, CDATA_TYPE, String.valueOf(subfield.getCode()));
+        writeElement(SUBFIELD, subfield.getData());
+      }
+      endElement(DATA_FIELD);
+    }
+
+    endElement(RECORD);
+    contentHandler.endPrefixMapping("");
+    contentHandler.endDocument();
+  }
+
+  @Override
+  public void parse(String systemId) throws SAXException {
+    parse(new InputSource(systemId));
+  }
+
+  /**
+   * Starts element with the attributes collected so far and clears them for the next element
+   */
+  private void startElement(String name) throws SAXException {
+    contentHandler.startElement(MARC_NAMESPACE, name, name, attributes);
+    attributes.clear();
+  }
+
+  private void endElement(String name) throws SAXException {
+    contentHandler.endElement(MARC_NAMESPACE, name, name);
+  }
+
+  private void writeElement(String name, String value) throws SAXException {
+    startElement(name);
+    if (value != null && !value.isEmpty()) {
+      char[] chars = value.toCharArray();
+      contentHandler.characters(chars, 0, chars.length);
+    }
+    endElement(name);
+  }
+
+  @Override
+  public boolean getFeature(String name) {
+    return features.getOrDefault(name, false);
+  }
+
+  @Override
+  public void setFeature(String name, boolean value) {
+    // The events are generated from the record so the parser features do not affect them
+    features.put(name, value);
+  }
+
+  @Override
+  public Object getProperty(String name) throws SAXNotRecognizedException {
+    throw new SAXNotRecognizedException(name);
+  }
+
+  @Override
+  public void setProperty(String name, Object value) throws SAXNotRecognizedException {
+    throw new SAXNotRecognizedException(name);
+  }
+
+  @Override
+  public void setEntityResolver(EntityResolver resolver) {
+    this.entityResolver = resolver;
+  }
+
+  @Override
+  public EntityResolver getEntityResolver() {
+    return entityResolver;
+  }
+
+  @Override
+  public void setDTDHandler(DTDHandler handler) {
+    this.dtdHandler = handler;
+  }
+
+  @Override
+  public DTDHandler getDTDHandler() {
+    return dtdHandler;
+  }
+
+  @Override
+  public void setContentHandler(ContentHandler handler) {
+    this.contentHandler = handler;
+  }
+
+  @Override
+  public ContentHandler getContentHandler() {
+    return contentHandler;
+  }
+
+  @Override
+  public void setErrorHandler(ErrorHandler handler) {
+    this.errorHandler = handler;
+  }
+
+  @Override
+  public ErrorHandler getErrorHandler() {
+    return errorHandler;
+  }
+}
@@ -1,12 +1,17 @@
 package org.folio.oaipmh.mappers;
 
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import org.apache.commons.lang3.time.StopWatch;
 import org.marc4j.MarcJsonReader;
 import org.marc4j.MarcReader;
 import org.marc4j.MarcXmlWriter;
+import org.marc4j.marc.DataField;
+import org.marc4j.marc.MarcFactory;
 import org.marc4j.marc.Record;
+import org.marc4j.marc.VariableField;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -14,15 +19,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
- * Converts MarcJson format to MarcXML format.
+ * Converts MarcJson format to MarcXML format. The records in MARC-in-JSON layout are converted by
+ * {@link MarcJsonXmlConverter}, others are read to marc4j record first.
  */
 public class MarcXmlMapper implements Mapper {
   private static final Logger logger = LoggerFactory.getLogger(MarcXmlMapper.class);
 
   private static final Pattern DOUBLE_BACKSLASH_PATTERN = Pattern.compile("\\\\\\\\");
+  private static final MarcFactory MARC_FACTORY = MarcFactory.newInstance();
 
   /**
    * Convert MarcJson to MarcXML.
@@ -32,6 +40,70 @@ public class MarcXmlMapper implements Mapper {
    */
   public byte[] convert(String source) {
     StopWatch timer = logger.isDebugEnabled() ? StopWatch.createStarted() : null;
+    try {
+      byte[] marcXml = convertTokenStream(source);
+      return marcXml != null ? marcXml : convertRecord(readRecord(source));
+    } finally {
+      if (timer != null) {
+        timer.stop();
+        logger.debug(String.format("Marc-json converted to MarcXml after %d ms", timer.getTime()));
+      }
+    }
+  }
+
+  /**
+   * Convert already parsed MarcJson to MarcXML.
+   *
+   * @param source MarcJson source.
+   * @return byte[] representation of MarcXML
+   */
+  @Override
+  public byte[] convert(JsonObject source) {
+    StopWatch timer = logger.isDebugEnabled() ? StopWatch.createStarted() : null;
+    try {
+      byte[] marcXml = MarcJsonXmlConverter.convert(source);
+      if (marcXml == null) {
+        logger.debug("Marc-json has unexpected layout so it is converted via marc4j record");
+        return convertRecord(readRecord(source));
+      }
+      return marcXml;
+    } finally {
+      if (timer != null) {
+        timer.stop();
+        logger.debug(String.format("Parsed marc-json converted to MarcXml after %d ms", timer.getTime()));
+      }
+    }
+  }
+
+  /**
+   * @return MarcXML or {@code null} if the source cannot be converted as token stream and should be read to marc4j record
+   */
+  private byte[] convertTokenStream(String source) {
+    try {
+      byte[] marcXml = MarcJsonXmlConverter.convert(source);
+      if (marcXml == null) {
+        logger.debug("Marc-json has unexpected layout so it is converted via marc4j record");
+      }
+      return marcXml;
+    } catch (IOException e) {
+      logger.debug("Marc-json cannot be parsed as token stream so it is converted via marc4j record", e);
+      return null;
+    }
+  }
+
+  private byte[] convertRecord(Record record) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MarcXmlWriter.writeSingleRecord(record, out);
+    return out.toByteArray();
+  }
+
+  /**
+   * Reads MarcJson to MARC record object.
+   *
+   * @param source String representation of MarcJson source.
+   * @return MARC record
+   */
+  protected Record readRecord(String source) {
     /*
      * Fix indicators which comes like "ind1": "\\" in the source string and values are converted to '\'
      * which contradicts to the MARC21slim.xsd schema. So replacing unexpected char by space
@@ -40,18 +112,97 @@ public class MarcXmlMapper implements Mapper {
     try (InputStream inputStream
            = new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))) {
       MarcReader marcJsonReader = new MarcJsonReader(inputStream);
-      ByteArrayOutputStream out = new ByteArrayOutputStream();
-      Record record = marcJsonReader.next();
-      MarcXmlWriter.writeSingleRecord(record, out);
-      return out.toByteArray();
+      return marcJsonReader.next();
     } catch (IOException e) {
       throw new UncheckedIOException(e); //should never happen
-    } finally {
-      if (timer != null) {
-        timer.stop();
-        logger.debug(String.format("Marc-json converted to MarcXml after %d ms", timer.getTime()));
+    }
+  }
+
+  /**
+   * Builds MARC record object from already parsed MarcJson.
+   *
+   * @param source MarcJson source.
+   * @return MARC record
+   */
+  protected Record readRecord(JsonObject source) {
+    Record record = buildRecord(source);
+    if (record == null) {
+      logger.debug("Marc-json has unexpected layout so it is read from encoded string");
+      return readRecord(source.encode());
+    }
+    return record;
+  }
+
+  /**
+   * @return MARC record or {@code null} if the source does not have expected MARC-in-JSON layout
+   */
+  private Record buildRecord(JsonObject source) {
+    Object leader = source.getValue(MarcJsonXmlConverter.LEADER);
+    Object fields = source.getValue(MarcJsonXmlConverter.FIELDS);
+    if (!(leader instanceof String) || (fields != null && !(fields instanceof JsonArray))) {
+      return null;
+    }
+    Record record = MARC_FACTORY.newRecord(fixBackslashes((String) leader));
+    if (fields != null) {
+      for (Object field : (JsonArray) fields) {
+        if (!(field instanceof JsonObject)) {
+          return null;
+        }
+        for (Map.Entry<String, Object> entry : (JsonObject) field) {
+          VariableField variableField = buildField(entry.getKey(), entry.getValue());
+          if (variableField == null) {
+            return null;
+          }
+          record.addVariableField(variableField);
+        }
+      }
+    }
+    return record;
+  }
+
+  private VariableField buildField(String tag, Object value) {
+    if (value instanceof String) {
+      return MARC_FACTORY.newControlField(fixBackslashes(tag), fixBackslashes((String) value));
+    }
+    if (!(value instanceof JsonObject)) {
+      return null;
+    }
+    JsonObject field = (JsonObject) value;
+    Object ind1 = field.getValue(MarcJsonXmlConverter.IND_1, " ");
+    Object ind2 = field.getValue(MarcJsonXmlConverter.IND_2, " ");
+    Object subfields = field.getValue(MarcJsonXmlConverter.SUBFIELDS);
+    if (!isSingleChar(ind1) || !isSingleChar(ind2) || (subfields != null && !(subfields instanceof JsonArray))) {
+      return null;
+    }
+    DataField dataField = MARC_FACTORY.newDataField(fixBackslashes(tag), toCode(ind1), toCode(ind2));
+    if (subfields != null) {
+      for (Object subfield : (JsonArray) subfields) {
+        if (!(subfield instanceof JsonObject)) {
+          return null;
+        }
+        for (Map.Entry<String, Object> entry : (JsonObject) subfield) {
+          if (!isSingleChar(entry.getKey()) || !(entry.getValue() instanceof String)) {
+            return null;
+          }
+          dataField.addSubfield(MARC_FACTORY.newSubfield(toCode(entry.getKey()), fixBackslashes((String) entry.getValue())));
+        }
       }
     }
+    return dataField;
+  }
+
+  private boolean isSingleChar(Object value) {
+    return value instanceof String && ((String) value).length() == 1;
+  }
+
+  private char toCode(Object value) {
+    return fixBackslashes((String) value).charAt(0);
   }
 
+  /**
+   * The same fix as for MarcJson string, i.e. backslash is replaced by space
+   */
+  private String fixBackslashes(String value) {
+    return value.replace('\\', ' ');
+  }
 }
@@ -0,0 +1,61 @@
+package org.folio.oaipmh.mappers;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of compiled XSLT stylesheets. Each stylesheet is compiled only once per JVM and the thread-safe {@link Templates}
+ * are shared by all the mappers which use the same stylesheet.
+ */
+public final class StylesheetRegistry {
+
+  private static final String MAPPER_CREATION_ERROR_MESSAGE = "Can't create mapper with provided stylesheet.";
+
+  private static final Map<String, Templates> TEMPLATES = new ConcurrentHashMap<>();
+  private static final AtomicLong compiledCount = new AtomicLong();
+
+  private StylesheetRegistry() {
+    throw new IllegalStateException("This class holds static methods only");
+  }
+
+  /**
+   * Gets compiled stylesheet compiling it if this is the first request for the stylesheet.
+   *
+   * @param stylesheet path to XSLT stylesheet.
+   * @return compiled stylesheet
+   * @throws IllegalStateException if can't create Template from provided stylesheet.
+   */
+  public static Templates getTemplates(String stylesheet) {
+    return TEMPLATES.computeIfAbsent(stylesheet, StylesheetRegistry::compile);
+  }
+
+  /**
+   * @return the number of stylesheets compiled since JVM start
+   */
+  public static long getCompiledCount() {
+    return compiledCount.get();
+  }
+
+  private static Templates compile(String stylesheet) {
+    try {
+      InputStream inputStream = Thread.currentThread().getContextClassLoader()
+        .getResourceAsStream(stylesheet);
+      TransformerFactory transformerFactory = TransformerFactory.newInstance();
+      transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      transformerFactory.setURIResolver((href, base) -> new StreamSource(Thread.currentThread()
+        .getContextClassLoader().getResourceAsStream(href)));
+      Templates templates = transformerFactory.newTemplates(new StreamSource(inputStream));
+      compiledCount.incrementAndGet();
+      return templates;
+    } catch (TransformerConfigurationException e) {
+      throw new IllegalStateException(MAPPER_CREATION_ERROR_MESSAGE, e);
+    }
+  }
+}
@@ -2,34 +2,43 @@ package org.folio.oaipmh.mappers;
 
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.json.JsonObject;
 import org.apache.commons.lang3.time.StopWatch;
+import org.marc4j.marc.Record;
+import org.xml.sax.InputSource;
 
-import javax.xml.XMLConstants;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
- * This class add XSLT post-processing to transform MarcXML to desired XML format.
+ * This class add XSLT post-processing to transform MarcXML to desired XML format. The MARC record is streamed into
+ * the transformation as SAX events, so the intermediate MarcXML document is neither serialized nor parsed.
  */
 public class XSLTMapper extends MarcXmlMapper {
   private static final Logger logger = LoggerFactory.getLogger(XSLTMapper.class);
 
-  private static final String MAPPER_CREATION_ERROR_MESSAGE = "Can't create mapper with provided stylesheet.";
   private static final String MAPPER_TRANSFORMATION_ERROR_MESSAGE = "Can't transform xml.";
 
+  private final String stylesheet;
   private final Templates template;
 
+  /*
+   * Transformer is not thread-safe but can be reused sequentially, so each thread keeps its own instance
+   * instead of creating new one for every record
+   */
+  private final ThreadLocal<Transformer> transformers = new ThreadLocal<>();
+  private final AtomicLong createdTransformersCount = new AtomicLong();
+  private final AtomicLong reusedTransformersCount = new AtomicLong();
+
   /**
    * Creates mapper with XSLT template.
    *
@@ -37,18 +46,8 @@ public class XSLTMapper extends MarcXmlMapper {
    * @throws IllegalStateException if can't create Template from provided stylesheet.
    */
   public XSLTMapper(String stylesheet) {
-    try {
-      InputStream inputStream = Thread.currentThread().getContextClassLoader()
-        .getResourceAsStream(stylesheet);
-      TransformerFactory transformerFactory = TransformerFactory.newInstance();
-      transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-      transformerFactory.setURIResolver((href, base) -> new StreamSource(Thread.currentThread()
-        .getContextClassLoader().getResourceAsStream(href)));
-      template = transformerFactory.newTemplates(new StreamSource(inputStream));
-
-    } catch (TransformerConfigurationException e) {
-      throw new IllegalStateException(MAPPER_CREATION_ERROR_MESSAGE, e);
-    }
+    this.stylesheet = stylesheet;
+    template = StylesheetRegistry.getTemplates(stylesheet);
   }
 
   /**
@@ -59,22 +58,65 @@ public class XSLTMapper extends MarcXmlMapper {
    */
   @Override
   public byte[] convert(String source) {
-    byte[] marcXmlResult = super.convert(source);
+    return transform(readRecord(source));
+  }
+
+  @Override
+  public byte[] convert(JsonObject source) {
+    return transform(readRecord(source));
+  }
+
+  private byte[] transform(Record record) {
     StopWatch timer = logger.isDebugEnabled() ? StopWatch.createStarted() : null;
     try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-      Transformer transformer = template.newTransformer();
-      transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-      transformer.transform(new StreamSource(new ByteArrayInputStream(marcXmlResult)),
+      Transformer transformer = getTransformer();
+      transformer.transform(new SAXSource(new MarcRecordXmlReader(record), new InputSource()),
                         new StreamResult(out));
       return out.toByteArray();
     } catch (TransformerException | IOException e) {
+      // The transformer state is unknown after failure so it should not be reused
+      transformers.remove();
       throw new IllegalStateException(MAPPER_TRANSFORMATION_ERROR_MESSAGE, e);
     } finally {
       if (timer != null) {
         timer.stop();
-        logger.debug(String.format("MarcXml converted to other format by XSLT transformation after %d ms", timer.getTime()));
+        logger.debug(String.format("Marc record converted to other format by XSLT transformation after %d ms", timer.getTime()));
       }
     }
   }
 
+  /**
+   * @return the number of transformers created by the mapper
+   */
+  public long getCreatedTransformersCount() {
+    return createdTransformersCount.get();
+  }
+
+  /**
+   * @return the number of times a transformer was reused by the mapper instead of creating new one
+   */
+  public long getReusedTransformersCount() {
+    return reusedTransformersCount.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("XSLT mapper of %s: transformers created=%d, reused=%d", stylesheet, getCreatedTransformersCount(),
+      getReusedTransformersCount());
+  }
+
+  private Transformer getTransformer() throws TransformerConfigurationException {
+    Transformer transformer = transformers.get();
+    if (transformer == null) {
+      transformer = template.newTransformer();
+      transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+      transformers.set(transformer);
+      createdTransformersCount.incrementAndGet();
+    } else {
+      transformer.clearParameters();
+      reusedTransformersCount.incrementAndGet();
+    }
+    return transformer;
+  }
+
 }
@@ -0,0 +1,72 @@
+package org.folio.oaipmh.mappers;
+
+/**
+ * Escapes text and attribute values the same way as the JDK XML serializer used for XSLT output does, so the documents
+ * built by the mappers as text are identical to the ones written by {@link javax.xml.transform.Transformer}.
+ */
+final class XmlEscapeUtils {
+
+  private XmlEscapeUtils() {
+    throw new IllegalStateException("This class holds static methods only");
+  }
+
+  /**
+   * Appends text content of an element escaping markup characters
+   * @param replaceBackslash {@code true} if backslashes should be replaced by spaces
+   */
+  static void appendEscapedText(StringBuilder builder, CharSequence value, boolean replaceBackslash) {
+    appendEscaped(builder, value, replaceBackslash, false);
+  }
+
+  static void appendEscapedText(StringBuilder builder, CharSequence value) {
+    appendEscaped(builder, value, false, false);
+  }
+
+  /**
+   * Appends attribute value escaping markup characters and quotes
+   * @param replaceBackslash {@code true} if backslashes should be replaced by spaces
+   */
+  static void appendEscapedAttribute(StringBuilder builder, CharSequence value, boolean replaceBackslash) {
+    appendEscaped(builder, value, replaceBackslash, true);
+  }
+
+  private static void appendEscaped(StringBuilder builder, CharSequence value, boolean replaceBackslash, boolean attribute) {
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '&':
+          builder.append("&amp;");
+          break;
+        case '<':
+          builder.append("&lt;");
+          break;
+        case '>':
+          builder.append("&gt;");
+          break;
+        case '\r':
+          builder.append("&#13;");
+          break;
+        case '"':
+          builder.append(attribute ? "&quot;" : "\"");
+          break;
+        case '\n':
+          builder.append(attribute ? "&#10;" : "\n");
+          break;
+        case '\t':
+          builder.append(attribute ? "&#9;" : "\t");
+          break;
+        case '\\':
+          builder.append(replaceBackslash ? ' ' : '\\');
+          break;
+        default:
+          // The serializer writes supplementary characters as character references
+          if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+            builder.append("&#").append(Character.toCodePoint(c, value.charAt(++i))).append(';');
+          } else {
+            builder.append(c);
+          }
+      }
+    }
+  }
+}
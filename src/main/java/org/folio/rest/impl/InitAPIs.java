@@ -1,6 +1,7 @@
 package org.folio.rest.impl;
 
 import static org.folio.oaipmh.Constants.CONFIGS_LIST;
+import static org.folio.oaipmh.Constants.RESUMPTION_TOKEN_SECRET;
 
 import java.util.Arrays;
 import java.util.HashSet;
@@ -9,6 +10,8 @@ import java.util.Properties;
 import java.util.Set;
 
 import org.folio.oaipmh.ResponseHelper;
+import org.folio.oaipmh.helpers.MetricsLogger;
+import org.folio.oaipmh.helpers.OkapiClientPool;
 import org.folio.oaipmh.helpers.configuration.ConfigurationHelper;
 import org.folio.rest.resource.interfaces.InitAPI;
 
@@ -50,12 +53,19 @@ public class InitAPIs implements InitAPI {
         });
       });
 
+      // The resumptionTokens are signed, so all instances of the module have to share the secret to accept each other's tokens
+      if (systemProperties.getProperty(RESUMPTION_TOKEN_SECRET, "").isEmpty()) {
+        throw new IllegalStateException("The " + RESUMPTION_TOKEN_SECRET + " system property is not specified.");
+      }
+
       // Initialize ResponseWriter and check if jaxb marshaller is ready to operate
       if (!ResponseHelper.getInstance()
         .isJaxbInitialized()) {
         throw new IllegalStateException("The jaxb marshaller failed initialization.");
       }
 
+      MetricsLogger.start(vertx);
+      OkapiClientPool.startEviction(vertx);
       OaiPmhImpl.init(resultHandler);
     } catch (Exception e) {
       resultHandler.handle(Future.failedFuture(e));
@@ -26,9 +26,6 @@ import java.util.function.Function;
 
 import static io.vertx.core.Future.succeededFuture;
 import static org.folio.oaipmh.Constants.GENERIC_ERROR_MESSAGE;
-import static org.folio.oaipmh.Constants.OKAPI_TENANT;
-import static org.folio.oaipmh.Constants.REPOSITORY_BASE_URL;
-import static org.folio.oaipmh.helpers.RepositoryConfigurationUtil.getProperty;
 import static org.openarchives.oai._2.VerbType.GET_RECORD;
 import static org.openarchives.oai._2.VerbType.IDENTIFY;
 import static org.openarchives.oai._2.VerbType.LIST_IDENTIFIERS;
@@ -58,11 +55,12 @@ public class OaiPmhImpl implements Oai {
                             Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
                             Context vertxContext) {
     RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, vertxContext)
-      .thenAccept(v -> {
+      .thenAccept(config -> {
 
         Request request = Request.builder()
                                   .okapiHeaders(okapiHeaders)
-                                  .baseURL(getProperty(okapiHeaders.get(OKAPI_TENANT), REPOSITORY_BASE_URL))
+                                  .baseURL(config.getBaseUrl())
+                                  .tenantConfig(config)
                                   .verb(LIST_RECORDS)
                                   .from(from).metadataPrefix(metadataPrefix).resumptionToken(resumptionToken).set(set).until(until)
                                   .build();
@@ -81,13 +79,14 @@ public class OaiPmhImpl implements Oai {
   public void getOaiRecordsById(String id, String metadataPrefix, Map<String, String> okapiHeaders,
                                 Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
     RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, vertxContext)
-      .thenAccept(v -> {
+      .thenAccept(config -> {
         try {
           Request request = Request.builder()
             .identifier(URLDecoder.decode(id, "UTF-8"))
             .okapiHeaders(okapiHeaders)
             .verb(GET_RECORD)
-            .baseURL(getProperty(okapiHeaders.get(OKAPI_TENANT), REPOSITORY_BASE_URL))
+            .baseURL(config.getBaseUrl())
+            .tenantConfig(config)
             .metadataPrefix(metadataPrefix)
             .build();
 
@@ -109,11 +108,12 @@ public class OaiPmhImpl implements Oai {
                                 Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
                                 Context vertxContext) {
     RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, vertxContext)
-      .thenAccept(v -> {
+      .thenAccept(config -> {
 
         Request request = Request.builder()
                                   .okapiHeaders(okapiHeaders)
-                                  .baseURL(getProperty(okapiHeaders.get(OKAPI_TENANT), REPOSITORY_BASE_URL))
+                                  .baseURL(config.getBaseUrl())
+                                  .tenantConfig(config)
                                   .verb(LIST_IDENTIFIERS)
                                   .from(from).metadataPrefix(metadataPrefix).resumptionToken(resumptionToken).set(set).until(until)
                                   .build();
@@ -128,14 +128,16 @@ public class OaiPmhImpl implements Oai {
   }
 
   @Override
-  public void getOaiMetadataFormats(String identifier, Map<String, String> okapiHeaders,
+  public void getOaiMetadataFormats(String identifier, String ifNoneMatch, Map<String, String> okapiHeaders,
                                     Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
     RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, vertxContext)
-      .thenAccept(v -> {
+      .thenAccept(config -> {
         Request request = Request.builder()
                                   .identifier(identifier)
+                                  .ifNoneMatch(ifNoneMatch)
                                   .verb(LIST_METADATA_FORMATS)
-                                  .baseURL(getProperty(okapiHeaders.get(OKAPI_TENANT), REPOSITORY_BASE_URL))
+                                  .baseURL(config.getBaseUrl())
+                                  .tenantConfig(config)
                                   .okapiHeaders(okapiHeaders)
                                   .build();
         HELPERS.get(LIST_METADATA_FORMATS)
@@ -148,16 +150,18 @@ public class OaiPmhImpl implements Oai {
   }
 
   @Override
-  public void getOaiSets(String resumptionToken, Map<String, String> okapiHeaders,
+  public void getOaiSets(String resumptionToken, String ifNoneMatch, Map<String, String> okapiHeaders,
                          Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
     RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, vertxContext)
-      .thenAccept(v -> {
+      .thenAccept(config -> {
 
         Request request = Request.builder()
           .okapiHeaders(okapiHeaders)
           .verb(LIST_SETS)
-          .baseURL(getProperty(okapiHeaders.get(OKAPI_TENANT), REPOSITORY_BASE_URL))
+          .baseURL(config.getBaseUrl())
+          .tenantConfig(config)
           .resumptionToken(resumptionToken)
+          .ifNoneMatch(ifNoneMatch)
           .build();
 
         HELPERS.get(LIST_SETS)
@@ -170,14 +174,16 @@ public class OaiPmhImpl implements Oai {
   }
 
   @Override
-  public void getOaiRepositoryInfo(Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncResultHandler,
-                                   Context vertxContext) {
+  public void getOaiRepositoryInfo(String ifNoneMatch, Map<String, String> okapiHeaders,
+                                   Handler<AsyncResult<Response>> asyncResultHandler, Context vertxContext) {
     RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, vertxContext)
-      .thenAccept(v -> {
+      .thenAccept(config -> {
         Request request = Request.builder()
-          .baseURL(getProperty(okapiHeaders.get(OKAPI_TENANT), REPOSITORY_BASE_URL))
+          .baseURL(config.getBaseUrl())
+          .tenantConfig(config)
           .verb(IDENTIFY)
           .okapiHeaders(okapiHeaders)
+          .ifNoneMatch(ifNoneMatch)
           .build();
 
         HELPERS.get(IDENTIFY)
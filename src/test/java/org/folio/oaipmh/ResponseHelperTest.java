@@ -3,19 +3,29 @@ package org.folio.oaipmh;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import org.junit.jupiter.api.Test;
+import org.openarchives.oai._2.HeaderType;
+import org.openarchives.oai._2.ListIdentifiersType;
+import org.openarchives.oai._2.ListRecordsType;
 import org.openarchives.oai._2.OAIPMH;
 import org.openarchives.oai._2.OAIPMHerrorType;
 import org.openarchives.oai._2.OAIPMHerrorcodeType;
+import org.openarchives.oai._2.RecordType;
 import org.openarchives.oai._2.RequestType;
+import org.openarchives.oai._2.ResumptionTokenType;
+import org.openarchives.oai._2.VerbType;
 
 import javax.xml.bind.JAXBException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.text.IsEmptyString.isEmptyOrNullString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 
@@ -64,4 +74,98 @@ class ResponseHelperTest {
 
     assertThat(oaipmh, equalTo(oaipmhFromString));
   }
+
+  @Test
+  void marshallersAndUnmarshallersReused() {
+    OAIPMH oaipmh = new OAIPMH()
+      .withResponseDate(Instant.EPOCH)
+      .withRequest(new RequestType().withValue("oai"))
+      .withErrors(new OAIPMHerrorType().withCode(OAIPMHerrorcodeType.BAD_VERB).withValue("error"));
+    ResponseHelper responseHelper = ResponseHelper.getInstance();
+
+    // Make sure there is at least one idle marshaller and unmarshaller in the pools
+    responseHelper.stringToOaiPmh(responseHelper.writeToString(oaipmh));
+    long marshallersReused = responseHelper.getMarshallerPool().getReusedCount();
+    long unmarshallersReused = responseHelper.getUnmarshallerPool().getReusedCount();
+
+    responseHelper.stringToOaiPmh(responseHelper.writeToString(oaipmh));
+
+    assertThat(responseHelper.getMarshallerPool().getReusedCount(), greaterThan(marshallersReused));
+    assertThat(responseHelper.getUnmarshallerPool().getReusedCount(), greaterThan(unmarshallersReused));
+  }
+
+  @Test
+  void streamedListIdentifiers() {
+    HeaderType header = new HeaderType().withIdentifier("oai:test:1").withDatestamp(Instant.EPOCH).withSetSpecs("all");
+    ResumptionTokenType resumptionToken = new ResumptionTokenType().withValue("token").withCursor(BigInteger.ZERO);
+    OAIPMH oaipmh = buildBaseResponse(VerbType.LIST_IDENTIFIERS);
+
+    StreamingResponseWriter writer = ResponseHelper.getInstance().createStreamingWriter(oaipmh);
+    writer.writeHeader(header);
+    writer.writeHeader(header);
+    String result = writer.finish(resumptionToken).toString();
+
+    assertThat(writer.getWrittenCount(), equalTo(2));
+    // Streamed response is validated against schema while unmarshalling
+    OAIPMH oaipmhFromString = ResponseHelper.getInstance().stringToOaiPmh(result);
+    OAIPMH expected = oaipmh.withListIdentifiers(new ListIdentifiersType()
+      .withHeaders(header, header)
+      .withResumptionToken(resumptionToken));
+
+    assertThat(oaipmhFromString, equalTo(expected));
+  }
+
+  @Test
+  void streamedListRecords() {
+    RecordType record = new RecordType()
+      .withHeader(new HeaderType().withIdentifier("oai:test:1").withDatestamp(Instant.EPOCH).withSetSpecs("all"));
+    OAIPMH oaipmh = buildBaseResponse(VerbType.LIST_RECORDS);
+
+    StreamingResponseWriter writer = ResponseHelper.getInstance().createStreamingWriter(oaipmh);
+    writer.writeRecord(record);
+    String result = writer.finish(null).toString();
+
+    OAIPMH oaipmhFromString = ResponseHelper.getInstance().stringToOaiPmh(result);
+    OAIPMH expected = oaipmh.withListRecords(new ListRecordsType().withRecords(record));
+
+    assertThat(oaipmhFromString, equalTo(expected));
+  }
+
+  @Test
+  void streamedRecordWithRawMetadata() {
+    HeaderType header = new HeaderType().withIdentifier("oai:test:1").withDatestamp(Instant.EPOCH).withSetSpecs("all");
+    String marcXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+      + "<record xmlns=\"http://www.loc.gov/MARC21/slim\"><leader>00714cam a2200205 a 4500</leader>"
+      + "<controlfield tag=\"001\">12883376</controlfield></record>";
+
+    StreamingResponseWriter writer = ResponseHelper.getInstance().createStreamingWriter(buildBaseResponse(VerbType.GET_RECORD));
+    writer.writeRecord(header, marcXml.getBytes(StandardCharsets.UTF_8));
+    String result = writer.finish(null).toString();
+
+    // Streamed response is validated against schema while unmarshalling
+    OAIPMH oaipmhFromString = ResponseHelper.getInstance().stringToOaiPmh(result);
+    RecordType record = oaipmhFromString.getGetRecord().getRecord();
+    assertThat(record.getHeader(), equalTo(header));
+    assertThat(record.getMetadata().getAny(), instanceOf(gov.loc.marc21.slim.RecordType.class));
+    gov.loc.marc21.slim.RecordType marcRecord = (gov.loc.marc21.slim.RecordType) record.getMetadata().getAny();
+    assertThat(marcRecord.getControlfields().get(0).getValue(), equalTo("12883376"));
+  }
+
+  @Test
+  void streamedInvalidRecordRejected() {
+    HeaderType header = new HeaderType().withIdentifier("oai:test:1").withDatestamp(Instant.EPOCH).withSetSpecs("all");
+    String marcXml = "<record xmlns=\"http://www.loc.gov/MARC21/slim\"><unknown/></record>";
+
+    // The validation is enabled for the tests, so the streamed response is validated the same way the marshalled one is
+    StreamingResponseWriter writer = ResponseHelper.getInstance().createStreamingWriter(buildBaseResponse(VerbType.GET_RECORD));
+    writer.writeRecord(header, marcXml.getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(IllegalStateException.class, () -> writer.finish(null));
+  }
+
+  private OAIPMH buildBaseResponse(VerbType verb) {
+    return new OAIPMH()
+      .withResponseDate(Instant.EPOCH)
+      .withRequest(new RequestType().withVerb(verb).withMetadataPrefix("oai_dc").withValue("http://folio.org/oai"));
+  }
 }
@@ -0,0 +1,120 @@
+package org.folio.oaipmh;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+class ResumptionTokenTest {
+
+  private static final String RECORD_ID = "6506b79b-7702-48b2-9774-a1c538fdd34e";
+
+  @Test
+  void encodedTokenRestoredTest() {
+    ResumptionToken token = createToken();
+    token.lastRecordId = "not-uuid-id";
+    token.from = "invalid date";
+
+    ResumptionToken restored = ResumptionToken.decode(token.encode());
+
+    assertThat(restored, is(notNullValue()));
+    assertThat(restored.metadataPrefix, is(equalTo("oai_dc")));
+    assertThat(restored.from, is(equalTo("invalid date")));
+    assertThat(restored.until, is(equalTo("2020-01-01T10:00:00Z")));
+    assertThat(restored.set, is(equalTo("all")));
+    assertThat(restored.offset, is(100));
+    assertThat(restored.totalRecords, is(1000));
+    assertThat(restored.nextRecordId, is(equalTo(RECORD_ID)));
+    assertThat(restored.lastUpdatedDate, is(equalTo("2018-11-20T07:23:11.172+0000")));
+    assertThat(restored.lastRecordId, is(equalTo("not-uuid-id")));
+  }
+
+  @Test
+  void datesRestoredTest() {
+    ResumptionToken token = new ResumptionToken();
+    token.from = "1900-01-01";
+    token.until = "2003-10-01T00:00:00Z";
+    token.lastUpdatedDate = "2018-11-20T07:23:11.172+0300";
+
+    ResumptionToken restored = ResumptionToken.decode(token.encode());
+
+    assertThat(restored.from, is(equalTo("1900-01-01")));
+    assertThat(restored.until, is(equalTo("2003-10-01T00:00:00Z")));
+    assertThat(restored.lastUpdatedDate, is(equalTo("2018-11-20T07:23:11.172+0300")));
+    assertThat(restored.metadataPrefix, is(nullValue()));
+    assertThat(restored.nextRecordId, is(nullValue()));
+  }
+
+  @Test
+  void tokenIsCompactTest() {
+    ResumptionToken token = createToken();
+    token.lastRecordId = RECORD_ID;
+    String legacyToken = Base64.getUrlEncoder().encodeToString(("metadataPrefix=oai_dc&until=2020-01-01T10:00:00Z&set=all"
+      + "&offset=100&totalRecords=1000&nextRecordId=" + RECORD_ID + "&lastUpdatedDate=2018-11-20T07%3A23%3A11.172%2B0000"
+      + "&lastRecordId=" + RECORD_ID).getBytes(UTF_8));
+
+    assertThat(token.encode().length(), is(lessThan(legacyToken.length() / 2)));
+  }
+
+  @Test
+  void forgedTokenRejectedTest() {
+    byte[] bytes = Base64.getUrlDecoder().decode(createToken().encode());
+    // offset is changed from 100 to 101
+    bytes[2]++;
+
+    assertThat(ResumptionToken.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes)), is(nullValue()));
+    assertThat(ResumptionToken.decode(createToken().encode().substring(4)), is(nullValue()));
+    assertThat(ResumptionToken.decode("!@#"), is(nullValue()));
+  }
+
+  @Test
+  void legacyTokenRestoredTest() {
+    // base64 encoded string:
+    // metadataPrefix=oai_dc&from=2003-01-01T00:00:00Z&until=2003-10-01T00:00:00Z&set=all
+    // &offset=0&totalRecords=100&nextRecordId=04489a01-f3cd-4f9e-9be4-d9c198703f46
+    String legacyToken = "bWV0YWRhdGFQcmVmaXg9b2FpX2RjJmZyb209MjAwMy0wMS0wMVQwMDowMDowMFomdW50aWw9MjAwMy" +
+      "0xMC0wMVQwMDowMDowMFomc2V0PWFsbCZvZmZzZXQ9MCZ0b3RhbFJlY29yZHM9MTAwJm5leHRSZWNvcmRJZD0wNDQ4OWEwMS1mM2N" +
+      "kLTRmOWUtOWJlNC1kOWMxOTg3MDNmNDY";
+
+    ResumptionToken restored = ResumptionToken.decode(legacyToken);
+
+    assertThat(restored, is(notNullValue()));
+    assertThat(restored.metadataPrefix, is(equalTo("oai_dc")));
+    assertThat(restored.from, is(equalTo("2003-01-01T00:00:00Z")));
+    assertThat(restored.totalRecords, is(100));
+    assertThat(restored.nextRecordId, is(equalTo("04489a01-f3cd-4f9e-9be4-d9c198703f46")));
+    assertThat(ResumptionToken.decode(Base64.getUrlEncoder().encodeToString("offset=many".getBytes(UTF_8))), is(nullValue()));
+  }
+
+  @Test
+  void legacyTokenRejectedIfNotAcceptedTest() {
+    String legacyToken = Base64.getUrlEncoder().encodeToString("offset=0&totalRecords=100".getBytes(UTF_8));
+    assertThat(ResumptionToken.decode(legacyToken), is(notNullValue()));
+
+    System.setProperty("resumptionToken.acceptLegacy", "false");
+    try {
+      assertThat(ResumptionToken.decode(legacyToken), is(nullValue()));
+    } finally {
+      System.clearProperty("resumptionToken.acceptLegacy");
+    }
+  }
+
+  private ResumptionToken createToken() {
+    ResumptionToken token = new ResumptionToken();
+    token.metadataPrefix = "oai_dc";
+    token.until = "2020-01-01T10:00:00Z";
+    token.set = "all";
+    token.offset = 100;
+    token.totalRecords = 1000;
+    token.nextRecordId = RECORD_ID;
+    token.lastUpdatedDate = "2018-11-20T07:23:11.172+0000";
+    return token;
+  }
+}
@@ -0,0 +1,67 @@
+package org.folio.oaipmh;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openarchives.oai._2.DeletedRecordType;
+import org.openarchives.oai._2.GranularityType;
+
+import static org.folio.oaipmh.Constants.REPOSITORY_DELETED_RECORDS;
+import static org.folio.oaipmh.Constants.REPOSITORY_MAX_RECORDS_PER_RESPONSE;
+import static org.folio.oaipmh.Constants.REPOSITORY_NAME;
+import static org.folio.oaipmh.Constants.REPOSITORY_TIME_GRANULARITY;
+import static org.folio.oaipmh.Constants.REPOSITORY_TOTAL_RECORDS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TenantConfigTest {
+
+  @AfterEach
+  void cleanUp() {
+    System.clearProperty(REPOSITORY_NAME);
+    System.clearProperty(REPOSITORY_MAX_RECORDS_PER_RESPONSE);
+  }
+
+  @Test
+  void testTenantConfigOverridesSystemProperties() {
+    System.setProperty(REPOSITORY_NAME, "System repository");
+    System.setProperty(REPOSITORY_MAX_RECORDS_PER_RESPONSE, "50");
+
+    TenantConfig config = TenantConfig.of(new JsonObject()
+      .put(REPOSITORY_MAX_RECORDS_PER_RESPONSE, "10")
+      .put(REPOSITORY_TIME_GRANULARITY, GranularityType.YYYY_MM_DD.value())
+      .put(REPOSITORY_DELETED_RECORDS, DeletedRecordType.PERSISTENT.value())
+      .put(REPOSITORY_TOTAL_RECORDS, "Session"));
+
+    assertThat(config.getRepositoryName(), is(equalTo("System repository")));
+    assertThat(config.getMaxRecordsPerResponse(), is(10));
+    assertThat(config.getTimeGranularity(), is(GranularityType.YYYY_MM_DD));
+    assertThat(config.getDeletedRecords(), is(DeletedRecordType.PERSISTENT));
+    assertThat(config.getTotalRecords(), is(TenantConfig.TotalRecords.SESSION));
+    assertThrows(UnsupportedOperationException.class, () -> config.getProperties().put(REPOSITORY_NAME, "name"));
+  }
+
+  @Test
+  void testInvalidValues() {
+    TenantConfig config = TenantConfig.of(new JsonObject()
+      .put(REPOSITORY_MAX_RECORDS_PER_RESPONSE, "many")
+      .put(REPOSITORY_TIME_GRANULARITY, "seconds")
+      .put(REPOSITORY_TOTAL_RECORDS, "approximate"));
+
+    assertThat(config.getMaxRecordsPerResponse(), is(100));
+    assertThat(config.getTimeGranularity(), is(nullValue()));
+    assertThat(config.getTotalRecords(), is(TenantConfig.TotalRecords.EXACT));
+  }
+
+  @Test
+  void testSnapshotsEquality() {
+    JsonObject json = new JsonObject().put(REPOSITORY_MAX_RECORDS_PER_RESPONSE, "10");
+
+    assertThat(TenantConfig.of(json), is(equalTo(TenantConfig.of(json.copy()))));
+    assertThat(TenantConfig.of(json), is(not(equalTo(TenantConfig.of(null)))));
+  }
+}
@@ -0,0 +1,132 @@
+package org.folio.oaipmh.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimiterTest {
+
+  @Test
+  void operationsQueuedOverLimitTest() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+    List<CompletableFuture<Integer>> operations = new ArrayList<>();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      results.add(limiter.execute(() -> startOperation(operations)));
+    }
+
+    assertThat(operations.size(), is(2));
+    assertThat(limiter.getInFlightCount(), is(2));
+    assertThat(limiter.getQueueDepth(), is(3));
+
+    // Completion of the operation starts the next queued one
+    operations.get(0).complete(0);
+    assertThat(results.get(0).join(), is(0));
+    assertThat(operations.size(), is(3));
+    assertThat(limiter.getInFlightCount(), is(2));
+    assertThat(limiter.getQueueDepth(), is(2));
+
+    for (int i = 1; i < 5; i++) {
+      operations.get(i).complete(i);
+    }
+    for (int i = 0; i < 5; i++) {
+      assertThat(results.get(i).join(), is(i));
+    }
+    assertThat(limiter.getInFlightCount(), is(0));
+    assertThat(limiter.getQueueDepth(), is(0));
+    assertThat(limiter.getMaxQueueDepth(), is(3));
+    assertThat(limiter.getStartedCount(), is(5L));
+    assertThat(limiter.getQueuedCount(), is(3L));
+  }
+
+  @Test
+  void parentLimitSharedByChildrenTest() {
+    ConcurrencyLimiter parent = new ConcurrencyLimiter(3);
+    ConcurrencyLimiter first = new ConcurrencyLimiter(2, parent);
+    ConcurrencyLimiter second = new ConcurrencyLimiter(2, parent);
+    List<CompletableFuture<Integer>> operations = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      first.execute(() -> startOperation(operations));
+      second.execute(() -> startOperation(operations));
+    }
+
+    assertThat(operations.size(), is(3));
+    assertThat(parent.getInFlightCount(), is(3));
+    assertThat(parent.getQueueDepth(), is(1));
+    assertThat(first.getInFlightCount(), is(2));
+    assertThat(second.getInFlightCount(), is(2));
+
+    operations.get(0).complete(0);
+    assertThat(operations.size(), is(4));
+    assertThat(parent.getQueueDepth(), is(0));
+    assertThat(first.getInFlightCount() + second.getInFlightCount(), is(3));
+  }
+
+  @Test
+  void failedOperationReleasesSlotTest() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+    List<CompletableFuture<Integer>> operations = new ArrayList<>();
+    CompletableFuture<Integer> failed = limiter.execute(() -> {
+      throw new IllegalStateException("Operation cannot be started");
+    });
+    CompletableFuture<Integer> next = limiter.execute(() -> startOperation(operations));
+
+    ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+    assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+    assertThat(operations.size(), is(1));
+
+    operations.get(0).completeExceptionally(new IllegalStateException("Operation failed"));
+    assertThat(next.isCompletedExceptionally(), is(true));
+    assertThat(limiter.getInFlightCount(), is(0));
+  }
+
+  @Test
+  void increasedLimitStartsQueuedOperationsTest() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+    List<CompletableFuture<Integer>> operations = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      limiter.execute(() -> startOperation(operations));
+    }
+    assertThat(operations.size(), is(1));
+
+    limiter.setMaxInFlight(0);
+    assertThat(operations.size(), is(3));
+    assertThat(limiter.getQueueDepth(), is(0));
+    assertThat(limiter.getInFlightCount(), is(3));
+  }
+
+  @Test
+  void tenantLimiterSharedByRequestsTest() {
+    ConcurrencyLimiter limiter = ConcurrencyLimiter.getTenantLimiter("limiterTestTenant", 5);
+    assertThat(ConcurrencyLimiter.getTenantLimiter("limiterTestTenant", 10), is(limiter));
+    assertThat(limiter.getMaxInFlight(), is(10));
+    assertThat(ConcurrencyLimiter.getTenantLimiters().get("limiterTestTenant"), equalTo(limiter));
+  }
+
+  @Test
+  void idleTenantLimiterEvictedTest() {
+    ConcurrencyLimiter busyLimiter = ConcurrencyLimiter.getTenantLimiter("busyLimiterTestTenant", 5);
+    busyLimiter.execute(() -> startOperation(new ArrayList<>()));
+    ConcurrencyLimiter.getTenantLimiter("idleLimiterTestTenant", 5);
+
+    ConcurrencyLimiter.evictIdleTenantLimiters(0);
+
+    assertThat(ConcurrencyLimiter.getTenantLimiters().containsKey("idleLimiterTestTenant"), is(false));
+    assertThat(ConcurrencyLimiter.getTenantLimiters().get("busyLimiterTestTenant"), equalTo(busyLimiter));
+  }
+
+  private CompletableFuture<Integer> startOperation(List<CompletableFuture<Integer>> operations) {
+    CompletableFuture<Integer> operation = new CompletableFuture<>();
+    operations.add(operation);
+    return operation;
+  }
+}
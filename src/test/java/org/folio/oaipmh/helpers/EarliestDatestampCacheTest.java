@@ -0,0 +1,87 @@
+package org.folio.oaipmh.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EarliestDatestampCacheTest {
+
+  private static final String KEY = "http://localhost|diku";
+  private static final Instant FIRST = Instant.parse("2018-09-19T02:52:18Z");
+  private static final Instant SECOND = Instant.parse("2018-11-20T09:14:35Z");
+
+  @Test
+  void cachedDatestampReturnedWithoutSearchTest() {
+    EarliestDatestampCache cache = new EarliestDatestampCache(60_000);
+    AtomicInteger searches = new AtomicInteger();
+
+    assertThat(cache.get(KEY, () -> search(searches, FIRST)).join(), is(FIRST));
+    assertThat(cache.get(KEY, () -> search(searches, SECOND)).join(), is(FIRST));
+    assertThat(searches.get(), is(1));
+  }
+
+  @Test
+  void expiredDatestampReturnedWhileRefreshedTest() {
+    EarliestDatestampCache cache = new EarliestDatestampCache(0);
+    CompletableFuture<Instant> refresh = new CompletableFuture<>();
+
+    cache.get(KEY, () -> CompletableFuture.completedFuture(FIRST)).join();
+
+    assertThat(cache.get(KEY, () -> refresh).join(), is(FIRST));
+    refresh.complete(SECOND);
+    assertThat(cache.get(KEY, CompletableFuture::new).join(), is(SECOND));
+  }
+
+  @Test
+  void previousDatestampKeptOnFailureTest() {
+    EarliestDatestampCache cache = new EarliestDatestampCache(0);
+
+    cache.get(KEY, () -> CompletableFuture.completedFuture(FIRST)).join();
+    cache.get(KEY, () -> failedSearch());
+
+    assertThat(cache.get(KEY, () -> failedSearch()).join(), is(FIRST));
+  }
+
+  @Test
+  void concurrentSearchesCoalescedTest() {
+    EarliestDatestampCache cache = new EarliestDatestampCache(60_000);
+    CompletableFuture<Instant> search = new CompletableFuture<>();
+    AtomicInteger searches = new AtomicInteger();
+
+    CompletableFuture<Instant> first = cache.get(KEY, () -> {
+      searches.incrementAndGet();
+      return search;
+    });
+    CompletableFuture<Instant> second = cache.get(KEY, () -> search(searches, SECOND));
+    search.complete(FIRST);
+
+    assertThat(first.join(), is(FIRST));
+    assertThat(second.join(), is(FIRST));
+    assertThat(searches.get(), is(1));
+  }
+
+  @Test
+  void failureWithoutDatestampTest() {
+    EarliestDatestampCache cache = new EarliestDatestampCache(60_000);
+
+    assertThrows(CompletionException.class, () -> cache.get(KEY, () -> failedSearch()).join());
+  }
+
+  private CompletableFuture<Instant> search(AtomicInteger searches, Instant datestamp) {
+    searches.incrementAndGet();
+    return CompletableFuture.completedFuture(datestamp);
+  }
+
+  private CompletableFuture<Instant> failedSearch() {
+    CompletableFuture<Instant> future = new CompletableFuture<>();
+    future.completeExceptionally(new IllegalStateException("Storage is not available"));
+    return future;
+  }
+}
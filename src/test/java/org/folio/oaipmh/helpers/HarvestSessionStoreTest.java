@@ -0,0 +1,74 @@
+package org.folio.oaipmh.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class HarvestSessionStoreTest {
+
+  private static final String TENANT = "diku";
+
+  @Test
+  void harvestResumedTest() {
+    HarvestSessionStore store = new HarvestSessionStore(10, 60_000);
+
+    HarvestSessionStore.SessionToken first = store.issue(TENANT, null, "state1", 100, 10);
+    HarvestSessionStore.SessionToken resumed = store.resume(TENANT, first.getValue());
+    assertThat(resumed, is(sameInstance(first)));
+    assertThat(resumed.getState(), is(equalTo("state1")));
+    assertThat(resumed.getExpirationDate().isAfter(Instant.now()), is(true));
+
+    HarvestSessionStore.SessionToken second = store.issue(TENANT, resumed, "state2", 90, 10);
+    assertThat(second.getValue(), is(not(equalTo(first.getValue()))));
+    assertThat(second.getSession(), is(sameInstance(first.getSession())));
+    // The number of records found by the first request is kept for the whole harvest
+    assertThat(second.getSession().getCompleteListSize(), is(100));
+
+    store.complete(store.resume(TENANT, second.getValue()), 5);
+    assertThat(second.getSession().getPagesCount(), is(3));
+    assertThat(second.getSession().getRecordsCount(), is(25L));
+    assertThat(store.getStartedCount(), is(1L));
+    assertThat(store.getResumedCount(), is(2L));
+    assertThat(store.getCompletedCount(), is(1L));
+  }
+
+  @Test
+  void tokenOfAnotherTenantNotResumedTest() {
+    HarvestSessionStore store = new HarvestSessionStore(10, 60_000);
+    HarvestSessionStore.SessionToken token = store.issue(TENANT, null, "state", 100, 10);
+
+    assertThat(store.resume("another", token.getValue()), is(nullValue()));
+    assertThat(store.resume(TENANT, "unknown"), is(nullValue()));
+    assertThat(store.getMissCount(), is(2L));
+  }
+
+  @Test
+  void expiredTokenEvictedTest() {
+    HarvestSessionStore store = new HarvestSessionStore(10, 0);
+    HarvestSessionStore.SessionToken token = store.issue(TENANT, null, "state", 100, 10);
+
+    assertThat(store.resume(TENANT, token.getValue()), is(nullValue()));
+    assertThat(store.getEvictedCount(), is(1L));
+    assertThat(store.getEntriesCount(), is(0));
+  }
+
+  @Test
+  void oldestTokenEvictedTest() {
+    HarvestSessionStore store = new HarvestSessionStore(2, 60_000);
+    HarvestSessionStore.SessionToken first = store.issue(TENANT, null, "state1", 100, 10);
+    HarvestSessionStore.SessionToken second = store.issue(TENANT, null, "state2", 100, 10);
+    HarvestSessionStore.SessionToken third = store.issue(TENANT, null, "state3", 100, 10);
+
+    assertThat(store.getEntriesCount(), is(2));
+    assertThat(store.resume(TENANT, first.getValue()), is(nullValue()));
+    assertThat(store.resume(TENANT, second.getValue()), is(sameInstance(second)));
+    assertThat(store.resume(TENANT, third.getValue()), is(sameInstance(third)));
+  }
+}
@@ -0,0 +1,110 @@
+package org.folio.oaipmh.helpers;
+
+import org.folio.rest.tools.client.interfaces.HttpClientInterface;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class OkapiClientPoolTest {
+
+  private final Set<HttpClientInterface> closedClients = new HashSet<>();
+
+  @Test
+  void clientReusedAfterReleaseTest() {
+    OkapiClientPool pool = new OkapiClientPool(this::createClient, 2, 60_000);
+
+    HttpClientInterface client = pool.borrow();
+    assertThat(pool.getActiveCount(), is(1));
+    pool.release(client);
+
+    assertThat(pool.getIdleCount(), is(1));
+    assertThat(pool.borrow(), is(sameInstance(client)));
+    assertThat(pool.getCreatedCount(), is(1L));
+    assertThat(pool.getReusedCount(), is(1L));
+    assertThat(closedClients.isEmpty(), is(true));
+  }
+
+  @Test
+  void clientClosedIfPoolIsFullTest() {
+    OkapiClientPool pool = new OkapiClientPool(this::createClient, 1, 60_000);
+
+    HttpClientInterface first = pool.borrow();
+    HttpClientInterface second = pool.borrow();
+    assertThat(second, is(not(sameInstance(first))));
+    assertThat(pool.getActiveCount(), is(2));
+
+    pool.release(first);
+    pool.release(second);
+
+    assertThat(pool.getActiveCount(), is(0));
+    assertThat(pool.getIdleCount(), is(1));
+    assertThat(closedClients.contains(second), is(true));
+  }
+
+  @Test
+  void invalidatedClientClosedTest() {
+    OkapiClientPool pool = new OkapiClientPool(this::createClient, 2, 60_000);
+
+    HttpClientInterface client = pool.borrow();
+    pool.invalidate(client);
+
+    assertThat(pool.getActiveCount(), is(0));
+    assertThat(pool.getIdleCount(), is(0));
+    assertThat(closedClients.contains(client), is(true));
+    assertThat(pool.borrow(), is(not(sameInstance(client))));
+  }
+
+  @Test
+  void idleClientEvictedTest() {
+    OkapiClientPool pool = new OkapiClientPool(this::createClient, 2, 0);
+
+    HttpClientInterface client = pool.borrow();
+    pool.release(client);
+
+    assertThat(pool.borrow(), is(not(sameInstance(client))));
+    assertThat(pool.getEvictedCount(), is(1L));
+    assertThat(closedClients.contains(client), is(true));
+  }
+
+  @Test
+  void idleClientEvictedWithoutUsingPoolTest() {
+    OkapiClientPool pool = new OkapiClientPool(this::createClient, 2, 0);
+
+    HttpClientInterface client = pool.borrow();
+    pool.release(client);
+    pool.evict();
+
+    assertThat(pool.getIdleCount(), is(0));
+    assertThat(closedClients.contains(client), is(true));
+  }
+
+  @Test
+  void poolSharedByTenantTest() {
+    OkapiClientPool pool = OkapiClientPool.getInstance("http://localhost:9130", "poolTestTenant");
+
+    assertThat(OkapiClientPool.getInstance("http://localhost:9130", "poolTestTenant"), is(sameInstance(pool)));
+    assertThat(OkapiClientPool.getInstance("http://localhost:9130", "anotherPoolTestTenant"), is(not(sameInstance(pool))));
+    assertThat(OkapiClientPool.getPools().get("http://localhost:9130|poolTestTenant"), is(sameInstance(pool)));
+  }
+
+  private HttpClientInterface createClient() {
+    return (HttpClientInterface) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { HttpClientInterface.class },
+      (proxy, method, args) -> {
+        if ("closeClient".equals(method.getName())) {
+          closedClients.add((HttpClientInterface) proxy);
+        } else if ("hashCode".equals(method.getName())) {
+          return System.identityHashCode(proxy);
+        } else if ("equals".equals(method.getName())) {
+          return proxy == args[0];
+        }
+        return null;
+      });
+  }
+}
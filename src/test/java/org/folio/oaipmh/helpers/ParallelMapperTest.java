@@ -0,0 +1,117 @@
+package org.folio.oaipmh.helpers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelMapperTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+  private final ExecutorService consumerExecutor = Executors.newSingleThreadExecutor();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+    consumerExecutor.shutdownNow();
+  }
+
+  @Test
+  void orderKeptTest() {
+    ParallelMapper mapper = new ParallelMapper(executor, 4, 10);
+    List<Integer> items = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+    List<String> results = mapper.map(items, item -> {
+      // The later items are mapped faster, so the chunks complete in reverse order
+      sleep(100 - item);
+      return String.valueOf(item);
+    }).join();
+
+    assertThat(results, is(equalTo(items.stream().map(String::valueOf).collect(Collectors.toList()))));
+  }
+
+  @Test
+  void requestParallelismLimitedTest() {
+    ParallelMapper mapper = new ParallelMapper(executor, 3, 1);
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    List<Integer> items = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+    mapper.map(items, item -> threads.add(Thread.currentThread().getName())).join();
+
+    assertThat(threads.size(), is(lessThanOrEqualTo(3)));
+  }
+
+  @Test
+  void smallPageNotSplitTest() {
+    ParallelMapper mapper = new ParallelMapper(executor, 4, 10);
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    mapper.map(new ArrayList<>(Collections.nCopies(15, 1)), item -> threads.add(Thread.currentThread().getName())).join();
+
+    assertThat(threads.size(), is(1));
+    assertThat(mapper.map(Collections.emptyList(), item -> item).join(), is(empty()));
+  }
+
+  @Test
+  void failureReportedTest() {
+    ParallelMapper mapper = new ParallelMapper(executor, 4, 1);
+    List<Integer> items = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+
+    CompletionException e = assertThrows(CompletionException.class, () -> mapper.map(items, item -> {
+      if (item == 5) {
+        throw new IllegalStateException("Cannot be mapped");
+      }
+      return item;
+    }).join());
+    assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+  }
+
+  @Test
+  void windowsConsumedInOrderTest() {
+    ParallelMapper mapper = new ParallelMapper(executor, 2, 5);
+    List<Integer> items = IntStream.range(0, 53).boxed().collect(Collectors.toList());
+    List<Integer> consumed = new ArrayList<>();
+    AtomicInteger notConsumedCount = new AtomicInteger();
+    AtomicInteger maxNotConsumedCount = new AtomicInteger();
+
+    mapper.mapByWindows(items, item -> {
+      sleep(100 - item);
+      maxNotConsumedCount.accumulateAndGet(notConsumedCount.incrementAndGet(), Math::max);
+      return item;
+    }, (window, results) -> {
+      assertThat(results, is(equalTo(window)));
+      consumed.addAll(results);
+      notConsumedCount.addAndGet(-results.size());
+    }, consumerExecutor).join();
+
+    assertThat(consumed, is(equalTo(items)));
+    // The results of no more than two windows of 10 items are held at once
+    assertThat(maxNotConsumedCount.get(), is(lessThanOrEqualTo(20)));
+  }
+
+  private void sleep(long millis) {
+    try {
+      Thread.sleep(millis / 10);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
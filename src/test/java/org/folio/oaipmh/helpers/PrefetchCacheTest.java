@@ -0,0 +1,134 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.json.JsonObject;
+import org.folio.rest.tools.client.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+class PrefetchCacheTest {
+
+  private static final String ENDPOINT = "/source-storage/records?query=recordType%3D%3DMARC&limit=11&offset=10";
+
+  @Test
+  void pageTakenOnceTest() {
+    PrefetchCache cache = new PrefetchCache(10, 1024 * 1024, 60_000, 10);
+    PrefetchCache.Page page = createPage();
+
+    assertThat(cache.prefetch("tenant|token", ENDPOINT, () -> CompletableFuture.completedFuture(page)), is(true));
+    assertThat(cache.getSize(), is(page.getSize()));
+
+    assertThat(cache.take("tenant|token", ENDPOINT).join(), is(sameInstance(page)));
+    assertThat(cache.take("tenant|token", ENDPOINT), is(nullValue()));
+    assertThat(cache.getHitCount(), is(1L));
+    assertThat(cache.getMissCount(), is(1L));
+    assertThat(cache.getEntriesCount(), is(0));
+    assertThat(cache.getSize(), is(0L));
+  }
+
+  @Test
+  void pageBeingFetchedTakenTest() {
+    PrefetchCache cache = new PrefetchCache(10, 1024 * 1024, 60_000, 10);
+    CompletableFuture<PrefetchCache.Page> loading = new CompletableFuture<>();
+    cache.prefetch("tenant|token", ENDPOINT, () -> loading);
+
+    CompletableFuture<PrefetchCache.Page> taken = cache.take("tenant|token", ENDPOINT);
+    assertThat(taken, is(notNullValue()));
+    assertThat(taken.isDone(), is(false));
+
+    PrefetchCache.Page page = createPage();
+    loading.complete(page);
+    assertThat(taken.join(), is(sameInstance(page)));
+    // The page taken before it is fetched is not kept in memory
+    assertThat(cache.getSize(), is(0L));
+  }
+
+  @Test
+  void pageOfAnotherEndpointNotTakenTest() {
+    PrefetchCache cache = new PrefetchCache(10, 1024 * 1024, 60_000, 10);
+    cache.prefetch("tenant|token", ENDPOINT, () -> CompletableFuture.completedFuture(createPage()));
+
+    assertThat(cache.take("tenant|token", ENDPOINT + "&set=all"), is(nullValue()));
+    assertThat(cache.getMissCount(), is(1L));
+    assertThat(cache.getEntriesCount(), is(0));
+  }
+
+  @Test
+  void oldestPagesEvictedTest() {
+    long pageSize = createPage().getSize();
+    PrefetchCache cache = new PrefetchCache(2, pageSize * 2, 60_000, 10);
+    for (int i = 0; i < 3; i++) {
+      cache.prefetch("tenant|token" + i, ENDPOINT, () -> CompletableFuture.completedFuture(createPage()));
+    }
+    assertThat(cache.getEntriesCount(), is(2));
+    assertThat(cache.getEvictedCount(), is(1L));
+    assertThat(cache.take("tenant|token0", ENDPOINT), is(nullValue()));
+
+    // The size limit is exceeded by the bigger page
+    cache.prefetch("tenant|big", ENDPOINT, () -> CompletableFuture.completedFuture(new PrefetchCache.Page(createResponse(),
+      Collections.singletonMap("id", new JsonObject().put("id", 1)))));
+    assertThat(cache.getEntriesCount(), is(1));
+    assertThat(cache.take("tenant|token2", ENDPOINT), is(nullValue()));
+  }
+
+  @Test
+  void expiredPageEvictedTest() {
+    PrefetchCache cache = new PrefetchCache(10, 1024 * 1024, 0, 10);
+    cache.prefetch("tenant|token", ENDPOINT, () -> CompletableFuture.completedFuture(createPage()));
+
+    assertThat(cache.take("tenant|token", ENDPOINT), is(nullValue()));
+    assertThat(cache.getEvictedCount(), is(1L));
+  }
+
+  @Test
+  void prefetchSkippedIfTooManyPagesFetchedTest() {
+    PrefetchCache cache = new PrefetchCache(10, 1024 * 1024, 60_000, 1);
+    CompletableFuture<PrefetchCache.Page> loading = new CompletableFuture<>();
+    cache.prefetch("tenant|token1", ENDPOINT, () -> loading);
+
+    assertThat(cache.prefetch("tenant|token2", ENDPOINT, () -> CompletableFuture.completedFuture(createPage())), is(false));
+    assertThat(cache.getSkippedCount(), is(1L));
+
+    loading.complete(createPage());
+    assertThat(cache.prefetch("tenant|token2", ENDPOINT, () -> CompletableFuture.completedFuture(createPage())), is(true));
+  }
+
+  @Test
+  void failedPageNotKeptTest() {
+    PrefetchCache cache = new PrefetchCache(10, 1024 * 1024, 60_000, 10);
+    cache.prefetch("tenant|token", ENDPOINT, () -> {
+      throw new IllegalStateException("Storage is not available");
+    });
+
+    assertThat(cache.getFailedCount(), is(1L));
+    assertThat(cache.getEntriesCount(), is(0));
+  }
+
+  @Test
+  void streamedPageSizeTakenFromReceivedBytesTest() {
+    StreamingStorageClient.StreamedResponse response = new StreamingStorageClient.StreamedResponse();
+    response.setBody(createResponse().getBody());
+
+    assertThat(new PrefetchCache.Page(response, Collections.emptyMap()).getSize(), is(0L));
+    assertThat(createPage().getSize(), greaterThan(0L));
+  }
+
+  private PrefetchCache.Page createPage() {
+    return new PrefetchCache.Page(createResponse(), Collections.emptyMap());
+  }
+
+  private Response createResponse() {
+    Response response = new Response();
+    response.setCode(200);
+    response.setBody(new JsonObject().put("records", new JsonObject()).put("totalRecords", 100));
+    return response;
+  }
+}
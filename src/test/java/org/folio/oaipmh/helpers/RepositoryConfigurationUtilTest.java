@@ -4,6 +4,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import org.folio.oaipmh.TenantConfig;
 import org.folio.rest.impl.OkapiMockServer;
 import org.folio.rest.tools.utils.NetworkUtils;
 import org.junit.jupiter.api.BeforeAll;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.folio.oaipmh.Constants.OKAPI_TENANT;
 import static org.folio.oaipmh.Constants.OKAPI_TOKEN;
@@ -28,8 +30,6 @@ import static org.folio.rest.impl.OkapiMockServer.NON_EXIST_CONFIG_TENANT;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.hamcrest.Matchers.emptyIterable;
-import static org.hamcrest.core.IsNull.nullValue;
 
 @ExtendWith(VertxExtension.class)
 class RepositoryConfigurationUtilTest {
@@ -74,9 +74,9 @@ class RepositoryConfigurationUtilTest {
   void testGetConfigurationIfNotExist(Vertx vertx, VertxTestContext testContext) {
     okapiHeaders.put(OKAPI_TENANT, NON_EXIST_CONFIG_TENANT);
     vertx.runOnContext(event ->
-      RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()).thenAccept(v ->
+      RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()).thenAccept(config ->
         testContext.verify(() -> {
-          assertThat(Vertx.currentContext().config().getJsonObject(NON_EXIST_CONFIG_TENANT), is(emptyIterable()));
+          assertThat(config.getProperties().isEmpty(), is(true));
           testContext.completeNow();
         })
       )
@@ -87,13 +87,16 @@ class RepositoryConfigurationUtilTest {
   void testGetConfigurationIfUnexpectedStatusCode(Vertx vertx, VertxTestContext testContext) {
     okapiHeaders.put(OKAPI_TENANT, ERROR_TENANT);
 
-    vertx.runOnContext(event ->
-      RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()).thenAccept(v ->
+    vertx.runOnContext(event -> {
+      TenantConfig previousConfig = RepositoryConfigurationUtil.getTenantConfig(ERROR_TENANT);
+      RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()).thenAccept(config ->
         testContext.verify(() -> {
-          assertThat(Vertx.currentContext().config().getJsonObject(ERROR_TENANT), is(nullValue()));
+          assertThat(config, is(equalTo(previousConfig)));
+          assertThat(RepositoryConfigurationUtil.getTenantConfig(ERROR_TENANT), is(equalTo(previousConfig)));
           testContext.completeNow();
         })
-      ));
+      );
+    });
   }
 
   @Test
@@ -104,11 +107,11 @@ class RepositoryConfigurationUtilTest {
     vertx.runOnContext(event -> {
       JsonObject config = new JsonObject();
       config.put(REPOSITORY_MAX_RECORDS_PER_RESPONSE, configValue);
-      Vertx.currentContext().config().put(ERROR_TENANT, config);
-      RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()).thenAccept(v ->
+      RepositoryConfigurationUtil.publishTenantConfig(ERROR_TENANT, config);
+      RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()).thenAccept(tenantConfig ->
         testContext.verify(() -> {
-          assertThat(Vertx.currentContext().config().getJsonObject(ERROR_TENANT).getString
-            (REPOSITORY_MAX_RECORDS_PER_RESPONSE), equalTo(configValue));
+          assertThat(tenantConfig.getProperty(REPOSITORY_MAX_RECORDS_PER_RESPONSE), equalTo(configValue));
+          assertThat(tenantConfig.getMaxRecordsPerResponse(), equalTo(123));
           testContext.completeNow();
         })
       );
@@ -118,16 +121,51 @@ class RepositoryConfigurationUtilTest {
   @Test
   void testGetConfigurationWithMissingOkapiHeader(Vertx vertx, VertxTestContext testContext) {
     okapiHeaders.remove(OKAPI_URL);
+    okapiHeaders.put(OKAPI_TENANT, "missingOkapiUrlTenant");
 
     vertx.runOnContext(event ->
-      RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()).thenAccept(v ->
+      RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()).thenAccept(config ->
         testContext.verify(() -> {
-          assertThat(Vertx.currentContext().config(), is(emptyIterable()));
+          assertThat(config.getProperties().isEmpty(), is(true));
           testContext.completeNow();
         })
       ));
   }
 
+  @Test
+  void testConfigurationCached(Vertx vertx, VertxTestContext testContext) {
+    okapiHeaders.put(OKAPI_TENANT, EXIST_CONFIG_TENANT_2);
+    vertx.runOnContext(event ->
+      RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext())
+        .thenCompose(v -> {
+          int requestsCount = OkapiMockServer.getConfigurationRequestsCount();
+          return RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext())
+            .thenApply(v2 -> requestsCount);
+        })
+        .thenAccept(requestsCount -> testContext.verify(() -> {
+          assertThat(OkapiMockServer.getConfigurationRequestsCount(), is(requestsCount));
+          assertThat(RepositoryConfigurationUtil.getProperty(EXIST_CONFIG_TENANT_2, REPOSITORY_MAX_RECORDS_PER_RESPONSE),
+            is(equalTo("10")));
+          testContext.completeNow();
+        }))
+    );
+  }
+
+  @Test
+  void testConcurrentConfigurationLoadsCoalesced(Vertx vertx, VertxTestContext testContext) {
+    okapiHeaders.put(OKAPI_TENANT, "singleFlightTenant");
+    vertx.runOnContext(event -> {
+      int requestsCount = OkapiMockServer.getConfigurationRequestsCount();
+      CompletableFuture.allOf(
+        RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()),
+        RepositoryConfigurationUtil.loadConfiguration(okapiHeaders, Vertx.currentContext()))
+        .thenAccept(v -> testContext.verify(() -> {
+          assertThat(OkapiMockServer.getConfigurationRequestsCount(), is(requestsCount + 1));
+          testContext.completeNow();
+        }));
+    });
+  }
+
   @Test
   void testConfigurationFallback(Vertx vertx, VertxTestContext testContext) {
     String expectedValue = "test value";
@@ -0,0 +1,49 @@
+package org.folio.oaipmh.helpers;
+
+import org.folio.oaipmh.TenantConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class ResponseCacheTest {
+
+  private static final String RESPONSE = "<OAI-PMH><responseDate>2020-01-01T00:00:00Z</responseDate>"
+    + "<request verb=\"Identify\">http://localhost/oai</request><Identify/></OAI-PMH>";
+
+  @Test
+  void responseDateReplacedTest() {
+    ResponseCache.CachedResponse response = new ResponseCache.CachedResponse(TenantConfig.of(null), null, RESPONSE);
+
+    assertThat(response.getBody(), not(containsString("2020-01-01T00:00:00Z")));
+    assertThat(response.getBody(), startsWith("<OAI-PMH><responseDate>"));
+    assertThat(response.getBody(), containsString("</responseDate><request verb=\"Identify\">"));
+  }
+
+  @Test
+  void entityTagMatchedTest() {
+    ResponseCache.CachedResponse response = new ResponseCache.CachedResponse(TenantConfig.of(null), null, RESPONSE);
+    String entityTag = response.getEntityTag();
+
+    assertThat(response.isNotModified(entityTag), is(true));
+    assertThat(response.isNotModified(entityTag.substring(2)), is(true));
+    assertThat(response.isNotModified("W/\"outdated\", " + entityTag), is(true));
+    assertThat(response.isNotModified("*"), is(true));
+    assertThat(response.isNotModified("W/\"outdated\""), is(false));
+    assertThat(response.isNotModified(null), is(false));
+  }
+
+  @Test
+  void entityTagIndependentOfResponseDateTest() {
+    String anotherResponse = RESPONSE.replace("2020-01-01T00:00:00Z", "2020-01-02T00:00:00Z");
+
+    assertThat(new ResponseCache.CachedResponse(TenantConfig.of(null), null, anotherResponse).getEntityTag(),
+      is(new ResponseCache.CachedResponse(TenantConfig.of(null), null, RESPONSE).getEntityTag()));
+    String listSetsResponse = RESPONSE.replace("Identify", "ListSets");
+    assertThat(new ResponseCache.CachedResponse(TenantConfig.of(null), null, listSetsResponse).getEntityTag(),
+      not(is(new ResponseCache.CachedResponse(TenantConfig.of(null), null, RESPONSE).getEntityTag())));
+  }
+}
@@ -24,13 +24,17 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.folio.oaipmh.Constants.INVENTORY_STORAGE;
 import static org.folio.oaipmh.Constants.OKAPI_TENANT;
+import static org.folio.oaipmh.Constants.REPOSITORY_CURSOR_PAGINATION;
 import static org.folio.oaipmh.Constants.REPOSITORY_MAX_RECORDS_PER_RESPONSE;
 import static org.folio.oaipmh.Constants.REPOSITORY_STORAGE;
+import static org.folio.oaipmh.Constants.REPOSITORY_TOTAL_RECORDS;
 import static org.folio.oaipmh.Constants.SOURCE_RECORD_STORAGE;
 import static org.folio.oaipmh.helpers.storage.InventoryStorageHelper.INSTANCES_URI;
 import static org.folio.oaipmh.helpers.storage.SourceRecordStorageHelper.SOURCE_STORAGE_RESULT_URI;
@@ -39,6 +43,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsIterableWithSize.iterableWithSize;
 import static org.hamcrest.text.IsEmptyString.isEmptyOrNullString;
@@ -104,6 +109,26 @@ class StorageHelperTest {
     assertEquals(INSTANCE_ID, getStorageHelper(SOURCE_RECORD_STORAGE).getIdentifierId(item));
   }
 
+  @Test
+  void shouldReturnExternalInstanceId_whenGetIdentifierAndStorageIsSRSAndRecordHasNoParsedRecord(){
+    JsonObject item = new JsonObject()
+      .put("recordId", "00000000-0000-4000-a000-000000000001")
+      .put("externalIdsHolder", new JsonObject().put("instanceId", INSTANCE_ID));
+    assertEquals(INSTANCE_ID, getStorageHelper(SOURCE_RECORD_STORAGE).getIdentifierId(item));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { SOURCE_RECORD_STORAGE, INVENTORY_STORAGE })
+  void getItemHeader(String storageType) {
+    StorageHelper storageHelper = getStorageHelper(storageType);
+    JsonObject item = getJsonObjectFromFile(getDirPath(storageType) + "/instance.json");
+    JsonObject header = storageHelper.getItemHeader(item);
+    assertThat(header.containsKey("parsedRecord"), is(false));
+    assertThat(storageHelper.getRecordId(header), is(equalTo(storageHelper.getRecordId(item))));
+    assertThat(storageHelper.getIdentifierId(header), is(equalTo(storageHelper.getIdentifierId(item))));
+    assertThat(storageHelper.getLastModifiedDate(header), is(equalTo(storageHelper.getLastModifiedDate(item))));
+  }
+
   @Test
   void shouldReturnEmptyString_whenGetIdentifierIdAndStorageIsSRSAndRecordHasNot999FieldWithLinkedInstanceId(){
     JsonObject item = getJsonObjectFromFile(getDirPath(SOURCE_RECORD_STORAGE)+"/instance_without999Field.json");
@@ -131,6 +156,137 @@ class StorageHelperTest {
     );
   }
 
+  @Test
+  @ExtendWith(VertxExtension.class)
+  void buildItemsEndpointWithCursor(Vertx vertx, VertxTestContext testContext) {
+    vertx.runOnContext(event ->
+      testContext.verify(() ->  {
+        try {
+          System.setProperty(REPOSITORY_MAX_RECORDS_PER_RESPONSE, "10");
+          System.setProperty(REPOSITORY_CURSOR_PAGINATION, "true");
+          Map<String, String> okapiHeaders = new HashMap<>();
+          okapiHeaders.put(OKAPI_TENANT, EXIST_CONFIG_TENANT);
+          Map<String, String> cursor = new HashMap<>();
+          cursor.put("offset", "10");
+          cursor.put("totalRecords", "100");
+          cursor.put("lastUpdatedDate", "2018-11-20T07:23:11.172+0000");
+          cursor.put("lastRecordId", INSTANCE_ID);
+          Request request = Request.builder()
+            .okapiHeaders(okapiHeaders)
+            .resumptionToken(Request.builder().metadataPrefix("oai_dc").build().toResumptionToken(cursor))
+            .build();
+          assertThat(request.restoreFromResumptionToken(), is(true));
+
+          assertThat(getStorageHelper(SOURCE_RECORD_STORAGE).buildRecordsEndpoint(request), is(equalTo(SOURCE_STORAGE_RESULT_URI
+            + "?query=recordType%3D%3DMARC+and+additionalInfo.suppressDiscovery%3D%3Dfalse+and+%28metadata.updatedDate%3E%22"
+            + "2018-11-20T07%3A23%3A11.172%2B0000%22+or+%28metadata.updatedDate%3D%3D%222018-11-20T07%3A23%3A11.172%2B0000%22+and"
+            + "+recordId%3E%2200000000-0000-4000-a000-000000000000%22%29%29+sortBy+metadata.updatedDate%2Fsort.ascending"
+            + "+recordId%2Fsort.ascending&limit=11&offset=0")));
+          testContext.completeNow();
+        } catch (UnsupportedEncodingException e) {
+          testContext.failNow(e);
+        } finally {
+          System.clearProperty(REPOSITORY_MAX_RECORDS_PER_RESPONSE);
+          System.clearProperty(REPOSITORY_CURSOR_PAGINATION);
+        }
+      })
+    );
+  }
+
+  @Test
+  @ExtendWith(VertxExtension.class)
+  void buildItemsEndpointWithTotalRecordsMode(Vertx vertx, VertxTestContext testContext) {
+    vertx.runOnContext(event ->
+      testContext.verify(() ->  {
+        try {
+          System.setProperty(REPOSITORY_MAX_RECORDS_PER_RESPONSE, "10");
+          Map<String, String> okapiHeaders = new HashMap<>();
+          okapiHeaders.put(OKAPI_TENANT, EXIST_CONFIG_TENANT);
+          String endpoint = SOURCE_STORAGE_RESULT_URI
+            + "?query=recordType%3D%3DMARC+and+additionalInfo.suppressDiscovery%3D%3Dfalse&limit=11&offset=";
+
+          System.setProperty(REPOSITORY_TOTAL_RECORDS, "estimated");
+          Request request = Request.builder().okapiHeaders(okapiHeaders).build();
+          assertThat(getStorageHelper(SOURCE_RECORD_STORAGE).buildRecordsEndpoint(request),
+            is(equalTo(endpoint + "0&totalRecords=estimated")));
+
+          // The records are counted by the first request of the harvest only
+          System.setProperty(REPOSITORY_TOTAL_RECORDS, "session");
+          assertThat(getStorageHelper(SOURCE_RECORD_STORAGE).buildRecordsEndpoint(request), is(equalTo(endpoint + "0")));
+          Map<String, String> extraParams = new HashMap<>();
+          extraParams.put("offset", "10");
+          extraParams.put("totalRecords", "100");
+          Request restoredRequest = Request.builder()
+            .okapiHeaders(okapiHeaders)
+            .resumptionToken(Request.builder().metadataPrefix("oai_dc").build().toResumptionToken(extraParams))
+            .build();
+          assertThat(restoredRequest.restoreFromResumptionToken(), is(true));
+          assertThat(getStorageHelper(SOURCE_RECORD_STORAGE).buildRecordsEndpoint(restoredRequest),
+            is(equalTo(endpoint + "10&totalRecords=none")));
+
+          // The harvest session keeps the number of records regardless of the mode
+          System.setProperty(REPOSITORY_TOTAL_RECORDS, "exact");
+          Request sessionRequest = Request.builder().okapiHeaders(okapiHeaders).resumptionToken("session-key").build();
+          assertThat(sessionRequest.restoreFromHarvestSession(restoredRequest.getResumptionToken()), is(true));
+          assertThat(getStorageHelper(SOURCE_RECORD_STORAGE).buildRecordsEndpoint(sessionRequest),
+            is(equalTo(endpoint + "10&totalRecords=none")));
+          testContext.completeNow();
+        } catch (UnsupportedEncodingException e) {
+          testContext.failNow(e);
+        } finally {
+          System.clearProperty(REPOSITORY_MAX_RECORDS_PER_RESPONSE);
+          System.clearProperty(REPOSITORY_TOTAL_RECORDS);
+        }
+      })
+    );
+  }
+
+  @Test
+  void buildEarliestRecordEndpoint() throws UnsupportedEncodingException {
+    assertThat(getStorageHelper(SOURCE_RECORD_STORAGE).getEarliestRecordEndpoint(), is(equalTo(SOURCE_STORAGE_RESULT_URI
+      + "?query=recordType%3D%3DMARC+sortBy+metadata.updatedDate%2Fsort.ascending&limit=1&offset=0")));
+    assertThat(getStorageHelper(INVENTORY_STORAGE).getEarliestRecordEndpoint(), is(equalTo(INSTANCES_URI
+      + "?query=sourceRecordFormat%3D%3DMARC-JSON+sortBy+metadata.updatedDate%2Fsort.ascending&limit=1&offset=0")));
+  }
+
+  @Test
+  void buildRecordsSourceEndpoint() throws UnsupportedEncodingException {
+    List<String> ids = Arrays.asList(INSTANCE_ID, "00000000-0000-4000-a000-000000000001");
+    assertThat(getStorageHelper(INVENTORY_STORAGE).getRecordsSourceEndpoint(ids), is(equalTo(SOURCE_STORAGE_RESULT_URI
+      + "?query=externalIdsHolder.instanceId%3D%3D%28%2200000000-0000-4000-a000-000000000000%22+or+"
+      + "%2200000000-0000-4000-a000-000000000001%22%29&limit=2")));
+    assertThat(getStorageHelper(SOURCE_RECORD_STORAGE).getRecordsSourceEndpoint(ids), is(nullValue()));
+  }
+
+  @Test
+  void getRecordSources() {
+    JsonObject source = getJsonObjectFromFile(INSTANCES_URI + "/marc.json");
+    JsonObject entries = new JsonObject()
+      .put("sourceRecords", new JsonArray()
+        .add(new JsonObject()
+          .put("externalIdsHolder", new JsonObject().put("instanceId", INSTANCE_ID))
+          .put("parsedRecord", new JsonObject().put("content", source)))
+        // The record without parsed source is skipped
+        .add(new JsonObject().put("externalIdsHolder", new JsonObject().put("instanceId", "00000000-0000-4000-a000-000000000001"))))
+      .put("totalRecords", 1);
+
+    Map<String, JsonObject> sources = getStorageHelper(INVENTORY_STORAGE).getRecordSources(entries);
+    assertThat(sources.size(), is(1));
+    assertThat(sources.get(INSTANCE_ID).getString("leader"), is(equalTo(source.getString("leader"))));
+    assertThat(getStorageHelper(SOURCE_RECORD_STORAGE).getRecordSources(entries).isEmpty(), is(true));
+  }
+
+  @Test
+  void getUpdatedDateWithoutCreatedDateFallback() {
+    JsonObject record = new JsonObject().put("metadata", new JsonObject()
+      .put("createdDate", "2018-11-20T07:23:11.172+0000"));
+
+    // The cursor is sought by updatedDate only, so the record without it has no cursor value
+    assertThat(getStorageHelper(SOURCE_RECORD_STORAGE).getUpdatedDate(record), is(nullValue()));
+    record.getJsonObject("metadata").put("updatedDate", "2018-12-20T07:23:11.172+0000");
+    assertThat(getStorageHelper(INVENTORY_STORAGE).getUpdatedDate(record), is(equalTo("2018-12-20T07:23:11.172+0000")));
+  }
+
   private StorageHelper getStorageHelper(String storageType) {
     System.setProperty(REPOSITORY_STORAGE, storageType);
     return StorageHelper.getInstance();
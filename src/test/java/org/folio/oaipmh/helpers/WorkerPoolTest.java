@@ -0,0 +1,84 @@
+package org.folio.oaipmh.helpers;
+
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class WorkerPoolTest {
+
+  private Vertx vertx;
+
+  @BeforeEach
+  void setUp() {
+    vertx = Vertx.vertx();
+  }
+
+  @AfterEach
+  void tearDown() {
+    vertx.close();
+  }
+
+  @Test
+  void queueAndActiveTasksTrackedTest() {
+    WorkerPool pool = new WorkerPool("test-pool", 1, vertx.createSharedWorkerExecutor("test-pool", 1));
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> {
+      started.countDown();
+      await(release);
+      return Thread.currentThread().getName();
+    }, pool);
+    CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), pool);
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      started.await();
+      // The only thread of the pool is busy with the first task, so the second one waits for it
+      assertThat(pool.getActiveCount(), is(1));
+      assertThat(pool.getQueueLength(), is(1));
+
+      release.countDown();
+      assertThat(first.join(), startsWith("test-pool"));
+      assertThat(second.join(), startsWith("test-pool"));
+      while (pool.getCompletedCount() < 2) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+    });
+    assertThat(pool.getActiveCount(), is(0));
+    assertThat(pool.getQueueLength(), is(0));
+  }
+
+  @Test
+  void poolsSharedPerVertxTest() {
+    assertThat(WorkerPool.getMappingPool(vertx) == WorkerPool.getMappingPool(vertx), is(true));
+    assertThat(WorkerPool.getMappingPool(vertx) == WorkerPool.getSerializationPool(vertx), is(false));
+    assertThat(WorkerPool.getSerializationPool(vertx).getName(), is(WorkerPool.SERIALIZATION_POOL));
+
+    // The pools are held by the Vert.x instance, so the other instance has its own ones
+    Vertx otherVertx = Vertx.vertx();
+    try {
+      assertThat(WorkerPool.getMappingPool(otherVertx) == WorkerPool.getMappingPool(vertx), is(false));
+    } finally {
+      otherVertx.close();
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package org.folio.oaipmh.helpers.storage;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.UnaryOperator;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StorageResponseParserTest {
+
+  private static final String RESPONSE = new JsonObject()
+    .put("sourceRecords", new JsonArray()
+      .add(new JsonObject().put("recordId", "1").put("parsedRecord", new JsonObject().put("content", new JsonObject()
+        .put("fields", new JsonArray().add(new JsonObject().put("001", "in001"))))))
+      .add(new JsonObject().put("recordId", "2").put("parsedRecord", new JsonObject())))
+    .put("totalRecords", 100)
+    .put("resultInfo", new JsonObject().put("totalRecords", 2).put("facets", new JsonArray()))
+    .encode();
+
+  @Test
+  void responseParsedByChunksTest() {
+    StorageResponseParser parser = new StorageResponseParser("sourceRecords", UnaryOperator.identity());
+    // The chunks are split regardless of the JSON structure, as they are received from the storage
+    for (int i = 0; i < RESPONSE.length(); i += 7) {
+      parser.write(Buffer.buffer(RESPONSE.substring(i, Math.min(i + 7, RESPONSE.length()))));
+    }
+    JsonObject result = parser.end();
+
+    assertThat(result.getInteger("totalRecords"), is(100));
+    assertThat(result.getJsonArray("sourceRecords"), is(equalTo(new JsonObject(RESPONSE).getJsonArray("sourceRecords"))));
+    // Only the items and the scalar fields of the response are kept
+    assertThat(result.containsKey("resultInfo"), is(false));
+  }
+
+  @Test
+  void itemsMappedOnceParsedTest() {
+    StorageResponseParser parser = new StorageResponseParser("sourceRecords",
+      item -> new JsonObject().put("recordId", item.getString("recordId")));
+    parser.write(Buffer.buffer(RESPONSE));
+    JsonObject result = parser.end();
+
+    assertThat(result.getJsonArray("sourceRecords"), is(equalTo(new JsonArray()
+      .add(new JsonObject().put("recordId", "1"))
+      .add(new JsonObject().put("recordId", "2")))));
+  }
+
+  @Test
+  void invalidResponseTest() {
+    StorageResponseParser parser = new StorageResponseParser("sourceRecords", UnaryOperator.identity());
+    parser.write(Buffer.buffer("{\"sourceRecords\": [{\"recordId\": }"));
+
+    assertThrows(IllegalStateException.class, parser::end);
+  }
+}
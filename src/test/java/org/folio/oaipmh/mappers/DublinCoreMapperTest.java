@@ -0,0 +1,88 @@
+package org.folio.oaipmh.mappers;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.folio.oaipmh.mappers.MapperTestHelper.validateDocumentAgainstSchema;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+class DublinCoreMapperTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(DublinCoreMapperTest.class);
+
+  private static final String SCHEMA_FILE_PATH = "ramls/schemas/oai_dc.xsd";
+  private static final String XSLT_MARC21SLIM2_OAIDC_XSL = "xslt/MARC21slim2OAIDC.xsl";
+  private static final int BENCHMARK_ITERATIONS = 2000;
+
+  private final Mapper xsltMapper = new XSLTMapper(XSLT_MARC21SLIM2_OAIDC_XSL);
+  private final Mapper nativeMapper = new DublinCoreMapper();
+
+  @Test
+  void correctJsonConvertingValidationTest() throws IOException {
+    logger.info("=== Test correct json file converting ===");
+    String input = MapperTestHelper.getStringFromFile(StaticTestRecords.RESOURCES_CORRECT_JSON_MARC);
+    byte[] result = nativeMapper.convert(input);
+    assertThat(validateDocumentAgainstSchema(result, SCHEMA_FILE_PATH), is(true));
+  }
+
+  @Test
+  void conformanceWithXsltMapperTest() throws IOException {
+    logger.info("=== Test Dublin Core built in Java is the same as built by XSLT ===");
+    List<String> records = MapperTestHelper.getMarcJsonRecords();
+    assertThat(records.size(), is(greaterThan(2)));
+    for (String record : records) {
+      String expected = new String(xsltMapper.convert(record), StandardCharsets.UTF_8);
+      assertThat(new String(nativeMapper.convert(record), StandardCharsets.UTF_8), is(expected));
+    }
+  }
+
+  @Test
+  void parsedJsonConvertingTest() throws IOException {
+    logger.info("=== Test parsed json converting gives the same result as json string converting ===");
+    for (String record : MapperTestHelper.getMarcJsonRecords()) {
+      String expected = new String(xsltMapper.convert(record), StandardCharsets.UTF_8);
+      JsonObject parsedRecord = new JsonObject(record);
+      assertThat(new String(xsltMapper.convert(parsedRecord), StandardCharsets.UTF_8), is(expected));
+      assertThat(new String(nativeMapper.convert(parsedRecord), StandardCharsets.UTF_8), is(expected));
+    }
+  }
+
+  /**
+   * Is run by benchmark profile only, see pom.xml
+   */
+  @Test
+  @Tag("benchmark")
+  void throughputReportedTest() throws IOException {
+    logger.info("=== Report throughput of Dublin Core mapper built in Java and XSLT one ===");
+    List<String> records = MapperTestHelper.getMarcJsonRecords();
+    // Warm up both mappers before measuring
+    convert(xsltMapper, records, BENCHMARK_ITERATIONS);
+    convert(nativeMapper, records, BENCHMARK_ITERATIONS);
+
+    long xsltTime = convert(xsltMapper, records, BENCHMARK_ITERATIONS);
+    long nativeTime = convert(nativeMapper, records, BENCHMARK_ITERATIONS);
+    // The timings are only reported since wall-clock comparison is not reliable on loaded build agents
+    logger.info(String.format("%d records converted by XSLT mapper in %d ms and by native mapper in %d ms",
+      BENCHMARK_ITERATIONS, xsltTime / 1_000_000, nativeTime / 1_000_000));
+  }
+
+  /**
+   * @return time in nanoseconds spent to convert specified number of records
+   */
+  private long convert(Mapper mapper, List<String> records, int iterations) {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      mapper.convert(records.get(i % records.size()));
+    }
+    return System.nanoTime() - start;
+  }
+}
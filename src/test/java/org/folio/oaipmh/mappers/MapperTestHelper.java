@@ -1,8 +1,17 @@
 package org.folio.oaipmh.mappers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
@@ -14,10 +23,19 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class MapperTestHelper {
 
+  private static final String SOURCE_STORAGE_DIRECTORY = "/source-storage";
+
   static String getStringFromFile(String path) throws IOException {
     File file = new File(MarcXmlMapperTest.class.getResource(path).getFile());
     byte[] encoded = Files.readAllBytes(Paths.get(file.getPath()));
@@ -37,4 +55,75 @@ public class MapperTestHelper {
       return false;
     }
   }
+
+  /**
+   * Collects MarcJson records available in test resources, i.e. {@link StaticTestRecords} and parsed records content of
+   * source record storage responses
+   */
+  static List<String> getMarcJsonRecords() throws IOException {
+    List<String> records = new ArrayList<>();
+    records.add(getStringFromFile(StaticTestRecords.RESOURCES_CORRECT_JSON_MARC));
+    records.add(getStringFromFile(StaticTestRecords.RESOURCES_INCORRECT_JSON_MARC));
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    Path sourceStorage = Paths.get(new File(MapperTestHelper.class.getResource(SOURCE_STORAGE_DIRECTORY).getFile()).getPath());
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(sourceStorage)) {
+      files = paths.filter(path -> path.toString().endsWith(".json")).sorted().collect(Collectors.toList());
+    }
+    for (Path file : files) {
+      JsonNode json = objectMapper.readTree(file.toFile());
+      Iterable<JsonNode> sourceRecords = json.has("sourceRecords") ? json.get("sourceRecords") : Stream.of(json)::iterator;
+      for (JsonNode sourceRecord : sourceRecords) {
+        JsonNode content = sourceRecord.path("parsedRecord").path("content");
+        if (content.isObject()) {
+          records.add(objectMapper.writeValueAsString(content));
+        }
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Builds canonical representation of XML document with namespace-qualified element names, sorted attributes (namespace
+   * declarations are skipped) and text, so the documents which differ only by serialization details are equal.
+   */
+  static String canonicalize(byte[] xml) throws IOException {
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      Element root = factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml)).getDocumentElement();
+      StringBuilder canonical = new StringBuilder();
+      canonicalize(root, canonical);
+      return canonical.toString();
+    } catch (ParserConfigurationException | SAXException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static void canonicalize(Node node, StringBuilder canonical) {
+    if (node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE) {
+      canonical.append(node.getNodeValue());
+      return;
+    }
+    if (node.getNodeType() != Node.ELEMENT_NODE) {
+      return;
+    }
+    canonical.append("<{").append(node.getNamespaceURI()).append('}').append(node.getLocalName());
+    Map<String, String> attributes = new TreeMap<>();
+    NamedNodeMap nodeAttributes = node.getAttributes();
+    for (int i = 0; i < nodeAttributes.getLength(); i++) {
+      Attr attribute = (Attr) nodeAttributes.item(i);
+      if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+        attributes.put("{" + attribute.getNamespaceURI() + "}" + attribute.getLocalName(), attribute.getValue());
+      }
+    }
+    attributes.forEach((name, value) -> canonical.append(' ').append(name).append("=\"").append(value).append('"'));
+    canonical.append('>');
+    NodeList children = node.getChildNodes();
+    for (int i = 0; i < children.getLength(); i++) {
+      canonicalize(children.item(i), canonical);
+    }
+    canonical.append("</").append(node.getLocalName()).append('>');
+  }
 }
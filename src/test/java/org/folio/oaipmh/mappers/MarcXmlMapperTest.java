@@ -1,13 +1,19 @@
 package org.folio.oaipmh.mappers;
 
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import org.junit.jupiter.api.Test;
+import org.marc4j.MarcXmlWriter;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import static org.folio.oaipmh.mappers.MapperTestHelper.validateDocumentAgainstSchema;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 class MarcXmlMapperTest {
@@ -32,4 +38,39 @@ class MarcXmlMapperTest {
     assertThat(validateDocumentAgainstSchema(result, SCHEMA_FILE_PATH), is(false));
   }
 
+  @Test
+  void conformanceWithMarc4jTest() throws IOException {
+    logger.info("=== Test MarcXml built from token stream is the same as built by marc4j ===");
+    MarcXmlMapper mapper = new MarcXmlMapper();
+    for (String record : MapperTestHelper.getMarcJsonRecords()) {
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      MarcXmlWriter.writeSingleRecord(mapper.readRecord(record), expected);
+      assertThat(MapperTestHelper.canonicalize(mapper.convert(record)),
+        is(MapperTestHelper.canonicalize(expected.toByteArray())));
+    }
+  }
+
+  @Test
+  void specialCharactersConvertingTest() throws IOException {
+    logger.info("=== Test values with markup characters and backslashes converting ===");
+    String input = "{\"leader\":\"00714cam a2200205 a 4500\",\"fields\":[{\"001\":\"12883376\"},"
+      + "{\"245\":{\"ind1\":\"\\\\\",\"ind2\":\"0\",\"subfields\":[{\"a\":\"Tom & Jerry <\\\"cartoon\\\">\"}]}}]}";
+    byte[] result = new MarcXmlMapper().convert(input);
+    String marcXml = new String(result, StandardCharsets.UTF_8);
+
+    assertThat(validateDocumentAgainstSchema(result, SCHEMA_FILE_PATH), is(true));
+    assertThat(marcXml, containsString("ind1=\" \""));
+    assertThat(marcXml, containsString("Tom &amp; Jerry &lt;\"cartoon\"&gt;"));
+    assertThat(marcXml, not(containsString("\\")));
+  }
+
+  @Test
+  void parsedJsonConvertingTest() throws IOException {
+    logger.info("=== Test parsed json converting gives the same result as json string converting ===");
+    MarcXmlMapper mapper = new MarcXmlMapper();
+    for (String record : MapperTestHelper.getMarcJsonRecords()) {
+      String expected = new String(mapper.convert(record), StandardCharsets.UTF_8);
+      assertThat(new String(mapper.convert(new JsonObject(record)), StandardCharsets.UTF_8), is(expected));
+    }
+  }
 }
@@ -3,10 +3,21 @@ package org.folio.oaipmh.mappers;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -44,4 +55,46 @@ class XSLTMapperTest {
     String input = MapperTestHelper.getStringFromFile(StaticTestRecords.RESOURCES_INCORRECT_JSON_MARC);
     assertThrows(IllegalStateException.class, () -> new XSLTMapper(INCORRECT_STYLESHEET_XSL).convert(input));
   }
+
+  @Test
+  void transformerReusedOnSameThreadTest() throws IOException {
+    logger.info("=== Test transformer is reused for subsequent conversions ===");
+    String input = MapperTestHelper.getStringFromFile(StaticTestRecords.RESOURCES_CORRECT_JSON_MARC);
+    XSLTMapper mapper = new XSLTMapper(XSLT_MARC21SLIM2_OAIDC_XSL);
+    byte[] firstResult = mapper.convert(input);
+    byte[] secondResult = mapper.convert(input);
+    byte[] thirdResult = mapper.convert(input);
+
+    assertThat(mapper.getCreatedTransformersCount(), is(1L));
+    assertThat(mapper.getReusedTransformersCount(), is(2L));
+    assertThat(new String(secondResult), is(new String(firstResult)));
+    assertThat(new String(thirdResult), is(new String(firstResult)));
+  }
+
+  @Test
+  void stylesheetCompiledOnceTest() {
+    logger.info("=== Test stylesheet is compiled once for all mappers ===");
+    new XSLTMapper(XSLT_MARC21SLIM2_OAIDC_XSL);
+    long compiledCount = StylesheetRegistry.getCompiledCount();
+    new XSLTMapper(XSLT_MARC21SLIM2_OAIDC_XSL);
+
+    assertThat(StylesheetRegistry.getCompiledCount(), is(compiledCount));
+    assertThat(StylesheetRegistry.getTemplates(XSLT_MARC21SLIM2_OAIDC_XSL),
+      sameInstance(StylesheetRegistry.getTemplates(XSLT_MARC21SLIM2_OAIDC_XSL)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {StaticTestRecords.RESOURCES_CORRECT_JSON_MARC, StaticTestRecords.RESOURCES_INCORRECT_JSON_MARC})
+  void pipelinedTransformationMatchesMarcXmlTransformationTest(String resource) throws IOException, TransformerException {
+    logger.info("=== Test SAX pipelined transformation produces the same result as transformation of MarcXml ===");
+    String input = MapperTestHelper.getStringFromFile(resource);
+    byte[] marcXml = new MarcXmlMapper().convert(input);
+    Transformer transformer = StylesheetRegistry.getTemplates(XSLT_MARC21SLIM2_OAIDC_XSL).newTransformer();
+    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    transformer.transform(new StreamSource(new ByteArrayInputStream(marcXml)), new StreamResult(expected));
+
+    byte[] result = new XSLTMapper(XSLT_MARC21SLIM2_OAIDC_XSL).convert(input);
+    assertThat(new String(result, StandardCharsets.UTF_8), is(new String(expected.toByteArray(), StandardCharsets.UTF_8)));
+  }
 }
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import java.net.MalformedURLException;
 
 import static org.folio.oaipmh.Constants.REPOSITORY_BASE_URL;
+import static org.folio.oaipmh.Constants.RESUMPTION_TOKEN_SECRET;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -50,6 +51,21 @@ class InitAPIsTest {
     }));
   }
 
+  /**
+   * Tests {@link InitAPIs#init(Vertx, Context, Handler)}
+   */
+  @Test
+  void initWithFailureNoResumptionTokenSecret(Vertx vertx, VertxTestContext testContext) {
+    String secret = System.getProperty(RESUMPTION_TOKEN_SECRET);
+    System.getProperties().remove(RESUMPTION_TOKEN_SECRET);
+
+    new InitAPIs().init(vertx, vertx.getOrCreateContext(), testContext.failing(ex -> {
+      System.setProperty(RESUMPTION_TOKEN_SECRET, secret);
+      assertThat(ex, instanceOf(IllegalStateException.class));
+      testContext.completeNow();
+    }));
+  }
+
   /**
    * Tests {@link InitAPIs#init(Vertx, Context, Handler)}
    */
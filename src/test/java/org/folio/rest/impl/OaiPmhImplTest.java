@@ -17,16 +17,18 @@ import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URLEncodedUtils;
 import org.folio.oaipmh.Constants;
 import org.folio.oaipmh.MetadataPrefix;
+import org.folio.oaipmh.Request;
 import org.folio.oaipmh.ResponseHelper;
+import org.folio.oaipmh.helpers.HarvestSessionStore;
+import org.folio.oaipmh.helpers.PrefetchCache;
 import org.folio.rest.RestVerticle;
 import org.folio.rest.tools.PomReader;
 import org.folio.rest.tools.utils.NetworkUtils;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -47,10 +49,8 @@ import org.openarchives.oai._2_0.oai_dc.Dc;
 import org.openarchives.oai._2_0.oai_identifier.OaiIdentifier;
 
 import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -60,6 +60,9 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static io.restassured.RestAssured.given;
+import static javax.ws.rs.core.HttpHeaders.ETAG;
+import static javax.ws.rs.core.HttpHeaders.IF_NONE_MATCH;
+import static javax.ws.rs.core.HttpHeaders.LAST_MODIFIED;
 import static org.folio.oaipmh.Constants.*;
 import static org.folio.rest.impl.OkapiMockServer.INVALID_IDENTIFIER;
 import static org.folio.rest.impl.OkapiMockServer.OAI_TEST_TENANT;
@@ -67,6 +70,7 @@ import static org.folio.rest.impl.OkapiMockServer.PARTITIONABLE_RECORDS_DATE;
 import static org.folio.rest.impl.OkapiMockServer.THREE_INSTANCES_DATE;
 import static org.folio.rest.impl.OkapiMockServer.THREE_INSTANCES_DATE_TIME;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
@@ -112,6 +116,8 @@ class OaiPmhImplTest {
   private static final String XML_TYPE = "text/xml";
   private static final String TENANT = OAI_TEST_TENANT;
   private static final String IDENTIFIER_PREFIX = "oai:test.folio.org:" + TENANT + "/";
+  private static final String DIRECT_LOOKUP_RECORD_ID = "c1d3be12-ecec-4fab-9237-baf728575185";
+  private static final int LATENCY_ITERATIONS = 20;
   private static final String[] ENCODINGS = {"GZIP", "DEFLATE", "IDENTITY"};
 
   private final Header tenantHeader = new Header("X-Okapi-Tenant", TENANT);
@@ -371,18 +377,156 @@ class OaiPmhImplTest {
     assertThat(resumptionToken.getCursor(), is(equalTo(BigInteger.ZERO)));
     assertThat(resumptionToken.getExpirationDate(), is(nullValue()));
 
-    String resumptionTokenValue =
-      new String(Base64.getUrlDecoder().decode(resumptionToken.getValue()), StandardCharsets.UTF_8);
-    List<NameValuePair> params = URLEncodedUtils.parse(resumptionTokenValue, StandardCharsets.UTF_8);
-    assertThat(params, is(hasSize(7)));
+    Request restoredRequest = restoreRequest(resumptionToken);
+    assertThat(restoredRequest.getMetadataPrefix(), is(equalTo("oai_dc")));
+    assertThat(restoredRequest.getFrom(), is(equalTo(PARTITIONABLE_RECORDS_DATE)));
+    assertThat(restoredRequest.getUntil(), is((notNullValue())));
+    assertThat(restoredRequest.getSet(), is(equalTo("all")));
+    assertThat(restoredRequest.getOffset(), is(equalTo(10)));
+    assertThat(restoredRequest.getTotalRecords(), is(equalTo(100)));
+    assertThat(restoredRequest.getNextRecordId(), is(equalTo("6506b79b-7702-48b2-9774-a1c538fdd34e")));
+    assertThat(restoredRequest.getLastRecordId(), is(nullValue()));
+  }
 
-    assertThat(getParamValue(params, "metadataPrefix"), is(equalTo("oai_dc")));
-    assertThat(getParamValue(params, "from"), is(equalTo(PARTITIONABLE_RECORDS_DATE)));
-    assertThat(getParamValue(params, "until"), is((notNullValue())));
-    assertThat(getParamValue(params, "set"), is(equalTo("all")));
-    assertThat(getParamValue(params, "offset"), is(equalTo("10")));
-    assertThat(getParamValue(params, "totalRecords"), is(equalTo("100")));
-    assertThat(getParamValue(params, "nextRecordId"), is(equalTo("6506b79b-7702-48b2-9774-a1c538fdd34e")));
+  @ParameterizedTest
+  @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
+  void getOaiListVerbResumptionFlowWithCursorPagination(VerbType verb) {
+    System.setProperty(REPOSITORY_CURSOR_PAGINATION, "true");
+    try {
+      RequestSpecification request = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param("from", PARTITIONABLE_RECORDS_DATE)
+        .param("metadataPrefix", "oai_dc")
+        .param("set", "all");
+
+      OAIPMH oaipmh = verify200WithXml(request, verb);
+      verifyListResponse(oaipmh, verb, 10);
+
+      ResumptionTokenType resumptionToken = getResumptionToken(oaipmh, verb);
+      assertThat(resumptionToken, is(notNullValue()));
+      assertThat(resumptionToken.getCompleteListSize(), is(equalTo(BigInteger.valueOf(100))));
+      assertThat(resumptionToken.getCursor(), is(equalTo(BigInteger.ZERO)));
+
+      Request restoredRequest = restoreRequest(resumptionToken);
+      assertThat(restoredRequest.getOffset(), is(equalTo(10)));
+      assertThat(restoredRequest.getNextRecordId(), is(equalTo("6506b79b-7702-48b2-9774-a1c538fdd34e")));
+      assertThat(restoredRequest.getLastRecordId(), is(notNullValue()));
+      // The date is kept with storage precision and offset
+      assertThat(restoredRequest.getLastUpdatedDate(), endsWith("+0000"));
+
+      // The next page is searched right after the last record of the previous one
+      RequestSpecification nextRequest = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param(RESUMPTION_TOKEN_PARAM, resumptionToken.getValue());
+
+      OAIPMH nextOaipmh = verify200WithXml(nextRequest, verb);
+      verifyListResponse(nextOaipmh, verb, 10);
+      assertThat(getResumptionToken(nextOaipmh, verb).getCursor(), is(equalTo(BigInteger.TEN)));
+    } finally {
+      System.clearProperty(REPOSITORY_CURSOR_PAGINATION);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
+  void getOaiListVerbResumptionFlowWithPrefetch(VerbType verb) {
+    System.setProperty(REPOSITORY_PREFETCH, "true");
+    try {
+      RequestSpecification request = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param("from", PARTITIONABLE_RECORDS_DATE)
+        .param("metadataPrefix", "oai_dc")
+        .param("set", "all");
+
+      OAIPMH oaipmh = verify200WithXml(request, verb);
+      verifyListResponse(oaipmh, verb, 10);
+      ResumptionTokenType resumptionToken = getResumptionToken(oaipmh, verb);
+      assertThat(resumptionToken, is(notNullValue()));
+
+      // The next page is fetched once the resumptionToken is issued, so the next request takes it
+      long hitCount = PrefetchCache.getInstance().getHitCount();
+      RequestSpecification nextRequest = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param(RESUMPTION_TOKEN_PARAM, resumptionToken.getValue());
+
+      OAIPMH nextOaipmh = verify200WithXml(nextRequest, verb);
+      verifyListResponse(nextOaipmh, verb, 10);
+      assertThat(getResumptionToken(nextOaipmh, verb).getCursor(), is(equalTo(BigInteger.TEN)));
+      assertThat(PrefetchCache.getInstance().getHitCount(), is(hitCount + 1));
+    } finally {
+      System.clearProperty(REPOSITORY_PREFETCH);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
+  void getOaiListVerbResumptionFlowWithHarvestSessionsAndPrefetch(VerbType verb) {
+    System.setProperty(REPOSITORY_HARVEST_SESSIONS, "true");
+    System.setProperty(REPOSITORY_PREFETCH, "true");
+    try {
+      RequestSpecification request = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param("from", PARTITIONABLE_RECORDS_DATE)
+        .param("metadataPrefix", "oai_dc")
+        .param("set", "all");
+
+      long resumedCount = HarvestSessionStore.getInstance().getResumedCount();
+      long missCount = HarvestSessionStore.getInstance().getMissCount();
+      OAIPMH oaipmh = verify200WithXml(request, verb);
+      verifyListResponse(oaipmh, verb, 10);
+      ResumptionTokenType resumptionToken = getResumptionToken(oaipmh, verb);
+      assertThat(resumptionToken, is(notNullValue()));
+      // The state of the prefetched page is looked up without counting the harvest as resumed
+      assertThat(HarvestSessionStore.getInstance().getResumedCount(), is(resumedCount));
+      assertThat(HarvestSessionStore.getInstance().getMissCount(), is(missCount));
+
+      RequestSpecification nextRequest = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param(RESUMPTION_TOKEN_PARAM, resumptionToken.getValue());
+
+      OAIPMH nextOaipmh = verify200WithXml(nextRequest, verb);
+      verifyListResponse(nextOaipmh, verb, 10);
+      // The number of records is carried by the session instead of being counted again
+      assertThat(getResumptionToken(nextOaipmh, verb).getCompleteListSize(), is(equalTo(BigInteger.valueOf(100))));
+      assertThat(HarvestSessionStore.getInstance().getResumedCount(), is(resumedCount + 1));
+    } finally {
+      System.clearProperty(REPOSITORY_HARVEST_SESSIONS);
+      System.clearProperty(REPOSITORY_PREFETCH);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
+  void getOaiListVerbResumptionFlowWithHarvestSessions(VerbType verb) {
+    System.setProperty(REPOSITORY_HARVEST_SESSIONS, "true");
+    try {
+      RequestSpecification request = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param("from", PARTITIONABLE_RECORDS_DATE)
+        .param("metadataPrefix", "oai_dc")
+        .param("set", "all");
+
+      OAIPMH oaipmh = verify200WithXml(request, verb);
+      verifyListResponse(oaipmh, verb, 10);
+      ResumptionTokenType resumptionToken = getResumptionToken(oaipmh, verb);
+      assertThat(resumptionToken, is(notNullValue()));
+      assertThat(resumptionToken.getCompleteListSize(), is(equalTo(BigInteger.valueOf(100))));
+      assertThat(resumptionToken.getExpirationDate(), is(notNullValue()));
+      // The token is only the key of the state kept by the module
+      assertThat(restoreRequestWithoutSession(resumptionToken), is(false));
+
+      long resumedCount = HarvestSessionStore.getInstance().getResumedCount();
+      RequestSpecification nextRequest = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param(RESUMPTION_TOKEN_PARAM, resumptionToken.getValue());
+
+      OAIPMH nextOaipmh = verify200WithXml(nextRequest, verb);
+      verifyListResponse(nextOaipmh, verb, 10);
+      assertThat(getResumptionToken(nextOaipmh, verb).getCursor(), is(equalTo(BigInteger.TEN)));
+      assertThat(HarvestSessionStore.getInstance().getResumedCount(), is(resumedCount + 1));
+    } finally {
+      System.clearProperty(REPOSITORY_HARVEST_SESSIONS);
+    }
   }
 
   @ParameterizedTest
@@ -405,15 +549,88 @@ class OaiPmhImplTest {
     ResumptionTokenType actualResumptionToken = getResumptionToken(oaipmh, verb);
     assertThat(actualResumptionToken, is(notNullValue()));
     assertThat(actualResumptionToken.getValue(), is(notNullValue()));
-    String actualValue =
-      new String(Base64.getDecoder().decode(actualResumptionToken.getValue()), StandardCharsets.UTF_8);
-    String expectedValue = actualValue.replaceAll("offset=\\d+", "offset=10");
-    assertThat(actualValue, equalTo(expectedValue));
+    // The legacy resumptionToken is still accepted while the next one is issued in compact form
+    Request restoredRequest = restoreRequest(actualResumptionToken);
+    assertThat(restoredRequest.getOffset(), is(equalTo(10)));
+    assertThat(restoredRequest.getUntil(), is(equalTo("2003-10-01T00:00:00Z")));
     assertThat(actualResumptionToken.getCompleteListSize(), is(equalTo(BigInteger.valueOf(100))));
     assertThat(actualResumptionToken.getCursor(), is(equalTo(BigInteger.ZERO)));
     assertThat(actualResumptionToken.getExpirationDate(), is(nullValue()));
   }
 
+  @ParameterizedTest
+  @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
+  void getOaiListVerbWithStreamingResponse(VerbType verb) {
+    System.setProperty(REPOSITORY_STREAMING_RESPONSE, "true");
+    try {
+      RequestSpecification request = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param("from", PARTITIONABLE_RECORDS_DATE)
+        .param("metadataPrefix", "oai_dc")
+        .param("set", "all");
+
+      OAIPMH oaipmh = verify200WithXml(request, verb);
+
+      verifyListResponse(oaipmh, verb, 10);
+
+      ResumptionTokenType resumptionToken = getResumptionToken(oaipmh, verb);
+      assertThat(resumptionToken, is(notNullValue()));
+      assertThat(resumptionToken.getCompleteListSize(), is(equalTo(BigInteger.valueOf(100))));
+      assertThat(resumptionToken.getCursor(), is(equalTo(BigInteger.ZERO)));
+    } finally {
+      System.clearProperty(REPOSITORY_STREAMING_RESPONSE);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
+  void getOaiListVerbWithStreamingStorage(VerbType verb) {
+    System.setProperty(REPOSITORY_STREAMING_STORAGE, "true");
+    try {
+      RequestSpecification request = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param("from", PARTITIONABLE_RECORDS_DATE)
+        .param("metadataPrefix", "oai_dc")
+        .param("set", "all");
+
+      OAIPMH oaipmh = verify200WithXml(request, verb);
+
+      verifyListResponse(oaipmh, verb, 10);
+
+      ResumptionTokenType resumptionToken = getResumptionToken(oaipmh, verb);
+      assertThat(resumptionToken, is(notNullValue()));
+      assertThat(resumptionToken.getCompleteListSize(), is(equalTo(BigInteger.valueOf(100))));
+      assertThat(resumptionToken.getCursor(), is(equalTo(BigInteger.ZERO)));
+    } finally {
+      System.clearProperty(REPOSITORY_STREAMING_STORAGE);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
+  void getOaiListVerbWithUnderestimatedTotalRecords(VerbType verb) {
+    System.setProperty(REPOSITORY_TOTAL_RECORDS, "estimated");
+    try {
+      RequestSpecification request = createBaseRequest(basePaths.get(verb))
+        .with()
+        .param("from", PARTITIONABLE_RECORDS_DATE)
+        .param("metadataPrefix", "oai_dc")
+        .param("set", "all");
+
+      OAIPMH oaipmh = verify200WithXml(request, verb);
+
+      verifyListResponse(oaipmh, verb, 10);
+
+      // The storage estimates fewer records than the page holds, so the number is not reported
+      ResumptionTokenType resumptionToken = getResumptionToken(oaipmh, verb);
+      assertThat(resumptionToken, is(notNullValue()));
+      assertThat(resumptionToken.getCompleteListSize(), is(nullValue()));
+      assertThat(resumptionToken.getCursor(), is(equalTo(BigInteger.ZERO)));
+    } finally {
+      System.clearProperty(REPOSITORY_TOTAL_RECORDS);
+    }
+  }
+
   @ParameterizedTest
   @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
   void getOaiListVerbWithBadResumptionToken(VerbType verb) {
@@ -433,6 +650,27 @@ class OaiPmhImplTest {
     assertThat(oaipmh.getRequest().getResumptionToken(), equalTo(resumptionToken));
   }
 
+  @ParameterizedTest
+  @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
+  void getOaiListVerbWithForgedResumptionToken(VerbType verb) {
+    RequestSpecification request = createBaseRequest(basePaths.get(verb))
+      .with()
+      .param("from", PARTITIONABLE_RECORDS_DATE)
+      .param("metadataPrefix", "oai_dc");
+    String resumptionToken = getResumptionToken(verify200WithXml(request, verb), verb).getValue();
+    // The last characters hold the signature of the token
+    int index = resumptionToken.length() - 2;
+    String forgedToken = resumptionToken.substring(0, index) + (resumptionToken.charAt(index) == 'A' ? 'B' : 'A')
+      + resumptionToken.substring(index + 1);
+
+    RequestSpecification forgedRequest = createBaseRequest(basePaths.get(verb))
+      .with()
+      .param(RESUMPTION_TOKEN_PARAM, forgedToken);
+
+    OAIPMH oaipmh = verifyResponseWithErrors(forgedRequest, verb, 400, 1);
+    assertThat(oaipmh.getErrors().get(0).getCode(), is(equalTo(BAD_RESUMPTION_TOKEN)));
+  }
+
   @ParameterizedTest
   @EnumSource(value = VerbType.class, names = { "LIST_IDENTIFIERS", "LIST_RECORDS" })
   void getOaiListVerbWithResumptionTokenAndMetadataPrefix(VerbType verb) {
@@ -582,6 +820,33 @@ class OaiPmhImplTest {
     getLogger().debug(String.format("==== getOaiListRecordsVerbWithOneNotFoundRecordFromStorage(%s, %s) successfully completed ====", metadataPrefix.getName(), encoding));
   }
 
+  @ParameterizedTest
+  @ValueSource(booleans = { true, false })
+  void getOaiListRecordsVerbWithBatchedSourceFetch(boolean streamingResponse) {
+    System.setProperty(REPOSITORY_SOURCE_BATCH_SIZE, "2");
+    System.setProperty(REPOSITORY_STREAMING_RESPONSE, String.valueOf(streamingResponse));
+    int batchedRequestsCount = OkapiMockServer.getMarcJsonRecordsRequestsCount();
+    try {
+      RequestSpecification request = createBaseRequest(LIST_RECORDS_PATH)
+        .with()
+        .param(FROM_PARAM, OkapiMockServer.DATE_FOR_FOUR_INSTANCES_BUT_ONE_WITHOT_RECORD)
+        .param(METADATA_PREFIX_PARAM, MetadataPrefix.MARC21XML.getName());
+
+      OAIPMH oaipmh = verify200WithXml(request, LIST_RECORDS);
+
+      // The record which source is not found is skipped the same way as if the sources are fetched one by one
+      verifyListResponse(oaipmh, LIST_RECORDS, 3);
+      oaipmh.getListRecords().getRecords().forEach(record -> verifyRecord(record, MetadataPrefix.MARC21XML));
+
+      // Only inventory storage returns the sources separately from the instances, so 4 sources are fetched by 2 requests
+      int expectedBatchedRequestsCount = INVENTORY_STORAGE.equals(System.getProperty(REPOSITORY_STORAGE)) ? 2 : 0;
+      assertThat(OkapiMockServer.getMarcJsonRecordsRequestsCount() - batchedRequestsCount, equalTo(expectedBatchedRequestsCount));
+    } finally {
+      System.clearProperty(REPOSITORY_SOURCE_BATCH_SIZE);
+      System.clearProperty(REPOSITORY_STREAMING_RESPONSE);
+    }
+  }
+
   @ParameterizedTest
   @EnumSource(MetadataPrefix.class)
   void getOaiListRecordsVerbWithErrorFromRecordStorage(MetadataPrefix metadataPrefix) {
@@ -709,6 +974,139 @@ class OaiPmhImplTest {
     assertThat(oaiPmhResponseWithExistingIdentifier.getErrors(), is(empty()));
   }
 
+  @ParameterizedTest
+  @EnumSource(MetadataPrefix.class)
+  void getOaiGetRecordVerbWithStreamingResponse(MetadataPrefix metadataPrefix) {
+    System.setProperty(REPOSITORY_STREAMING_RESPONSE, "true");
+    try {
+      String identifier = IDENTIFIER_PREFIX + OkapiMockServer.EXISTING_IDENTIFIER;
+      RequestSpecification request = createBaseRequest(GET_RECORD_PATH)
+        .with()
+        .pathParam(IDENTIFIER_PARAM, identifier)
+        .with()
+        .param(METADATA_PREFIX_PARAM, metadataPrefix.getName());
+
+      OAIPMH oaipmh = verify200WithXml(request, GET_RECORD);
+
+      assertThat(oaipmh.getErrors(), is(empty()));
+      assertThat(oaipmh.getGetRecord(), is(notNullValue()));
+      verifyRecord(oaipmh.getGetRecord().getRecord(), metadataPrefix);
+    } finally {
+      System.clearProperty(REPOSITORY_STREAMING_RESPONSE);
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(MetadataPrefix.class)
+  void getOaiGetRecordVerbWithDirectLookup(MetadataPrefix metadataPrefix) {
+    System.setProperty(REPOSITORY_DIRECT_GET_RECORD, "true");
+    try {
+      int searchRequestsCount = OkapiMockServer.getSourceRecordsSearchRequestsCount();
+      RequestSpecification request = createBaseRequest(GET_RECORD_PATH)
+        .with()
+        .pathParam(IDENTIFIER_PARAM, IDENTIFIER_PREFIX + DIRECT_LOOKUP_RECORD_ID)
+        .with()
+        .param(METADATA_PREFIX_PARAM, metadataPrefix.getName());
+
+      OAIPMH oaipmh = verify200WithXml(request, GET_RECORD);
+
+      assertThat(oaipmh.getErrors(), is(empty()));
+      verifyRecord(oaipmh.getGetRecord().getRecord(), metadataPrefix);
+      verifyIdentifiers(Collections.singletonList(oaipmh.getGetRecord().getRecord().getHeader()),
+        Collections.singletonList("3e3d6e1b-4b7c-4a3e-8a0c-2f1b3a4c5d6e"));
+      // The record is got by id without searching for it
+      assertThat(OkapiMockServer.getSourceRecordsSearchRequestsCount(), is(searchRequestsCount));
+    } finally {
+      System.clearProperty(REPOSITORY_DIRECT_GET_RECORD);
+    }
+  }
+
+  @Test
+  void getOaiGetRecordVerbWithDirectLookupNotFound() {
+    System.setProperty(REPOSITORY_DIRECT_GET_RECORD, "true");
+    try {
+      RequestSpecification request = createBaseRequest(GET_RECORD_PATH)
+        .with()
+        .pathParam(IDENTIFIER_PARAM, IDENTIFIER_PREFIX + OkapiMockServer.NOT_FOUND_RECORD_INSTANCE_ID)
+        .with()
+        .param(METADATA_PREFIX_PARAM, MetadataPrefix.DC.getName());
+
+      OAIPMH oaipmh = verifyResponseWithErrors(request, GET_RECORD, 404, 1);
+      assertThat(oaipmh.getErrors().get(0).getCode(), equalTo(ID_DOES_NOT_EXIST));
+    } finally {
+      System.clearProperty(REPOSITORY_DIRECT_GET_RECORD);
+    }
+  }
+
+  /**
+   * Is run by benchmark profile only, see pom.xml. That the search is skipped is verified by
+   * {@link #getOaiGetRecordVerbWithDirectLookup(MetadataPrefix)} on every build.
+   */
+  @Test
+  @Tag("benchmark")
+  void getOaiGetRecordVerbLatencyWithDirectLookupComparedToSearch() {
+    RequestSpecification searchRequest = createBaseRequest(GET_RECORD_PATH)
+      .with()
+      .pathParam(IDENTIFIER_PARAM, IDENTIFIER_PREFIX + OkapiMockServer.EXISTING_IDENTIFIER)
+      .with()
+      .param(METADATA_PREFIX_PARAM, MetadataPrefix.DC.getName());
+    RequestSpecification directRequest = createBaseRequest(GET_RECORD_PATH)
+      .with()
+      .pathParam(IDENTIFIER_PARAM, IDENTIFIER_PREFIX + DIRECT_LOOKUP_RECORD_ID)
+      .with()
+      .param(METADATA_PREFIX_PARAM, MetadataPrefix.DC.getName());
+
+    // Warm up both paths before measuring
+    getRecords(searchRequest, LATENCY_ITERATIONS);
+    long searchTime = getRecords(searchRequest, LATENCY_ITERATIONS);
+    System.setProperty(REPOSITORY_DIRECT_GET_RECORD, "true");
+    try {
+      getRecords(directRequest, LATENCY_ITERATIONS);
+      int searchRequestsCount = OkapiMockServer.getSourceRecordsSearchRequestsCount();
+      long directTime = getRecords(directRequest, LATENCY_ITERATIONS);
+      logger.info(String.format("%d GetRecord requests served with search in %d ms and with direct lookup in %d ms",
+        LATENCY_ITERATIONS, searchTime / 1_000_000, directTime / 1_000_000));
+      assertThat(OkapiMockServer.getSourceRecordsSearchRequestsCount(), is(searchRequestsCount));
+    } finally {
+      System.clearProperty(REPOSITORY_DIRECT_GET_RECORD);
+    }
+  }
+
+  /**
+   * @return time in nanoseconds spent to serve specified number of GetRecord requests
+   */
+  private long getRecords(RequestSpecification request, int iterations) {
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      verify200WithXml(request, GET_RECORD);
+    }
+    return System.nanoTime() - start;
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = { true, false })
+  void getOaiGetRecordVerbWithNativeDcMapper(boolean streamingResponse) {
+    System.setProperty(REPOSITORY_DC_MAPPER, "native");
+    System.setProperty(REPOSITORY_STREAMING_RESPONSE, String.valueOf(streamingResponse));
+    try {
+      String identifier = IDENTIFIER_PREFIX + OkapiMockServer.EXISTING_IDENTIFIER;
+      RequestSpecification request = createBaseRequest(GET_RECORD_PATH)
+        .with()
+        .pathParam(IDENTIFIER_PARAM, identifier)
+        .with()
+        .param(METADATA_PREFIX_PARAM, MetadataPrefix.DC.getName());
+
+      OAIPMH oaipmh = verify200WithXml(request, GET_RECORD);
+
+      assertThat(oaipmh.getErrors(), is(empty()));
+      assertThat(oaipmh.getGetRecord(), is(notNullValue()));
+      verifyRecord(oaipmh.getGetRecord().getRecord(), MetadataPrefix.DC);
+    } finally {
+      System.clearProperty(REPOSITORY_DC_MAPPER);
+      System.clearProperty(REPOSITORY_STREAMING_RESPONSE);
+    }
+  }
+
   @ParameterizedTest
   @EnumSource(MetadataPrefix.class)
   void getOaiGetRecordVerbWithNonExistingIdentifier(MetadataPrefix metadataPrefix) {
@@ -838,6 +1236,7 @@ class OaiPmhImplTest {
     assertThat(oaipmhFromString.getIdentify().getAdminEmails(), is(notNullValue()));
     assertThat(oaipmhFromString.getIdentify().getAdminEmails(), hasSize(equalTo(2)));
     assertThat(oaipmhFromString.getIdentify().getEarliestDatestamp(), is(notNullValue()));
+    assertThat(oaipmhFromString.getIdentify().getEarliestDatestamp().isAfter(Instant.EPOCH), is(true));
     assertThat(oaipmhFromString.getIdentify().getGranularity(), is(equalTo(GranularityType.YYYY_MM_DD_THH_MM_SS_Z)));
     assertThat(oaipmhFromString.getIdentify().getProtocolVersion(), is(equalTo(Constants.REPOSITORY_PROTOCOL_VERSION_2_0)));
     assertThat(oaipmhFromString.getIdentify().getRepositoryName(), is(notNullValue()));
@@ -849,6 +1248,33 @@ class OaiPmhImplTest {
     testContext.completeNow();
   }
 
+  @ParameterizedTest
+  @EnumSource(value = VerbType.class, names = { "IDENTIFY", "LIST_SETS", "LIST_METADATA_FORMATS" })
+  void getOaiVerbNotModified(VerbType verb) {
+    String entityTag = createBaseRequest(basePaths.get(verb))
+      .when()
+        .get()
+      .then()
+        .statusCode(200)
+        .header(ETAG, notNullValue())
+        // The entity tag is the only validator since the time the data of the response has changed is not known
+        .header(LAST_MODIFIED, nullValue())
+        .extract()
+          .header(ETAG);
+
+    // The client already holds the response, so the body is not sent back
+    createBaseRequest(basePaths.get(verb))
+      .header(IF_NONE_MATCH, entityTag)
+      .when()
+        .get()
+      .then()
+        .statusCode(304)
+        .header(ETAG, equalTo(entityTag));
+
+    OAIPMH oaipmh = verify200WithXml(createBaseRequest(basePaths.get(verb)).header(IF_NONE_MATCH, "W/\"outdated\""), verb);
+    assertThat(oaipmh.getErrors(), is(empty()));
+  }
+
   @ParameterizedTest
   @ValueSource(strings = { REPOSITORY_ADMIN_EMAILS, REPOSITORY_NAME })
   void getOaiRepositoryInfoMissingRequiredConfigs(String propKey) {
@@ -988,12 +1414,15 @@ class OaiPmhImplTest {
     }
   }
 
-  private String getParamValue(List<NameValuePair> params, String name) {
-    return params.stream()
-      .filter(p -> p.getName().equals(name))
-      .map(NameValuePair::getValue)
-      .findFirst()
-      .get();
+  private boolean restoreRequestWithoutSession(ResumptionTokenType resumptionToken) {
+    Request request = Request.builder().resumptionToken(resumptionToken.getValue()).build();
+    return request.restoreFromResumptionToken() && request.getMetadataPrefix() != null;
+  }
+
+  private Request restoreRequest(ResumptionTokenType resumptionToken) {
+    Request request = Request.builder().resumptionToken(resumptionToken.getValue()).build();
+    assertThat(request.restoreFromResumptionToken(), is(true));
+    return request;
   }
 
   private RequestSpecification addAcceptEncodingHeader(String encoding) {
@@ -3,6 +3,7 @@ package org.folio.rest.impl;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
@@ -18,7 +19,12 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.folio.oaipmh.Constants.OKAPI_TENANT;
 import static org.folio.oaipmh.helpers.storage.InventoryStorageHelper.MARC_JSON_RECORD_URI;
@@ -81,6 +87,12 @@ public class OkapiMockServer {
 
   public static final String ERROR_TENANT = "error";
 
+  private static final int ESTIMATED_TOTAL_RECORDS = 5;
+  private static final Pattern ANY_OF_INSTANCE_IDS_QUERY = Pattern.compile("externalIdsHolder\\.instanceId==\\(\"(.+)\"\\)");
+  private static final AtomicInteger marcJsonRecordsRequestsCount = new AtomicInteger();
+  private static final AtomicInteger sourceRecordsSearchRequestsCount = new AtomicInteger();
+  private static final AtomicInteger configurationRequestsCount = new AtomicInteger();
+
   private final int port;
   private final Vertx vertx;
 
@@ -96,7 +108,6 @@ public class OkapiMockServer {
           .handler(this::handleInstancesInventoryStorageResponse);
     router.get(INSTANCE_STORAGE_BY_ID_MARC_JSON)
           .handler(this::handleMarcJsonInventoryStorageResponse);
-
     router.get(SOURCE_STORAGE_RESULT_URI)
           .handler(this::handleRecordStorageResultResponse);
     router.get(SOURCE_STORAGE_RECORD)
@@ -108,6 +119,7 @@ public class OkapiMockServer {
   }
 
   private void handleConfigurationModuleResponse(RoutingContext ctx) {
+    configurationRequestsCount.incrementAndGet();
     switch (ctx.request().getHeader(OKAPI_TENANT)) {
       case EXIST_CONFIG_TENANT:
         successResponse(ctx, getJsonObjectFromFile(CONFIG_TEST));
@@ -127,6 +139,13 @@ public class OkapiMockServer {
     }
   }
 
+  /**
+   * @return the number of requests for the configuration of the module
+   */
+  public static int getConfigurationRequestsCount() {
+    return configurationRequestsCount.get();
+  }
+
   private void handleMarcJsonInventoryStorageResponse(RoutingContext ctx) {
     String instanceId = ctx.request().getParam("instanceId");
     if (instanceId.equalsIgnoreCase(INTERNAL_SERVER_ERROR_INSTANCE_ID)) {
@@ -143,6 +162,48 @@ public class OkapiMockServer {
     }
   }
 
+  /**
+   * Returns the source records linked to the instances requested by {@code externalIdsHolder.instanceId==("id1" or "id2")}
+   * query. The sources which are not found are just skipped
+   */
+  private void handleSourceRecordsByInstanceIdsResponse(RoutingContext ctx, Matcher matcher) {
+    marcJsonRecordsRequestsCount.incrementAndGet();
+    JsonArray sourceRecords = new JsonArray();
+    for (String instanceId : matcher.group(1).split("\" or \"")) {
+      if (instanceId.equalsIgnoreCase(INTERNAL_SERVER_ERROR_INSTANCE_ID)) {
+        failureResponse(ctx, 500, "Internal Server Error");
+        return;
+      } else if (!instanceId.equalsIgnoreCase(NOT_FOUND_RECORD_INSTANCE_ID)) {
+        String json = getJsonObjectFromFile(String.format("/instance-storage/instances/marc-%s.json", instanceId));
+        if (isEmpty(json)) {
+          json = getJsonObjectFromFile("/instance-storage/instances/marc.json");
+        }
+        sourceRecords.add(new JsonObject()
+          .put("recordId", UUID.randomUUID().toString())
+          .put("externalIdsHolder", new JsonObject().put("instanceId", instanceId))
+          .put("parsedRecord", new JsonObject().put("content", new JsonObject(json))));
+      }
+    }
+    successResponse(ctx, new JsonObject()
+      .put("sourceRecords", sourceRecords)
+      .put("totalRecords", sourceRecords.size())
+      .encode());
+  }
+
+  /**
+   * @return the number of requests for the sources of several instances at once
+   */
+  static int getMarcJsonRecordsRequestsCount() {
+    return marcJsonRecordsRequestsCount.get();
+  }
+
+  /**
+   * @return the number of searches for source records
+   */
+  static int getSourceRecordsSearchRequestsCount() {
+    return sourceRecordsSearchRequestsCount.get();
+  }
+
   private void handleSourceRecordStorageByIdResponse(RoutingContext ctx) {
     String recordId = ctx.request().getParam("id");
     if (recordId.equalsIgnoreCase(INTERNAL_SERVER_ERROR_INSTANCE_ID)) {
@@ -173,6 +234,13 @@ public class OkapiMockServer {
   }
 
   private void handleRecordStorageResultResponse(RoutingContext ctx) {
+    String query = ctx.request().getParam("query");
+    Matcher matcher = ANY_OF_INSTANCE_IDS_QUERY.matcher(query == null ? "" : query);
+    if (matcher.matches()) {
+      handleSourceRecordsByInstanceIdsResponse(ctx, matcher);
+      return;
+    }
+    sourceRecordsSearchRequestsCount.incrementAndGet();
     handleResultResponse(ctx, SOURCE_STORAGE_RESULT_URI);
   }
 
@@ -191,7 +259,8 @@ public class OkapiMockServer {
       } else if (query.contains(ERROR_UNTIL_DATE_STORAGE)) {
         failureResponse(ctx, 500, "Internal Server Error");
       } else if (query.contains(PARTITIONABLE_RECORDS_DATE_STORAGE)) {
-        successResponse(ctx, getJsonObjectFromFile(filePath + INSTANCES_11));
+        successResponse(ctx, estimateTotalRecords(getPageFromOffset(filePath, getJsonObjectFromFile(filePath + INSTANCES_11),
+          ctx.request().getParam("offset")), ctx.request().getParam("totalRecords")));
       } else if (query.contains(DATE_FOR_ONE_INSTANCE_BUT_WITHOT_RECORD_STORAGE) || query.contains(NOT_FOUND_RECORD_INSTANCE_ID)) {
         successResponse(ctx, getJsonObjectFromFile(filePath + INSTANCES_1_NO_RECORD_SOURCE));
       } else if (query.contains(RECORD_STORAGE_INTERNAL_SERVER_ERROR_UNTIL_DATE_STORAGE)) {
@@ -209,6 +278,36 @@ public class OkapiMockServer {
     }
   }
 
+  /**
+   * Rotates the items of the page, so the page of non-zero offset starts with the extra record of the previous page as the storage
+   * would return it. The number of the items is not changed.
+   */
+  private String getPageFromOffset(String filePath, String json, String offset) {
+    int shift = offset == null ? 0 : Integer.parseInt(offset);
+    if (shift == 0) {
+      return json;
+    }
+    String itemsName = SOURCE_STORAGE_RESULT_URI.equals(filePath) ? "sourceRecords" : "instances";
+    JsonObject page = new JsonObject(json);
+    JsonArray items = page.getJsonArray(itemsName);
+    JsonArray rotated = new JsonArray();
+    for (int i = 0; i < items.size(); i++) {
+      rotated.add(items.getValue((i + shift) % items.size()));
+    }
+    return page.put(itemsName, rotated).encode();
+  }
+
+  /**
+   * Reports lower number of records than the page holds if the number is requested to be estimated, as the estimate of the
+   * storage may be
+   */
+  private String estimateTotalRecords(String json, String totalRecords) {
+    if (!"estimated".equals(totalRecords)) {
+      return json;
+    }
+    return new JsonObject(json).put("totalRecords", ESTIMATED_TOTAL_RECORDS).encode();
+  }
+
   private String getIdParamName(String filePath) {
     return SOURCE_STORAGE_RESULT_URI.equals(filePath) ? "recordId" : "id";
   }